@@ -0,0 +1,49 @@
+package dopaminelite.notifications.config;
+
+import dopaminelite.notifications.service.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Mail sender configuration.
+ * Replaces Spring Boot's auto-configured JavaMailSender with one that reuses
+ * authenticated SMTP sessions; all spring.mail.* settings still apply.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public PooledJavaMailSender mailSender(
+        MailProperties properties,
+        @Value("${notifications.email.pool.size:${notifications.delivery.concurrency.email:16}}") int poolSize,
+        @Value("${notifications.email.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+        @Value("${notifications.email.pool.validate-after-idle:5s}") Duration validateAfterIdle,
+        @Value("${notifications.email.pool.max-idle:60s}") Duration maxIdle
+    ) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(poolSize, maxMessagesPerConnection,
+            validateAfterIdle, maxIdle);
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        if (!properties.getProperties().isEmpty()) {
+            Properties javaMailProperties = new Properties();
+            javaMailProperties.putAll(properties.getProperties());
+            sender.setJavaMailProperties(javaMailProperties);
+        }
+        return sender;
+    }
+}
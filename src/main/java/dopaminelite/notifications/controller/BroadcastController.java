@@ -2,6 +2,7 @@ package dopaminelite.notifications.controller;
 
 import dopaminelite.notifications.dto.BroadcastDto;
 import dopaminelite.notifications.dto.BroadcastListResponse;
+import dopaminelite.notifications.dto.BroadcastProgressDto;
 import dopaminelite.notifications.service.BroadcastService;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -20,6 +21,7 @@ import java.util.UUID;
  * Endpoints:
  * - GET /broadcasts - List broadcast records with filters
  * - GET /broadcasts/{id} - Get broadcast details
+ * - GET /broadcasts/{id}/progress - Get the status and progress of a broadcast job
  */
 @RestController
 @RequestMapping("/broadcasts")
@@ -83,4 +85,14 @@ public class BroadcastController {
         BroadcastDto broadcast = broadcastService.getBroadcast(broadcastId);
         return ResponseEntity.ok(broadcast);
     }
+    
+    /**
+     * Get the status and progress of a broadcast job.
+     * 
+     * OpenAPI: GET /broadcasts/{broadcastId}/progress
+     */
+    @GetMapping("/{broadcastId}/progress")
+    public ResponseEntity<BroadcastProgressDto> getBroadcastProgress(@PathVariable UUID broadcastId) {
+        return ResponseEntity.ok(broadcastService.getProgress(broadcastId));
+    }
 }
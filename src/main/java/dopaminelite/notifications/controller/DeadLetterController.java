@@ -0,0 +1,66 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.dto.DeadLetterListResponse;
+import dopaminelite.notifications.dto.DeadLetterReplayRequest;
+import dopaminelite.notifications.dto.DeadLetterReplayResponse;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.service.DeadLetterService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * REST controller for deliveries that exhausted their retries.
+ *
+ * Endpoints:
+ * - GET /dead-letters - List dead letters with filters
+ * - POST /dead-letters/replay - Re-enqueue matching dead letters
+ */
+@RestController
+@RequestMapping("/dead-letters")
+@RequiredArgsConstructor
+@Validated
+public class DeadLetterController {
+
+    private final DeadLetterService deadLetterService;
+
+    /**
+     * List dead letters with filters.
+     *
+     * OpenAPI: GET /dead-letters
+     */
+    @GetMapping
+    public ResponseEntity<DeadLetterListResponse> listDeadLetters(
+        @RequestParam(required = false) DeliveryErrorClass errorClass,
+        @RequestParam(required = false) NotificationChannel channel,
+        @RequestParam(required = false) UUID broadcastId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant dateFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant dateTo,
+        @RequestParam(required = false, defaultValue = "20") @Min(1) @Max(100) Integer limit,
+        @RequestParam(required = false, defaultValue = "0") @Min(0) Integer offset
+    ) {
+        DeadLetterListResponse response = deadLetterService.listDeadLetters(
+            errorClass, channel, broadcastId, dateFrom, dateTo, limit, offset
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Replay dead letters matching the filters in the request body.
+     *
+     * OpenAPI: POST /dead-letters/replay
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterReplayResponse> replay(@Valid @RequestBody DeadLetterReplayRequest request) {
+        return ResponseEntity.ok(deadLetterService.replay(request));
+    }
+}
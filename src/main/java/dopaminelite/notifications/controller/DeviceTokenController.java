@@ -0,0 +1,59 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.dto.DeviceTokenRegisterRequest;
+import dopaminelite.notifications.service.DeviceTokenService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * REST controller for the devices that receive PUSH notifications.
+ *
+ * Endpoints:
+ * - POST /device-tokens - Register a device token for the calling user
+ * - DELETE /device-tokens - Remove a device token (e.g. on logout)
+ *
+ * Only the BFF may call these (see SecurityConfig); the user is always the one
+ * the BFF authenticated, passed in X-User-Id, never a value from the body.
+ */
+@RestController
+@RequestMapping("/device-tokens")
+@RequiredArgsConstructor
+@Validated
+public class DeviceTokenController {
+
+    private final DeviceTokenService deviceTokenService;
+
+    /**
+     * Register a device token for the calling user. Registering a token again moves it to that user.
+     *
+     * OpenAPI: POST /device-tokens
+     */
+    @PostMapping
+    public ResponseEntity<Void> registerDeviceToken(
+        @RequestHeader("X-User-Id") UUID userId,
+        @Valid @RequestBody DeviceTokenRegisterRequest request
+    ) {
+        deviceTokenService.register(userId, request.getToken(), request.getPlatform());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Remove one of the calling user's device tokens.
+     *
+     * OpenAPI: DELETE /device-tokens?token=...
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> unregisterDeviceToken(
+        @RequestHeader("X-User-Id") UUID userId,
+        @RequestParam @NotBlank String token
+    ) {
+        deviceTokenService.unregister(userId, token);
+        return ResponseEntity.noContent().build();
+    }
+}
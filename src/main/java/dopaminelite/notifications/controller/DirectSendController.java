@@ -3,8 +3,10 @@ package dopaminelite.notifications.controller;
 import dopaminelite.notifications.dto.DirectNotificationSendByEmailRequest;
 import dopaminelite.notifications.dto.DirectNotificationSendRequest;
 import dopaminelite.notifications.dto.SendFromTemplateRequest;
+import dopaminelite.notifications.service.IdempotencyService;
 import dopaminelite.notifications.service.NotificationService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +23,7 @@ import java.util.UUID;
 public class DirectSendController {
     
     private final NotificationService notificationService;
+    private final IdempotencyService idempotencyService;
     
     /**
      * Directly send ad-hoc notifications.
@@ -30,17 +33,20 @@ public class DirectSendController {
      * and sends to provided targetUserIds. Used by admins via BFF for
      * broadcasts and system messages.
      *
-     * Returns the broadcast ID for tracking.
+     * Returns the broadcast ID for tracking; a repeated Idempotency-Key
+     * returns the original broadcast ID without sending again.
      */
     @PostMapping("/send")
     public ResponseEntity<Map<String, Object>> sendDirectNotifications(
         @Valid @RequestBody DirectNotificationSendRequest request,
-        @RequestHeader(value = "X-User-Id", required = false) UUID sentBy
+        @RequestHeader(value = "X-User-Id", required = false) UUID sentBy,
+        @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 255) String idempotencyKey
     ) {
         // Default to system user if not provided
         UUID sender = sentBy != null ? sentBy : UUID.fromString("00000000-0000-0000-0000-000000000000");
 
-        UUID broadcastId = notificationService.sendDirectNotifications(request, sender);
+        UUID broadcastId = idempotencyService.execute("send:" + sender, idempotencyKey,
+            () -> notificationService.sendDirectNotifications(request, sender)).resultId();
 
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(
             Map.of("broadcastId", broadcastId, "message", "Send request accepted")
@@ -53,17 +59,20 @@ public class DirectSendController {
      * OpenAPI: POST /notifications/send-from-template
      * Supports placeholder replacement for personalized templates.
      *
-     * Returns the broadcast ID for tracking.
+     * Returns the broadcast ID for tracking; a repeated Idempotency-Key
+     * returns the original broadcast ID without sending again.
      */
     @PostMapping("/send-from-template")
     public ResponseEntity<Map<String, Object>> sendFromTemplate(
         @Valid @RequestBody SendFromTemplateRequest request,
-        @RequestHeader(value = "X-User-Id", required = false) UUID sentBy
+        @RequestHeader(value = "X-User-Id", required = false) UUID sentBy,
+        @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 255) String idempotencyKey
     ) {
         // Default to system user if not provided
         UUID sender = sentBy != null ? sentBy : UUID.fromString("00000000-0000-0000-0000-000000000000");
 
-        UUID broadcastId = notificationService.sendFromTemplate(request, sender);
+        UUID broadcastId = idempotencyService.execute("send-from-template:" + sender, idempotencyKey,
+            () -> notificationService.sendFromTemplate(request, sender)).resultId();
 
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(
             Map.of("broadcastId", broadcastId, "message", "Template-based send request accepted")
@@ -77,18 +86,22 @@ public class DirectSendController {
      * Behavior: Accepts email addresses directly instead of user IDs.
      * Only EMAIL channel is supported (IN_APP requires user IDs).
      * Used for sending notifications to email recipients without needing user accounts.
+     * Queued as a broadcast job like /send; nothing is sent before the response.
      *
-     * Returns the broadcast ID for tracking.
+     * Returns the broadcast ID for tracking; a repeated Idempotency-Key
+     * returns the original broadcast ID without sending again.
      */
     @PostMapping("/send-by-email")
     public ResponseEntity<Map<String, Object>> sendDirectNotificationsByEmail(
         @Valid @RequestBody DirectNotificationSendByEmailRequest request,
-        @RequestHeader(value = "X-User-Id", required = false) UUID sentBy
+        @RequestHeader(value = "X-User-Id", required = false) UUID sentBy,
+        @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 255) String idempotencyKey
     ) {
         // Default to system user if not provided
         UUID sender = sentBy != null ? sentBy : UUID.fromString("00000000-0000-0000-0000-000000000000");
 
-        UUID broadcastId = notificationService.sendDirectNotificationsByEmail(request, sender);
+        UUID broadcastId = idempotencyService.execute("send-by-email:" + sender, idempotencyKey,
+            () -> notificationService.sendDirectNotificationsByEmail(request, sender)).resultId();
 
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(
             Map.of("broadcastId", broadcastId, "message", "Send by email request accepted")
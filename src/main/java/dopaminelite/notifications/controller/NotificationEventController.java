@@ -1,8 +1,10 @@
 package dopaminelite.notifications.controller;
 
 import dopaminelite.notifications.dto.NotificationEventRequest;
+import dopaminelite.notifications.service.IdempotencyService;
 import dopaminelite.notifications.service.NotificationService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 public class NotificationEventController {
     
     private final NotificationService notificationService;
+    private final IdempotencyService idempotencyService;
     
     /**
      * Ingest a domain event to trigger notifications.
@@ -25,12 +28,17 @@ public class NotificationEventController {
      * and initiates EMAIL/WHATSAPP via providers as configured.
      * Example payloads include payment status changes, issue updates,
      * new issue messages, and student verification.
+     * A repeated Idempotency-Key is accepted without processing the event again.
      */
     @PostMapping
     public ResponseEntity<Void> processNotificationEvent(
-        @Valid @RequestBody NotificationEventRequest request
+        @Valid @RequestBody NotificationEventRequest request,
+        @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 255) String idempotencyKey
     ) {
-        notificationService.processNotificationEvent(request);
+        idempotencyService.execute("notification-event", idempotencyKey, () -> {
+            notificationService.processNotificationEvent(request);
+            return null;
+        });
         return ResponseEntity.status(HttpStatus.ACCEPTED).build();
     }
 }
@@ -0,0 +1,35 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.service.UserDataCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * REST controller for the cache of user data fetched from the BFF.
+ *
+ * Endpoints:
+ * - DELETE /user-cache/{userId} - Evict a user, e.g. when the BFF changes the user's profile
+ *
+ * Only the BFF may call these (see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/user-cache")
+@RequiredArgsConstructor
+public class UserCacheController {
+
+    private final UserDataCache userDataCache;
+
+    /**
+     * Evict a user; the next notification for the user fetches fresh data from the BFF.
+     *
+     * OpenAPI: DELETE /user-cache/{userId}
+     */
+    @DeleteMapping("/{userId}")
+    public ResponseEntity<Void> evictUser(@PathVariable UUID userId) {
+        userDataCache.evict(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
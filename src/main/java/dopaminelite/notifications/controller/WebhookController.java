@@ -0,0 +1,64 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.dto.WebhookSubscriptionCreateRequest;
+import dopaminelite.notifications.dto.WebhookSubscriptionDto;
+import dopaminelite.notifications.service.WebhookSubscriptionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST controller for partner webhook subscriptions.
+ * Only the BFF may call these (see SecurityConfig).
+ *
+ * Endpoints:
+ * - POST /webhooks - Subscribe an endpoint to WEBHOOK notifications of some event types
+ * - GET /webhooks - List subscriptions
+ * - DELETE /webhooks/{id} - Remove a subscription
+ */
+@RestController
+@RequestMapping("/webhooks")
+@RequiredArgsConstructor
+@Validated
+public class WebhookController {
+
+    private final WebhookSubscriptionService subscriptionService;
+
+    /**
+     * Subscribe a public https endpoint to the given event types.
+     * The response carries the signing secret, which is not returned again.
+     *
+     * OpenAPI: POST /webhooks
+     */
+    @PostMapping
+    public ResponseEntity<WebhookSubscriptionDto> createWebhook(@Valid @RequestBody WebhookSubscriptionCreateRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(subscriptionService.create(request));
+    }
+
+    /**
+     * List subscriptions.
+     *
+     * OpenAPI: GET /webhooks
+     */
+    @GetMapping
+    public ResponseEntity<List<WebhookSubscriptionDto>> listWebhooks() {
+        return ResponseEntity.ok(subscriptionService.list());
+    }
+
+    /**
+     * Remove a subscription.
+     *
+     * OpenAPI: DELETE /webhooks/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteWebhook(@PathVariable UUID id) {
+        subscriptionService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,6 +1,7 @@
 package dopaminelite.notifications.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import dopaminelite.notifications.entity.enums.BroadcastStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -32,5 +33,8 @@ public class BroadcastDto {
     private UUID sentBy;
     private Instant sentAt;
     private Map<String, Object> metadata;
+    private BroadcastStatus status;
+    private Integer processedCount;
+    private Instant completedAt;
     private List<UUID> notificationIds;
 }
@@ -0,0 +1,33 @@
+package dopaminelite.notifications.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dopaminelite.notifications.entity.enums.BroadcastStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DTO for the progress of a broadcast job.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BroadcastProgressDto {
+    private UUID id;
+    private BroadcastStatus status;
+    private Integer recipientCount;
+    private Integer processedCount;
+    private Integer successCount;
+    private Integer failureCount;
+    /** Share of recipients processed, 0-100 */
+    private Integer percentComplete;
+    private Instant startedAt;
+    private Instant completedAt;
+    private String lastError;
+}
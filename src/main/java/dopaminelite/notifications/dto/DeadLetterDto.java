@@ -0,0 +1,37 @@
+package dopaminelite.notifications.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DTO for a dead-lettered delivery.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeadLetterDto {
+    private UUID id;
+    private UUID notificationId;
+    private NotificationChannel channel;
+    private DeliveryPriority priority;
+    private String recipientEmail;
+    private UUID userId;
+    private UUID broadcastId;
+    private String title;
+    private int retryCount;
+    private String lastError;
+    private DeliveryErrorClass errorClass;
+    private Instant enqueuedAt;
+    private Instant deadLetteredAt;
+}
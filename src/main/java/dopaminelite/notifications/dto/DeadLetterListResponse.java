@@ -0,0 +1,20 @@
+package dopaminelite.notifications.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * API response wrapper for paginated dead letters.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterListResponse {
+    private List<DeadLetterDto> items;
+    private long total;
+}
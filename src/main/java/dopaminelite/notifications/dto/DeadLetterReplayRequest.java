@@ -0,0 +1,31 @@
+package dopaminelite.notifications.dto;
+
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Request to replay dead letters matching the given filters.
+ * Omitted filters match everything; maxEntries caps the replay.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayRequest {
+    private DeliveryErrorClass errorClass;
+    private NotificationChannel channel;
+    private UUID broadcastId;
+    private Instant dateFrom;
+    private Instant dateTo;
+
+    @Min(1)
+    private Integer maxEntries;
+}
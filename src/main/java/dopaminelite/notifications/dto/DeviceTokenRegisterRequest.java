@@ -0,0 +1,29 @@
+package dopaminelite.notifications.dto;
+
+import dopaminelite.notifications.entity.enums.DevicePlatform;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request to register a device for PUSH notifications.
+ * The owner is the calling user (X-User-Id), not part of the body.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceTokenRegisterRequest {
+
+    /** FCM registration token issued to the app or browser */
+    @NotBlank
+    @Size(max = 512)
+    private String token;
+
+    @NotNull
+    private DevicePlatform platform;
+}
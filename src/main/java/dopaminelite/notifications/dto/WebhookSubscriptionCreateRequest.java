@@ -0,0 +1,39 @@
+package dopaminelite.notifications.dto;
+
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to subscribe a partner endpoint to WEBHOOK notifications.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookSubscriptionCreateRequest {
+
+    @Size(max = 255)
+    private String name;
+
+    @NotBlank
+    @Size(max = 2048)
+    @Pattern(regexp = "(?i)^https://.+", message = "must be an https URL")
+    private String url;
+
+    /** Event types delivered to the endpoint; nothing else is sent to it */
+    @NotEmpty
+    private List<NotificationEventType> eventTypes;
+
+    /** Signing secret; generated when omitted */
+    @Size(min = 16, max = 255)
+    private String secret;
+}
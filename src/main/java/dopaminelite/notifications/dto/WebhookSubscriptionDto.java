@@ -0,0 +1,30 @@
+package dopaminelite.notifications.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for a webhook subscription. The secret is only returned when the subscription is created.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WebhookSubscriptionDto {
+    private UUID id;
+    private String name;
+    private String url;
+    private String secret;
+    private List<NotificationEventType> eventTypes;
+    private boolean active;
+    private Instant createdAt;
+}
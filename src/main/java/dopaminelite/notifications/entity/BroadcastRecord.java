@@ -1,5 +1,6 @@
 package dopaminelite.notifications.entity;
 
+import dopaminelite.notifications.entity.enums.BroadcastStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -15,6 +16,7 @@ import java.util.UUID;
 /**
  * Broadcast record entity to track broadcast notification send operations.
  * Links to individual notification records created for each recipient.
+ * Also the job a background runner works through, in chunks of target users.
  */
 @Entity
 @Table(name = "broadcast_records", indexes = {
@@ -57,4 +59,58 @@ public class BroadcastRecord extends BaseEntity {
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "metadata", columnDefinition = "jsonb")
     private Map<String, Object> metadata;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private BroadcastStatus status = BroadcastStatus.COMPLETED;
+    
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "target_user_ids", columnDefinition = "jsonb")
+    private List<UUID> targetUserIds;
+    
+    /**
+     * Audience of a send by email address, for recipients without user accounts.
+     * Set instead of targetUserIds.
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "target_emails", columnDefinition = "jsonb")
+    private List<String> targetEmails;
+    
+    /**
+     * Checkpoint cursor: recipients of the audience already committed, in order.
+     * A resumed job continues from here.
+     */
+    @Column(name = "processed_count", nullable = false)
+    private Integer processedCount = 0;
+    
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+    
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+    
+    @Column(name = "started_at")
+    private Instant startedAt;
+    
+    @Column(name = "completed_at")
+    private Instant completedAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    /**
+     * Failed attempts at the current checkpoint; a job that keeps failing is given up.
+     */
+    @Column(name = "retry_count", nullable = false)
+    private Integer retryCount = 0;
+
+    /**
+     * Number of recipients in the job's audience, by user or by email address.
+     */
+    public int audienceSize() {
+        if (targetEmails != null) {
+            return targetEmails.size();
+        }
+        return targetUserIds != null ? targetUserIds.size() : 0;
+    }
 }
@@ -0,0 +1,76 @@
+package dopaminelite.notifications.entity;
+
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Outbox entry that failed for good, moved out of delivery_outbox.
+ * Keeps the original outbox id and the notification snapshot so it can be replayed.
+ */
+@Entity
+@Table(name = "delivery_dead_letters")
+@Getter
+@Setter
+public class DeliveryDeadLetter {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "notification_id", nullable = false)
+    private UUID notificationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "channel", nullable = false, length = 20)
+    private NotificationChannel channel;
+
+    @Column(name = "recipient_email", length = 255)
+    private String recipientEmail;
+
+    @Column(name = "recipient_phone", length = 32)
+    private String recipientPhone;
+
+    @Column(name = "webhook_id")
+    private UUID webhookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority", nullable = false, length = 20)
+    private DeliveryPriority priority;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "notification_created_at")
+    private Instant notificationCreatedAt;
+
+    @Column(name = "broadcast_id")
+    private UUID broadcastId;
+
+    @Column(name = "title", length = 500)
+    private String title;
+
+    @Column(name = "body", columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "retry_count", nullable = false)
+    private int retryCount;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "error_class", nullable = false, length = 30)
+    private DeliveryErrorClass errorClass;
+
+    @Column(name = "enqueued_at")
+    private Instant enqueuedAt;
+
+    @Column(name = "dead_lettered_at", nullable = false)
+    private Instant deadLetteredAt;
+}
@@ -1,5 +1,7 @@
 package dopaminelite.notifications.entity;
 
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
 import dopaminelite.notifications.entity.enums.DeliveryStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
 import jakarta.persistence.*;
@@ -14,6 +16,10 @@ import java.util.UUID;
 /**
  * Outbox pattern for async notification delivery with retries.
  * Each record represents a pending/failed delivery that the worker will process.
+ * It carries a snapshot of the notification's key and content, so the worker
+ * can deliver and record results without looking the notification up.
+ * The table is partitioned by created_at, so its primary key is (id, created_at);
+ * ids are random UUIDs and created_at is never rewritten, so id alone stays unique.
  */
 @Entity
 @Table(name = "delivery_outbox")
@@ -33,10 +39,20 @@ public class DeliveryOutbox extends BaseEntity {
     @Column(name = "recipient_email", length = 255)
     private String recipientEmail;
 
+    @Column(name = "recipient_phone", length = 32)
+    private String recipientPhone;
+
+    @Column(name = "webhook_id")
+    private UUID webhookId;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 20)
     private DeliveryStatus status;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority", nullable = false, length = 20)
+    private DeliveryPriority priority = DeliveryPriority.TRANSACTIONAL;
+
     @Column(name = "retry_count", nullable = false)
     private int retryCount = 0;
 
@@ -49,6 +65,37 @@ public class DeliveryOutbox extends BaseEntity {
     @Column(name = "last_error", length = 1000)
     private String lastError;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "error_class", length = 30)
+    private DeliveryErrorClass errorClass;
+
     @Column(name = "delivered_at")
     private Instant deliveredAt;
+
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    @Column(name = "attempt_id")
+    private UUID attemptId;
+
+    @Column(name = "delivery_key")
+    private UUID deliveryKey;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "notification_created_at")
+    private Instant notificationCreatedAt;
+
+    @Column(name = "broadcast_id")
+    private UUID broadcastId;
+
+    @Column(name = "title", length = 500)
+    private String title;
+
+    @Column(name = "body", columnDefinition = "TEXT")
+    private String body;
 }
@@ -0,0 +1,31 @@
+package dopaminelite.notifications.entity;
+
+import dopaminelite.notifications.entity.enums.DevicePlatform;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * FCM registration token of one of a user's devices.
+ * A token belongs to at most one user; registering it again moves it.
+ */
+@Entity
+@Table(name = "device_tokens", indexes = {
+    @Index(name = "idx_device_tokens_user_id", columnList = "user_id")
+})
+@Getter
+@Setter
+public class DeviceToken extends AuditableEntity {
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "token", nullable = false, unique = true, length = 512)
+    private String token;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "platform", nullable = false, length = 20)
+    private DevicePlatform platform;
+}
@@ -0,0 +1,42 @@
+package dopaminelite.notifications.entity;
+
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partner endpoint subscribed to WEBHOOK notifications of the listed event types.
+ * Callbacks are signed with the subscription's secret.
+ */
+@Entity
+@Table(name = "webhook_subscriptions")
+@Getter
+@Setter
+public class WebhookSubscription extends AuditableEntity {
+
+    @Column(name = "name", length = 255)
+    private String name;
+
+    @Column(name = "url", nullable = false, length = 2048)
+    private String url;
+
+    @Column(name = "secret", nullable = false, length = 255)
+    private String secret;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "event_types", columnDefinition = "jsonb", nullable = false)
+    private List<NotificationEventType> eventTypes = new ArrayList<>();
+
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+
+    public boolean receives(NotificationEventType eventType) {
+        return eventTypes != null && eventTypes.contains(eventType);
+    }
+}
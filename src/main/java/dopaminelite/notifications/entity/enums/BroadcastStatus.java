@@ -0,0 +1,15 @@
+package dopaminelite.notifications.entity.enums;
+
+/**
+ * Lifecycle of a broadcast job.
+ */
+public enum BroadcastStatus {
+    /** Accepted, waiting for a job runner */
+    QUEUED,
+    /** Fan-out in progress */
+    RUNNING,
+    /** Every recipient processed */
+    COMPLETED,
+    /** Stopped on an unexpected error; see last_error */
+    FAILED
+}
@@ -0,0 +1,22 @@
+package dopaminelite.notifications.entity.enums;
+
+/**
+ * Classification of the last delivery failure of an outbox entry.
+ */
+public enum DeliveryErrorClass {
+    /** Provider unreachable, timed out or returned a temporary error. */
+    PROVIDER_UNAVAILABLE,
+    /** Provider rejected the send because of its rate or quota limits. */
+    THROTTLED,
+    /** Provider rejected our credentials. */
+    AUTHENTICATION,
+    /** Receiving domain refused the message for now (SMTP 4xx). */
+    TEMPORARILY_REJECTED,
+    /** Provider rejected the recipient address. */
+    RECIPIENT_REJECTED,
+    /** The notification behind the entry no longer exists. */
+    NOTIFICATION_MISSING,
+    /** The worker holding the entry died or stalled past its lease. */
+    LEASE_EXPIRED,
+    UNKNOWN
+}
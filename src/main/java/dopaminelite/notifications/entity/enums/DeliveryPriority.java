@@ -0,0 +1,11 @@
+package dopaminelite.notifications.entity.enums;
+
+/**
+ * Claiming lane of an outbox entry.
+ */
+public enum DeliveryPriority {
+    /** Triggered by a domain event for a single user; expected within seconds. */
+    TRANSACTIONAL,
+    /** Part of a broadcast; drains in the background. */
+    BULK
+}
@@ -5,6 +5,8 @@ package dopaminelite.notifications.entity.enums;
  */
 public enum DeliveryStatus {
     PENDING,
+    /** Outbox only: leased to a worker and possibly being sent right now. */
+    IN_FLIGHT,
     SENT,
     FAILED
 }
@@ -0,0 +1,10 @@
+package dopaminelite.notifications.entity.enums;
+
+/**
+ * Platform of a registered push device.
+ */
+public enum DevicePlatform {
+    ANDROID,
+    IOS,
+    WEB
+}
@@ -6,5 +6,9 @@ package dopaminelite.notifications.entity.enums;
 public enum NotificationChannel {
     IN_APP,
     EMAIL,
-    WHATSAPP
+    WHATSAPP,
+    /** Mobile and web push through FCM to the user's registered devices */
+    PUSH,
+    /** Signed HTTP callbacks to the partner systems subscribed in webhook_subscriptions */
+    WEBHOOK
 }
@@ -0,0 +1,13 @@
+package dopaminelite.notifications.exception;
+
+/**
+ * Thrown when the BFF has no batch user endpoint; callers fall back to
+ * looking users up one at a time.
+ */
+public class BatchLookupUnavailableException extends RuntimeException {
+
+    public BatchLookupUnavailableException(String message) {
+        super(message);
+    }
+
+}
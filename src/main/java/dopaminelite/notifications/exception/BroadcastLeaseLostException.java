@@ -0,0 +1,13 @@
+package dopaminelite.notifications.exception;
+
+/**
+ * Thrown when a broadcast chunk can no longer be committed because another runner
+ * took the job over or its checkpoint moved on; the chunk's transaction rolls back.
+ */
+public class BroadcastLeaseLostException extends RuntimeException {
+
+    public BroadcastLeaseLostException(String message) {
+        super(message);
+    }
+
+}
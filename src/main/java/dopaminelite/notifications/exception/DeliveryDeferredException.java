@@ -0,0 +1,21 @@
+package dopaminelite.notifications.exception;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Thrown when a delivery cannot be attempted right now (e.g. a provider quota is
+ * exhausted) and should be retried later without counting as a failed attempt.
+ */
+@Getter
+public class DeliveryDeferredException extends RuntimeException {
+
+    private final Instant retryAt;
+
+    public DeliveryDeferredException(String message, Instant retryAt) {
+        super(message);
+        this.retryAt = retryAt;
+    }
+
+}
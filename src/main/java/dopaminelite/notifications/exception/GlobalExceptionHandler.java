@@ -10,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
@@ -110,6 +111,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<ErrorObject> handleServiceValidationException(ValidationException ex) {
+        ErrorObject error = ErrorObject.builder()
+            .code(String.valueOf(HttpStatus.BAD_REQUEST.value()))
+            .message(ex.getMessage())
+            .build();
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
+    @ExceptionHandler(MissingRequestHeaderException.class)
+    public ResponseEntity<ErrorObject> handleMissingRequestHeaderException(MissingRequestHeaderException ex) {
+        ErrorObject error = ErrorObject.builder()
+            .code(String.valueOf(HttpStatus.BAD_REQUEST.value()))
+            .message("Missing required header: " + ex.getHeaderName())
+            .build();
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorObject> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
         log.error("Data integrity violation occurred", ex);
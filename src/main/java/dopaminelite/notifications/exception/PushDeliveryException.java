@@ -0,0 +1,23 @@
+package dopaminelite.notifications.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a PUSH notification reached none of the user's devices.
+ */
+@Getter
+public class PushDeliveryException extends RuntimeException {
+
+    /** HTTP status FCM answered with for the user's devices (404 when none are registered) */
+    private final int status;
+
+    /** FCM error code, e.g. UNREGISTERED or QUOTA_EXCEEDED */
+    private final String errorCode;
+
+    public PushDeliveryException(String message, int status, String errorCode) {
+        super(message);
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+}
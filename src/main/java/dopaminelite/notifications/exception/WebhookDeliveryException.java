@@ -0,0 +1,19 @@
+package dopaminelite.notifications.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a webhook endpoint did not accept a callback.
+ */
+@Getter
+public class WebhookDeliveryException extends RuntimeException {
+
+    /** HTTP status the endpoint answered with (503 when it was unreachable) */
+    private final int status;
+
+    public WebhookDeliveryException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+}
@@ -0,0 +1,23 @@
+package dopaminelite.notifications.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the WhatsApp Cloud API rejects a message.
+ */
+@Getter
+public class WhatsAppApiException extends RuntimeException {
+
+    /** HTTP status of the response */
+    private final int status;
+
+    /** Cloud API error code from the response body, if present */
+    private final Integer errorCode;
+
+    public WhatsAppApiException(String message, int status, Integer errorCode) {
+        super(message);
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+}
@@ -4,11 +4,13 @@ import dopaminelite.notifications.entity.BroadcastRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -22,6 +24,12 @@ public interface BroadcastRecordRepository extends JpaRepository<BroadcastRecord
      */
     Page<BroadcastRecord> findBySentBy(UUID sentBy, Pageable pageable);
     
+    /**
+     * Body of a broadcast, without loading its audience.
+     */
+    @Query("SELECT b.body FROM BroadcastRecord b WHERE b.id = :id")
+    Optional<String> findBodyById(@Param("id") UUID id);
+    
     /**
      * Find broadcasts sent within a date range.
      */
@@ -55,4 +63,72 @@ public interface BroadcastRecordRepository extends JpaRepository<BroadcastRecord
                                         @Param("dateTo") Instant dateTo,
                                         @Param("search") String search,
                                         Pageable pageable);
+
+    /**
+     * Lock the oldest runnable broadcast job: a queued one, or a running one whose
+     * runner let its lease expire (crashed or redeployed, or released it for a retry
+     * that is now due). Jobs locked by another runner are skipped.
+     */
+    @Query(value = "SELECT id FROM broadcast_records WHERE status = 'QUEUED' " +
+           "OR (status = 'RUNNING' AND (lease_until IS NULL OR lease_until < :now)) " +
+           "ORDER BY sent_at LIMIT 1 FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    Optional<UUID> lockNextRunnable(@Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "UPDATE broadcast_records SET status = 'RUNNING', claimed_by = :claimedBy, " +
+           "lease_until = :leaseUntil, " +
+           "started_at = COALESCE(started_at, CAST(now() AT TIME ZONE 'UTC' AS timestamp)) WHERE id = :id",
+           nativeQuery = true)
+    int markRunning(@Param("id") UUID id,
+                    @Param("claimedBy") String claimedBy,
+                    @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Move the checkpoint past one processed chunk, add its counts and renew the lease;
+     * joins the chunk's transaction. Only applies while the runner still holds the job
+     * and the checkpoint is where the chunk started, so a chunk is never counted twice.
+     *
+     * @return 0 if the job was taken over or moved on meanwhile
+     */
+    @Modifying
+    @Query(value = "UPDATE broadcast_records SET processed_count = processed_count + :processed, " +
+           "success_count = success_count + :success, failure_count = failure_count + :failure, " +
+           "lease_until = :leaseUntil, retry_count = 0 " +
+           "WHERE id = :id AND status = 'RUNNING' AND claimed_by = :claimedBy AND processed_count = :checkpoint",
+           nativeQuery = true)
+    int advanceCheckpoint(@Param("id") UUID id,
+                          @Param("claimedBy") String claimedBy,
+                          @Param("checkpoint") int checkpoint,
+                          @Param("processed") int processed,
+                          @Param("success") int success,
+                          @Param("failure") int failure,
+                          @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Hand a job back after a failed attempt. The checkpoint stays where it is, and the
+     * lease is released until retryAt, after which any runner may resume the job.
+     *
+     * @return 0 if the runner no longer holds the job
+     */
+    @Modifying
+    @Query(value = "UPDATE broadcast_records SET retry_count = retry_count + 1, last_error = :lastError, " +
+           "claimed_by = NULL, lease_until = :retryAt " +
+           "WHERE id = :id AND status = 'RUNNING' AND claimed_by = :claimedBy",
+           nativeQuery = true)
+    int releaseForRetry(@Param("id") UUID id,
+                        @Param("claimedBy") String claimedBy,
+                        @Param("lastError") String lastError,
+                        @Param("retryAt") Instant retryAt);
+
+    @Modifying
+    @Query(value = "UPDATE broadcast_records SET status = :status, last_error = :lastError, " +
+           "claimed_by = NULL, lease_until = NULL, " +
+           "completed_at = CAST(now() AT TIME ZONE 'UTC' AS timestamp) " +
+           "WHERE id = :id AND status = 'RUNNING' AND claimed_by = :claimedBy",
+           nativeQuery = true)
+    int markFinished(@Param("id") UUID id,
+                     @Param("claimedBy") String claimedBy,
+                     @Param("status") String status,
+                     @Param("lastError") String lastError);
 }
@@ -0,0 +1,66 @@
+package dopaminelite.notifications.repository;
+
+import dopaminelite.notifications.entity.DeliveryDeadLetter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * JPA repository for dead-lettered deliveries.
+ * Filters use native SQL to avoid Hibernate 6 UUID mapping issues with PostgreSQL.
+ */
+@Repository
+public interface DeliveryDeadLetterRepository extends JpaRepository<DeliveryDeadLetter, UUID> {
+
+    String FILTERS =
+        "(CAST(:errorClass AS varchar) IS NULL OR d.error_class = CAST(:errorClass AS varchar)) AND " +
+        "(CAST(:channel AS varchar) IS NULL OR d.channel = CAST(:channel AS varchar)) AND " +
+        "(CAST(:broadcastId AS uuid) IS NULL OR d.broadcast_id = CAST(:broadcastId AS uuid)) AND " +
+        "(CAST(:dateFrom AS timestamp) IS NULL OR d.dead_lettered_at >= CAST(:dateFrom AS timestamp)) AND " +
+        "(CAST(:dateTo AS timestamp) IS NULL OR d.dead_lettered_at <= CAST(:dateTo AS timestamp))";
+
+    /**
+     * Search dead letters with optional filters.
+     */
+    @Query(value = "SELECT d.* FROM delivery_dead_letters d WHERE " + FILTERS,
+           countQuery = "SELECT COUNT(*) FROM delivery_dead_letters d WHERE " + FILTERS,
+           nativeQuery = true)
+    Page<DeliveryDeadLetter> findByFilters(@Param("errorClass") String errorClass,
+                                           @Param("channel") String channel,
+                                           @Param("broadcastId") UUID broadcastId,
+                                           @Param("dateFrom") Instant dateFrom,
+                                           @Param("dateTo") Instant dateTo,
+                                           Pageable pageable);
+
+    /**
+     * Move up to {@code limit} matching dead letters back into delivery_outbox as fresh
+     * PENDING entries, in one statement. Rows locked by a concurrent replay are skipped.
+     *
+     * @return number of entries re-enqueued
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH picked AS (SELECT d.id FROM delivery_dead_letters d WHERE " + FILTERS +
+           " ORDER BY d.dead_lettered_at LIMIT :limit FOR UPDATE SKIP LOCKED), " +
+           "moved AS (DELETE FROM delivery_dead_letters WHERE id IN (SELECT id FROM picked) RETURNING *) " +
+           "INSERT INTO delivery_outbox (id, notification_id, channel, priority, recipient_email, recipient_phone, webhook_id, status, " +
+           "retry_count, next_retry_at, user_id, notification_created_at, broadcast_id, title, body) " +
+           "SELECT id, notification_id, channel, priority, recipient_email, recipient_phone, webhook_id, 'PENDING', 0, " +
+           "CAST(now() AT TIME ZONE 'UTC' AS timestamp), user_id, notification_created_at, broadcast_id, " +
+           "title, body FROM moved",
+           nativeQuery = true)
+    int replayChunk(@Param("errorClass") String errorClass,
+                    @Param("channel") String channel,
+                    @Param("broadcastId") UUID broadcastId,
+                    @Param("dateFrom") Instant dateFrom,
+                    @Param("dateTo") Instant dateTo,
+                    @Param("limit") int limit);
+}
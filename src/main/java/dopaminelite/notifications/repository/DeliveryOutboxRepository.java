@@ -3,9 +3,13 @@ package dopaminelite.notifications.repository;
 import dopaminelite.notifications.entity.DeliveryOutbox;
 import dopaminelite.notifications.entity.enums.DeliveryStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,7 +20,83 @@ import java.util.UUID;
 public interface DeliveryOutboxRepository extends JpaRepository<DeliveryOutbox, UUID> {
 
     /**
-     * Find pending/failed entries ready for retry.
+     * Lock a bounded batch of pending/failed entries of one lane that are due for delivery.
+     * Rows locked by another worker are skipped, so concurrent replicas never
+     * pick the same entry. Must be called inside a transaction.
      */
-    List<DeliveryOutbox> findByStatusInAndNextRetryAtBefore(List<DeliveryStatus> statuses, Instant now);
+    @Query(value = "SELECT * FROM delivery_outbox " +
+           "WHERE status IN ('PENDING', 'FAILED') " +
+           "AND priority = :priority " +
+           "AND next_retry_at <= :now " +
+           "AND retry_count < max_retries " +
+           "ORDER BY next_retry_at " +
+           "LIMIT :limit " +
+           "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<DeliveryOutbox> lockClaimable(@Param("priority") String priority,
+                                       @Param("now") Instant now,
+                                       @Param("limit") int limit);
+
+    /**
+     * Mark entries locked by {@link #lockClaimable} as in flight under the given attempt.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DeliveryOutbox o SET o.status = :status, o.claimedBy = :workerId, " +
+           "o.leaseUntil = :leaseUntil, o.attemptId = :attemptId WHERE o.id IN :ids")
+    int lease(@Param("ids") Collection<UUID> ids,
+              @Param("status") DeliveryStatus status,
+              @Param("workerId") String workerId,
+              @Param("leaseUntil") Instant leaseUntil,
+              @Param("attemptId") UUID attemptId);
+
+    /**
+     * Heartbeat: push out the lease of an attempt's entries that are still in flight.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DeliveryOutbox o SET o.leaseUntil = :leaseUntil " +
+           "WHERE o.attemptId = :attemptId AND o.status = :status")
+    int extendLease(@Param("attemptId") UUID attemptId,
+                    @Param("status") DeliveryStatus status,
+                    @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Return in-flight entries whose lease has expired (worker died or stalled)
+     * to the retry queue, counting the lost attempt as a retry.
+     */
+    @Modifying
+    @Query(value = "UPDATE delivery_outbox SET status = 'FAILED', retry_count = retry_count + 1, " +
+           "next_retry_at = :now, last_error = 'Lease expired while in flight on ' || COALESCE(claimed_by, 'unknown'), " +
+           "error_class = 'LEASE_EXPIRED', claimed_by = NULL, lease_until = NULL, attempt_id = NULL " +
+           "WHERE status = 'IN_FLIGHT' AND lease_until < :now",
+           nativeQuery = true)
+    int reapExpiredLeases(@Param("now") Instant now);
+
+    /**
+     * Move the given entries to delivery_dead_letters, if they are FAILED.
+     */
+    @Modifying
+    @Query(value = "WITH moved AS (DELETE FROM delivery_outbox WHERE id IN (:ids) AND status = 'FAILED' RETURNING *) " +
+           "INSERT INTO delivery_dead_letters (id, notification_id, channel, priority, recipient_email, recipient_phone, webhook_id, user_id, " +
+           "notification_created_at, broadcast_id, title, body, retry_count, last_error, error_class, " +
+           "enqueued_at, dead_lettered_at) " +
+           "SELECT id, notification_id, channel, priority, recipient_email, recipient_phone, webhook_id, user_id, notification_created_at, " +
+           "broadcast_id, title, body, retry_count, last_error, COALESCE(error_class, 'UNKNOWN'), " +
+           "created_at, CAST(now() AT TIME ZONE 'UTC' AS timestamp) FROM moved",
+           nativeQuery = true)
+    int moveToDeadLetters(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Move every FAILED entry that has exhausted its retries to delivery_dead_letters.
+     */
+    @Modifying
+    @Query(value = "WITH moved AS (DELETE FROM delivery_outbox " +
+           "WHERE status = 'FAILED' AND retry_count >= max_retries RETURNING *) " +
+           "INSERT INTO delivery_dead_letters (id, notification_id, channel, priority, recipient_email, recipient_phone, webhook_id, user_id, " +
+           "notification_created_at, broadcast_id, title, body, retry_count, last_error, error_class, " +
+           "enqueued_at, dead_lettered_at) " +
+           "SELECT id, notification_id, channel, priority, recipient_email, recipient_phone, webhook_id, user_id, notification_created_at, " +
+           "broadcast_id, title, body, retry_count, last_error, COALESCE(error_class, 'UNKNOWN'), " +
+           "created_at, CAST(now() AT TIME ZONE 'UTC' AS timestamp) FROM moved",
+           nativeQuery = true)
+    int moveExhaustedToDeadLetters();
 }
@@ -0,0 +1,45 @@
+package dopaminelite.notifications.repository;
+
+import dopaminelite.notifications.entity.DeviceToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JPA repository for push device tokens.
+ */
+@Repository
+public interface DeviceTokenRepository extends JpaRepository<DeviceToken, UUID> {
+
+    List<DeviceToken> findByUserIdIn(Collection<UUID> userIds);
+
+    /**
+     * Register a token for a user, moving it if another user had it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO device_tokens (id, user_id, token, platform, created_at, updated_at) " +
+           "VALUES (gen_random_uuid(), :userId, :token, :platform, " +
+           "CAST(now() AT TIME ZONE 'UTC' AS timestamp), CAST(now() AT TIME ZONE 'UTC' AS timestamp)) " +
+           "ON CONFLICT (token) DO UPDATE SET user_id = EXCLUDED.user_id, platform = EXCLUDED.platform, " +
+           "updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int upsert(@Param("userId") UUID userId, @Param("token") String token, @Param("platform") String platform);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE d.token IN :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceToken d WHERE d.userId = :userId AND d.token = :token")
+    int deleteByUserIdAndToken(@Param("userId") UUID userId, @Param("token") String token);
+}
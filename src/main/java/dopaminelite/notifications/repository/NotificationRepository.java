@@ -21,6 +21,15 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
      */
     Page<Notification> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
     
+    /**
+     * Find notifications by user ID on all channels but one, with pagination.
+     */
+    Page<Notification> findByUserIdAndChannelNotOrderByCreatedAtDesc(
+        UUID userId,
+        NotificationChannel excludedChannel,
+        Pageable pageable
+    );
+    
     /**
      * Find notifications by user ID and channel with pagination.
      */
@@ -39,6 +48,16 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
         Pageable pageable
     );
     
+    /**
+     * Find unread notifications by user ID on all channels but one, with pagination.
+     */
+    Page<Notification> findByUserIdAndIsReadAndChannelNotOrderByCreatedAtDesc(
+        UUID userId,
+        boolean isRead,
+        NotificationChannel excludedChannel,
+        Pageable pageable
+    );
+    
     /**
      * Find unread notifications by user ID and channel with pagination.
      */
@@ -59,6 +78,16 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
      */
     long countByUserIdAndIsRead(UUID userId, boolean isRead);
     
+    /**
+     * Count notifications for a user on all channels but one.
+     */
+    long countByUserIdAndChannelNot(UUID userId, NotificationChannel excludedChannel);
+    
+    /**
+     * Count unread notifications for a user on all channels but one.
+     */
+    long countByUserIdAndIsReadAndChannelNot(UUID userId, boolean isRead, NotificationChannel excludedChannel);
+    
     /**
      * Count notifications by user and channel.
      */
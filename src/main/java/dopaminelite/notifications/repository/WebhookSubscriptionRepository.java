@@ -0,0 +1,29 @@
+package dopaminelite.notifications.repository;
+
+import dopaminelite.notifications.entity.WebhookSubscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JPA repository for webhook subscriptions.
+ */
+@Repository
+public interface WebhookSubscriptionRepository extends JpaRepository<WebhookSubscription, UUID> {
+
+    List<WebhookSubscription> findByActiveTrue();
+
+    /**
+     * Stop delivering to a subscription, e.g. after its endpoint answered 410 Gone.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookSubscription w SET w.active = false WHERE w.id = :id")
+    int deactivate(@Param("id") UUID id);
+}
@@ -0,0 +1,45 @@
+package dopaminelite.notifications.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Authenticates internal callers (the BFF) by the shared service token.
+ *
+ * A request carrying the configured token in {@code X-Service-Token} is granted
+ * ROLE_SERVICE; the BFF then speaks for the end user through {@code X-User-Id}.
+ * Requests without a matching token stay anonymous.
+ */
+public class ServiceTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Service-Token";
+    public static final String ROLE = "SERVICE";
+
+    private final byte[] serviceToken;
+
+    public ServiceTokenAuthenticationFilter(String serviceToken) {
+        this.serviceToken = serviceToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HEADER);
+        if (presented != null && serviceToken.length > 0
+                && MessageDigest.isEqual(serviceToken, presented.getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "service", null, AuthorityUtils.createAuthorityList("ROLE_" + ROLE)));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
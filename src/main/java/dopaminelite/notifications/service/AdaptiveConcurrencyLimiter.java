@@ -0,0 +1,138 @@
+package dopaminelite.notifications.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD limit on concurrent SMTP sends, driven by observed send latency.
+ *
+ * Every fast, successful send raises the limit by 1/limit (about +1 per round
+ * of sends); a provider failure or a send slower than the latency threshold
+ * halves it, at most once per threshold interval so that one slow round does
+ * not collapse the limit to the minimum. Callers over the limit wait up to
+ * max-wait, then are deferred with {@link DeliveryDeferredException}.
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseAt;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(
+            @Value("${notifications.email.adaptive-concurrency.initial-limit:4}") int initialLimit,
+            @Value("${notifications.email.adaptive-concurrency.max-limit:${notifications.delivery.concurrency.email:16}}") int maxLimit,
+            @Value("${notifications.email.adaptive-concurrency.latency-threshold:2s}") Duration latencyThreshold,
+            @Value("${notifications.email.adaptive-concurrency.max-wait:10s}") Duration maxWait) {
+        this.maxWait = maxWait;
+        this.minLimit = 1;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(minLimit, Math.min(initialLimit, this.maxLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.lastDecreaseAt = System.nanoTime() - latencyThresholdNanos - 1;
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit, Duration latencyThreshold) {
+        this(initialLimit, maxLimit, latencyThreshold, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Wait for a send slot under the current limit.
+     *
+     * @throws DeliveryDeferredException if no slot frees up within max-wait, or on interrupt
+     */
+    public void acquire() {
+        lock.lock();
+        try {
+            long remainingNanos = maxWait.toNanos();
+            while (inFlight >= (int) limit) {
+                if (remainingNanos <= 0) {
+                    throw new DeliveryDeferredException("SMTP concurrency limit of " + (int) limit + " reached",
+                        Instant.now().plus(maxWait));
+                }
+                remainingNanos = slotAvailable.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryDeferredException("Interrupted while waiting for an SMTP send slot", Instant.now());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a slot that was not used for a send, leaving the limit unchanged.
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a slot and adjust the limit from the send's outcome.
+     *
+     * @param latencyNanos how long the send took
+     * @param providerFailure whether the send failed because of the provider
+     */
+    public void release(long latencyNanos, boolean providerFailure) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            if (providerFailure || latencyNanos > latencyThresholdNanos) {
+                if (now - lastDecreaseAt > latencyThresholdNanos) {
+                    limit = Math.max(minLimit, limit / 2);
+                    lastDecreaseAt = now;
+                    log.debug("SMTP concurrency limit decreased to {}", (int) limit);
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notifications.email.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive limit on concurrent SMTP sends")
+            .register(registry);
+    }
+}
@@ -2,55 +2,85 @@ package dopaminelite.notifications.service;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.exception.BatchLookupUnavailableException;
 import dopaminelite.notifications.exception.ResourceNotFoundException;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Service for communicating with the BFF API.
- * Handles fetching user public data from BFF endpoints.
+ * Handles fetching user public data from BFF endpoints, one user at a time or
+ * in batches. A BFF without the batch endpoint is detected on the first batch
+ * call; batch lookups are then reported unavailable for a while, so callers
+ * fall back to single lookups, and re-probed later. Users are served from
+ * {@link UserDataCache} where possible.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class BffClientService {
 
-    private final RestClient.Builder restClientBuilder;
+    private static final Duration BATCH_PROBE_INTERVAL = Duration.ofMinutes(10);
+    private static final Set<Integer> BATCH_UNSUPPORTED_STATUSES = Set.of(404, 405, 501);
 
-    @Value("${notifications.bff.base-url}")
-    private String bffBaseUrl;
+    private final RestClient restClient;
+    private final UserDataCache userDataCache;
+    private final String serviceToken;
+    private final int batchSize;
 
-    @Value("${notifications.service.internalToken}")
-    private String serviceToken;
+    private volatile Instant batchUnsupportedUntil = Instant.MIN;
+
+    public BffClientService(RestClient.Builder restClientBuilder,
+                            UserDataCache userDataCache,
+                            @Value("${notifications.bff.base-url}") String bffBaseUrl,
+                            @Value("${notifications.service.internalToken}") String serviceToken,
+                            @Value("${notifications.bff.batch-size:500}") int batchSize) {
+        // The builder bean is shared, so configure a copy and keep the client it builds.
+        this.restClient = restClientBuilder.clone()
+            .baseUrl(bffBaseUrl)
+            .build();
+        this.userDataCache = userDataCache;
+        this.serviceToken = serviceToken;
+        this.batchSize = batchSize;
+    }
 
     /**
      * Fetch user public data from BFF.
-     * Calls GET /users/{userId}/public endpoint.
+     * Served from the cache, or calls GET /users/{userId}/public endpoint.
      *
      * @param userId The user ID to fetch
      * @return UserPublicDataDto containing public user information
      * @throws ResourceNotFoundException if user not found
      */
     public UserPublicDataDto getUserPublicData(UUID userId) {
-        try {
-            RestClient restClient = restClientBuilder
-                .baseUrl(bffBaseUrl)
-                .build();
+        return userDataCache.get(userId, this::fetchUserPublicData);
+    }
 
+    private UserPublicDataDto fetchUserPublicData(UUID userId) {
+        try {
             BffResponse response = restClient.get()
                 .uri("/users/{userId}/public", userId)
                 .header("X-Service-Token", serviceToken)
                 .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, (request, resp) -> {
+                .onStatus(status -> status.value() == 404, (request, resp) -> {
                     throw new ResourceNotFoundException("User not found: " + userId);
                 })
+                .onStatus(HttpStatusCode::is4xxClientError, (request, resp) -> {
+                    throw new RuntimeException("BFF rejected the lookup of user " + userId
+                        + " with HTTP " + resp.getStatusCode().value());
+                })
                 .onStatus(HttpStatusCode::is5xxServerError, (request, resp) -> {
                     throw new RuntimeException("BFF server error while fetching user: " + userId);
                 })
@@ -69,6 +99,72 @@ public class BffClientService {
         }
     }
     
+    /**
+     * Fetch public data of many users from BFF.
+     * Calls POST /users/public/batch with up to batch-size ids per request.
+     *
+     * @param userIds The user IDs to fetch
+     * @return users by id; ids unknown to the BFF are absent
+     * @throws BatchLookupUnavailableException if the BFF has no batch endpoint
+     */
+    public Map<UUID, UserPublicDataDto> getUsersPublicData(List<UUID> userIds) {
+        return userDataCache.getAll(userIds, this::fetchUsersPublicData);
+    }
+
+    private Map<UUID, UserPublicDataDto> fetchUsersPublicData(List<UUID> userIds) {
+        Map<UUID, UserPublicDataDto> users = new HashMap<>();
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < userIds.size(); from += size) {
+            List<UUID> batch = userIds.subList(from, Math.min(from + size, userIds.size()));
+            for (UserPublicDataDto user : fetchBatch(batch)) {
+                if (user != null && user.getId() != null) {
+                    users.put(user.getId(), user);
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Whether batch lookups should be tried; false if disabled or the BFF recently lacked the endpoint.
+     */
+    public boolean isBatchLookupAvailable() {
+        return batchSize > 0 && Instant.now().isAfter(batchUnsupportedUntil);
+    }
+
+    public int getBatchSize() {
+        return Math.max(1, batchSize);
+    }
+
+    private List<UserPublicDataDto> fetchBatch(List<UUID> userIds) {
+        try {
+            BffBatchResponse response = restClient.post()
+                .uri("/users/public/batch")
+                .header("X-Service-Token", serviceToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("userIds", userIds))
+                .retrieve()
+                .onStatus(status -> BATCH_UNSUPPORTED_STATUSES.contains(status.value()), (request, resp) -> {
+                    batchUnsupportedUntil = Instant.now().plus(BATCH_PROBE_INTERVAL);
+                    log.warn("BFF has no batch user endpoint (HTTP {}), using single lookups for {}",
+                        resp.getStatusCode().value(), BATCH_PROBE_INTERVAL);
+                    throw new BatchLookupUnavailableException("BFF batch user lookup is not available");
+                })
+                .onStatus(HttpStatusCode::isError, (request, resp) -> {
+                    throw new RuntimeException("BFF error " + resp.getStatusCode().value()
+                        + " while fetching " + userIds.size() + " users");
+                })
+                .body(BffBatchResponse.class);
+
+            return response != null && response.getData() != null ? response.getData() : List.of();
+
+        } catch (BatchLookupUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to fetch public data of " + userIds.size() + " users", e);
+        }
+    }
+    
     /**
      * Wrapper class for BFF API response format.
      */
@@ -78,4 +174,14 @@ public class BffClientService {
         private Boolean success;
         private UserPublicDataDto data;
     }
+
+    /**
+     * Wrapper class for the BFF batch response format.
+     */
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class BffBatchResponse {
+        private Boolean success;
+        private List<UserPublicDataDto> data;
+    }
 }
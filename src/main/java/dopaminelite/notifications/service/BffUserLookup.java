@@ -0,0 +1,168 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.exception.BatchLookupUnavailableException;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves users through the BFF concurrently for broadcast fan-out.
+ *
+ * Users are fetched in batches through the BFF's batch endpoint, one request
+ * per batch-size ids; without that endpoint every user is fetched on its own.
+ * Every request runs on its own virtual thread; one semaphore shared by all
+ * callers bounds how many requests are open against the BFF at once. Results
+ * are handed back in the order of the ids as they arrive, so the caller can
+ * write notifications for the first users while later ones are still being
+ * fetched, on its own thread and inside its own transaction.
+ */
+@Slf4j
+@Component
+public class BffUserLookup implements DisposableBean {
+
+    private final BffClientService bffClientService;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BffUserLookup(BffClientService bffClientService,
+                         @Value("${notifications.bff.lookup-concurrency:16}") int concurrency) {
+        this.bffClientService = bffClientService;
+        this.permits = new Semaphore(Math.max(1, concurrency));
+        log.info("BFF user lookup started: concurrency={}", concurrency);
+    }
+
+    /**
+     * Start looking up all users at once, bounded by the lookup concurrency.
+     *
+     * @return the lookups in the order of {@code userIds}; iterating waits for each in turn
+     */
+    public Iterable<UserLookup> resolve(List<UUID> userIds) {
+        List<CompletableFuture<UserLookup>> lookups = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            lookups.add(new CompletableFuture<>());
+        }
+        if (bffClientService.isBatchLookupAvailable()) {
+            int batchSize = bffClientService.getBatchSize();
+            for (int from = 0; from < userIds.size(); from += batchSize) {
+                int start = from;
+                int end = Math.min(from + batchSize, userIds.size());
+                executor.execute(() -> lookupBatch(userIds, lookups, start, end));
+            }
+        } else {
+            lookupEach(userIds, lookups, 0, userIds.size());
+        }
+        return () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < lookups.size();
+            }
+
+            @Override
+            public UserLookup next() {
+                UUID userId = userIds.get(next);
+                try {
+                    return lookups.get(next++).join();
+                } catch (CompletionException | CancellationException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException re ? re : e;
+                    return new UserLookup(userId, null, cause);
+                }
+            }
+        };
+    }
+
+    /**
+     * One batch request for the ids in [start, end); ids the BFF does not return are not found.
+     * Falls back to single lookups if the BFF turns out to have no batch endpoint.
+     */
+    private void lookupBatch(List<UUID> userIds, List<CompletableFuture<UserLookup>> lookups, int start, int end) {
+        List<UUID> batch = userIds.subList(start, end);
+        Map<UUID, UserPublicDataDto> users;
+        permits.acquireUninterruptibly();
+        try {
+            users = bffClientService.getUsersPublicData(batch);
+        } catch (BatchLookupUnavailableException e) {
+            users = null;
+        } catch (RuntimeException e) {
+            log.warn("Batch lookup of {} users failed: {}", batch.size(), e.getMessage());
+            for (int i = start; i < end; i++) {
+                lookups.get(i).complete(new UserLookup(userIds.get(i), null, e));
+            }
+            return;
+        } finally {
+            permits.release();
+        }
+
+        if (users == null) {
+            lookupEach(userIds, lookups, start, end);
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            UUID userId = userIds.get(i);
+            UserPublicDataDto user = users.get(userId);
+            lookups.get(i).complete(user != null
+                ? new UserLookup(userId, user, null)
+                : new UserLookup(userId, null, new ResourceNotFoundException("User not found: " + userId)));
+        }
+    }
+
+    private void lookupEach(List<UUID> userIds, List<CompletableFuture<UserLookup>> lookups, int start, int end) {
+        for (int i = start; i < end; i++) {
+            UUID userId = userIds.get(i);
+            CompletableFuture<UserLookup> lookup = lookups.get(i);
+            executor.execute(() -> lookup.complete(lookup(userId)));
+        }
+    }
+
+    private UserLookup lookup(UUID userId) {
+        permits.acquireUninterruptibly();
+        try {
+            return new UserLookup(userId, bffClientService.getUserPublicData(userId), null);
+        } catch (RuntimeException e) {
+            return new UserLookup(userId, null, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Outcome of one lookup: the user's data, or the error that prevented fetching it.
+     */
+    public record UserLookup(UUID userId, UserPublicDataDto user, RuntimeException error) {
+
+        /**
+         * The user's data, or the lookup's error rethrown.
+         */
+        public UserPublicDataDto getOrThrow() {
+            if (error != null) {
+                throw error;
+            }
+            return user;
+        }
+    }
+}
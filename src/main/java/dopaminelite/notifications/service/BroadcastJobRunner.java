@@ -0,0 +1,196 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.BroadcastRecord;
+import dopaminelite.notifications.exception.BroadcastLeaseLostException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Background engine for broadcast jobs.
+ *
+ * A queued broadcast is claimed with FOR UPDATE SKIP LOCKED, so across
+ * replicas each job runs on exactly one runner, and is worked through in
+ * fixed-size chunks of its audience. Every chunk commits on its own with the
+ * advanced checkpoint and its progress counts, which GET /broadcasts/{id}/progress
+ * reports while the job runs, and renews the runner's lease on the job. If a
+ * runner dies or is redeployed mid-job, the lease runs out and another runner
+ * resumes the job from its last committed chunk. A chunk that fails is redone
+ * one recipient per transaction, so only recipients that fail on their own are
+ * lost; if even that fails, the job keeps its checkpoint and is released to be
+ * retried with backoff, and only marked FAILED after repeated failures. The
+ * runner is woken when a job is queued on this instance and also polls, so jobs
+ * queued elsewhere or abandoned by a dead runner are picked up.
+ */
+@Slf4j
+@Component
+public class BroadcastJobRunner implements DisposableBean {
+
+    private final BroadcastService broadcastService;
+    private final NotificationService notificationService;
+    private final int chunkSize;
+    private final String runnerId;
+    private final Duration leaseDuration;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Semaphore slots;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("broadcast-job-", 0).factory());
+
+    public BroadcastJobRunner(BroadcastService broadcastService,
+                              NotificationService notificationService,
+                              @Value("${notifications.broadcast.jobs.chunk-size:200}") int chunkSize,
+                              @Value("${notifications.broadcast.jobs.concurrency:2}") int concurrency,
+                              @Value("${notifications.broadcast.jobs.runner-id:notifications}") String runnerIdPrefix,
+                              @Value("${notifications.broadcast.jobs.lease-duration:5m}") Duration leaseDuration,
+                              @Value("${notifications.broadcast.jobs.max-retries:5}") int maxRetries,
+                              @Value("${notifications.broadcast.jobs.retry-backoff:30s}") Duration retryBackoff) {
+        this.broadcastService = broadcastService;
+        this.notificationService = notificationService;
+        this.chunkSize = Math.max(1, chunkSize);
+        // Replicas may share a prefix (e.g. no HOSTNAME), so leases are held per instance
+        this.runnerId = runnerIdPrefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseDuration = leaseDuration;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoff = retryBackoff;
+        this.slots = new Semaphore(Math.max(1, concurrency));
+    }
+
+    /**
+     * Claim on another thread: the request returns at once, and the claim does not
+     * run inside the already committed transaction of the request.
+     */
+    @TransactionalEventListener
+    public void onBroadcastQueued(BroadcastQueuedEvent event) {
+        try {
+            executor.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+            log.debug("Runner shutting down, broadcast {} left for the next poll", event.broadcastId());
+        }
+    }
+
+    /**
+     * Start queued or abandoned jobs while this runner has free slots.
+     */
+    @Scheduled(fixedDelayString = "${notifications.broadcast.jobs.poll-interval-ms:10000}")
+    public void dispatch() {
+        while (slots.tryAcquire()) {
+            Optional<BroadcastRecord> job;
+            try {
+                job = broadcastService.claimNextJob(runnerId, leaseDuration);
+            } catch (RuntimeException e) {
+                slots.release();
+                log.warn("Failed to claim a broadcast job: {}", e.getMessage());
+                return;
+            }
+            if (job.isEmpty()) {
+                slots.release();
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(job.get());
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the job is resumed once its lease runs out
+                slots.release();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Work through the job's audience from its checkpoint, one chunk per transaction.
+     * The audience is either users or, for sends by email address, plain addresses.
+     */
+    void run(BroadcastRecord broadcast) {
+        UUID broadcastId = broadcast.getId();
+        int audienceSize = broadcast.audienceSize();
+        int checkpoint = broadcast.getProcessedCount();
+        if (checkpoint > 0) {
+            log.info("Resuming broadcast job {} at recipient {} of {}", broadcastId, checkpoint, audienceSize);
+        } else {
+            log.info("Running broadcast job {} for {} recipients", broadcastId, audienceSize);
+        }
+        try {
+            while (checkpoint < audienceSize) {
+                int end = Math.min(checkpoint + chunkSize, audienceSize);
+                try {
+                    sendChunk(broadcast, checkpoint, end);
+                } catch (BroadcastLeaseLostException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    log.warn("Chunk at recipient {} of broadcast job {} failed, redoing it one recipient at a time: {}",
+                        checkpoint, broadcastId, e.getMessage());
+                    sendEachRecipient(broadcast, checkpoint, end);
+                }
+                checkpoint = end;
+            }
+            broadcastService.finishJob(broadcastId, runnerId, null);
+            log.info("Broadcast job {} completed", broadcastId);
+        } catch (BroadcastLeaseLostException e) {
+            log.warn("Stopping broadcast job {}: {}", broadcastId, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Broadcast job {} failed at recipient {}", broadcastId, checkpoint, e);
+            broadcastService.retryOrFailJob(broadcastId, runnerId, e.getMessage() != null ? e.getMessage() : e.toString(),
+                maxRetries, retryBackoff);
+        }
+    }
+
+    /**
+     * Redo a failed chunk one recipient per transaction. A recipient that fails on its
+     * own is counted as failed and skipped; if even that cannot be committed, the error
+     * is not about the recipient and propagates.
+     */
+    private void sendEachRecipient(BroadcastRecord broadcast, int from, int to) {
+        for (int recipient = from; recipient < to; recipient++) {
+            try {
+                sendChunk(broadcast, recipient, recipient + 1);
+            } catch (BroadcastLeaseLostException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                log.error("Skipping recipient {} of broadcast job {}", recipient, broadcast.getId(), e);
+                notificationService.skipBroadcastRecipient(broadcast, recipient, Instant.now().plus(leaseDuration));
+            }
+        }
+    }
+
+    /**
+     * Send recipients [from, to) of the job's audience in one transaction.
+     */
+    private void sendChunk(BroadcastRecord broadcast, int from, int to) {
+        Instant leaseUntil = Instant.now().plus(leaseDuration);
+        if (broadcast.getTargetEmails() != null) {
+            notificationService.sendBroadcastEmailChunk(broadcast, from,
+                broadcast.getTargetEmails().subList(from, to), leaseUntil);
+        } else {
+            notificationService.sendBroadcastChunk(broadcast, from,
+                broadcast.getTargetUserIds().subList(from, to), leaseUntil);
+        }
+    }
+
+    String getRunnerId() {
+        return runnerId;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,9 @@
+package dopaminelite.notifications.service;
+
+import java.util.UUID;
+
+/**
+ * Published when a broadcast job is queued; wakes the {@link BroadcastJobRunner} once the queueing transaction commits.
+ */
+public record BroadcastQueuedEvent(UUID broadcastId) {
+}
@@ -2,8 +2,10 @@ package dopaminelite.notifications.service;
 
 import dopaminelite.notifications.dto.BroadcastDto;
 import dopaminelite.notifications.dto.BroadcastListResponse;
+import dopaminelite.notifications.dto.BroadcastProgressDto;
 import dopaminelite.notifications.entity.BroadcastRecord;
 import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.BroadcastStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
 import dopaminelite.notifications.exception.ResourceNotFoundException;
 import dopaminelite.notifications.repository.BroadcastRecordRepository;
@@ -17,9 +19,11 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -62,6 +66,85 @@ public class BroadcastService {
         return toDtoWithNotifications(broadcast);
     }
     
+    /**
+     * Get the progress of a broadcast job.
+     */
+    @Transactional(readOnly = true)
+    public BroadcastProgressDto getProgress(UUID broadcastId) {
+        BroadcastRecord broadcast = broadcastRepository.findById(broadcastId)
+            .orElseThrow(() -> new ResourceNotFoundException("Broadcast not found: " + broadcastId));
+        int total = broadcast.audienceSize();
+        int percent = broadcast.getStatus() == BroadcastStatus.COMPLETED || total == 0
+            ? 100
+            : (int) (100L * broadcast.getProcessedCount() / total);
+        return BroadcastProgressDto.builder()
+            .id(broadcast.getId())
+            .status(broadcast.getStatus())
+            .recipientCount(broadcast.getRecipientCount())
+            .processedCount(broadcast.getProcessedCount())
+            .successCount(broadcast.getSuccessCount())
+            .failureCount(broadcast.getFailureCount())
+            .percentComplete(percent)
+            .startedAt(broadcast.getStartedAt())
+            .completedAt(broadcast.getCompletedAt())
+            .lastError(broadcast.getLastError())
+            .build();
+    }
+    
+    /**
+     * Claim the oldest runnable broadcast job for a runner and mark it RUNNING under a lease.
+     * A job resumed after its previous runner died keeps its checkpoint.
+     */
+    @Transactional
+    public Optional<BroadcastRecord> claimNextJob(String runnerId, Duration leaseDuration) {
+        Instant now = Instant.now();
+        Optional<UUID> next = broadcastRepository.lockNextRunnable(now);
+        if (next.isEmpty()) {
+            return Optional.empty();
+        }
+        broadcastRepository.markRunning(next.get(), runnerId, now.plus(leaseDuration));
+        return broadcastRepository.findById(next.get());
+    }
+    
+    /**
+     * Mark a broadcast job COMPLETED, or FAILED with the error that stopped it.
+     * Ignored if the runner no longer holds the job.
+     */
+    @Transactional
+    public void finishJob(UUID broadcastId, String runnerId, String error) {
+        int updated = broadcastRepository.markFinished(broadcastId, runnerId,
+            (error == null ? BroadcastStatus.COMPLETED : BroadcastStatus.FAILED).name(), truncateError(error));
+        if (updated == 0) {
+            log.warn("Broadcast job {} is no longer held by {}, not finishing it", broadcastId, runnerId);
+        }
+    }
+    
+    /**
+     * Hand a job back after a failed attempt, keeping its checkpoint: it is resumed by any
+     * runner once the backoff, doubled with each failure in a row, has passed. A job that
+     * already failed maxRetries times at the same checkpoint is marked FAILED instead.
+     */
+    @Transactional
+    public void retryOrFailJob(UUID broadcastId, String runnerId, String error, int maxRetries, Duration backoff) {
+        int retries = broadcastRepository.findById(broadcastId).map(BroadcastRecord::getRetryCount).orElse(0);
+        if (retries >= maxRetries) {
+            log.error("Broadcast job {} failed {} times in a row, giving up", broadcastId, retries + 1);
+            finishJob(broadcastId, runnerId, error);
+            return;
+        }
+        Instant retryAt = Instant.now().plus(backoff.multipliedBy(1L << Math.min(retries, 16)));
+        int updated = broadcastRepository.releaseForRetry(broadcastId, runnerId, truncateError(error), retryAt);
+        if (updated == 0) {
+            log.warn("Broadcast job {} is no longer held by {}, not releasing it", broadcastId, runnerId);
+        } else {
+            log.warn("Broadcast job {} released for retry {} of {} at {}", broadcastId, retries + 1, maxRetries, retryAt);
+        }
+    }
+    
+    private static String truncateError(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+    
     /**
      * Create a broadcast record.
      */
@@ -118,6 +201,9 @@ public class BroadcastService {
             .sentBy(broadcast.getSentBy())
             .sentAt(broadcast.getSentAt())
             .metadata(broadcast.getMetadata())
+            .status(broadcast.getStatus())
+            .processedCount(broadcast.getProcessedCount())
+            .completedAt(broadcast.getCompletedAt())
             .build();
     }
     
@@ -143,6 +229,9 @@ public class BroadcastService {
             .sentBy(broadcast.getSentBy())
             .sentAt(broadcast.getSentAt())
             .metadata(broadcast.getMetadata())
+            .status(broadcast.getStatus())
+            .processedCount(broadcast.getProcessedCount())
+            .completedAt(broadcast.getCompletedAt())
             .notificationIds(notificationIds)
             .build();
     }
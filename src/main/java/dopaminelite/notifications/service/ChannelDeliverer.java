@@ -0,0 +1,47 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers notifications over one external channel.
+ *
+ * Implementations are Spring beans picked up by {@link ChannelDeliverers}; a new
+ * channel plugs in by adding one, without touching the outbox worker. Deliveries
+ * are asynchronous: the returned future completes with a {@link DeliveryResult}
+ * once the provider accepted the message, or exceptionally with the provider's
+ * error. A {@link dopaminelite.notifications.exception.DeliveryDeferredException}
+ * asks for a later retry without counting as a failed attempt.
+ */
+public interface ChannelDeliverer {
+
+    NotificationChannel channel();
+
+    /**
+     * Start delivering one notification.
+     *
+     * @param recipient channel address of the recipient (e.g. the email address), if any
+     */
+    CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient);
+
+    /**
+     * Start delivering several notifications at once. Providers with a bulk API
+     * override this; the default starts one delivery per entry.
+     *
+     * @return one future per delivery, in the order given
+     */
+    default List<CompletableFuture<DeliveryResult>> deliverBatch(List<Delivery> deliveries) {
+        return deliveries.stream()
+            .map(delivery -> deliver(delivery.notification(), delivery.recipient()))
+            .toList();
+    }
+
+    /**
+     * One notification addressed to one recipient.
+     */
+    record Delivery(Notification notification, String recipient) {
+    }
+}
@@ -0,0 +1,41 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The registered {@link ChannelDeliverer}s, by channel.
+ */
+@Component
+public class ChannelDeliverers {
+
+    private final Map<NotificationChannel, ChannelDeliverer> deliverers = new EnumMap<>(NotificationChannel.class);
+
+    public ChannelDeliverers(List<ChannelDeliverer> deliverers) {
+        for (ChannelDeliverer deliverer : deliverers) {
+            ChannelDeliverer previous = this.deliverers.putIfAbsent(deliverer.channel(), deliverer);
+            if (previous != null) {
+                throw new IllegalStateException("Two deliverers registered for channel " + deliverer.channel());
+            }
+        }
+    }
+
+    public boolean supports(NotificationChannel channel) {
+        return deliverers.containsKey(channel);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no deliverer handles the channel
+     */
+    public ChannelDeliverer forChannel(NotificationChannel channel) {
+        ChannelDeliverer deliverer = deliverers.get(channel);
+        if (deliverer == null) {
+            throw new IllegalArgumentException("Unsupported channel: " + channel);
+        }
+        return deliverer;
+    }
+}
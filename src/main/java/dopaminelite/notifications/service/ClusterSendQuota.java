@@ -0,0 +1,220 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Send quota shared by all replicas through the send_rate_tokens table.
+ *
+ * The bucket row is refilled lazily from the elapsed database time whenever a
+ * node leases tokens; leasing is serialized with a transaction-scoped advisory
+ * lock, which also guards creating the row on first use. Each node leases a
+ * chunk of tokens and spends it locally, so the database is hit about once per
+ * chunk rather than once per email. Unspent tokens expire after a short TTL,
+ * which keeps a quiet node from bursting above the fleet rate later on.
+ * The daily quota is counted in the same row and survives restarts; it is
+ * charged when tokens are leased, and the share of an expired lease that was
+ * never spent is handed back with the node's next lease.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.email.rate.cluster.enabled", havingValue = "true")
+public class ClusterSendQuota implements SendQuota, MeterBinder {
+
+    static final String BUCKET = "ses";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double maxPerSecond;
+    private final long maxPerDay;
+    private final int chunkSize;
+    private final long leaseTtlNanos;
+
+    // Virtual threads would pin their carrier on a monitor held across JDBC I/O
+    private final ReentrantLock lock = new ReentrantLock();
+    private long localTokens;
+    private long localExpiresAt;
+    private LocalDate localQuotaDay;
+    // Charged to the daily quota by expired leases but never spent
+    private long unspentTokens;
+    private LocalDate unspentQuotaDay;
+
+    private volatile Counter leaseCounter;
+
+    public ClusterSendQuota(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${notifications.email.rate.max-per-second:14}") double maxPerSecond,
+                            @Value("${notifications.email.rate.max-per-day:50000}") long maxPerDay,
+                            @Value("${notifications.email.rate.cluster.chunk-size:5}") int chunkSize,
+                            @Value("${notifications.email.rate.cluster.lease-ttl:1s}") Duration leaseTtl) {
+        if (maxPerSecond <= 0) {
+            throw new IllegalArgumentException("Cluster send quota requires a positive max-per-second");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPerSecond = maxPerSecond;
+        this.maxPerDay = maxPerDay;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        log.info("Cluster send quota: max {}/s, max {}/day, chunk {}", maxPerSecond, maxPerDay, this.chunkSize);
+    }
+
+    @Override
+    public void acquire(int permits) {
+        long remaining = permits;
+        while (true) {
+            long waitNanos;
+            lock.lock();
+            try {
+                remaining -= takeLocal(remaining);
+                if (remaining == 0) return;
+
+                Lease lease = leaseTokens(Math.max(chunkSize, remaining), unspentTokens, unspentQuotaDay);
+                unspentTokens = 0;
+                if (lease.granted() == 0 && lease.dailyExhausted()) {
+                    throw new DeliveryDeferredException("Daily send quota of " + maxPerDay + " reached",
+                        LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+                }
+                localTokens += lease.granted();
+                localExpiresAt = System.nanoTime() + leaseTtlNanos;
+                localQuotaDay = lease.quotaDay();
+
+                remaining -= takeLocal(remaining);
+                if (remaining == 0) return;
+                waitNanos = lease.retryAfterNanos();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Thread.sleep(Duration.ofNanos(waitNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeliveryDeferredException("Interrupted while waiting for send rate", Instant.now());
+            }
+        }
+    }
+
+    /**
+     * Tokens leased by this node and not yet spent.
+     */
+    public long getLocalTokens() {
+        lock.lock();
+        try {
+            return System.nanoTime() > localExpiresAt ? 0 : localTokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notifications.email.rate.cluster.local.tokens", this, ClusterSendQuota::getLocalTokens)
+            .description("Leased send tokens held by this instance")
+            .register(registry);
+        leaseCounter = Counter.builder("notifications.email.rate.cluster.leases")
+            .description("Token leases taken from the shared bucket")
+            .register(registry);
+    }
+
+    private long takeLocal(long wanted) {
+        if (System.nanoTime() > localExpiresAt && localTokens > 0) {
+            if (!localQuotaDay.equals(unspentQuotaDay)) {
+                unspentTokens = 0;
+                unspentQuotaDay = localQuotaDay;
+            }
+            unspentTokens += localTokens;
+            localTokens = 0;
+        }
+        long taken = Math.min(localTokens, wanted);
+        localTokens -= taken;
+        return taken;
+    }
+
+    /**
+     * Refill the shared bucket and take up to {@code requested} tokens from it, first
+     * handing back {@code unspent} tokens charged to the daily quota of {@code unspentDay}.
+     */
+    private Lease leaseTokens(long requested, long unspent, LocalDate unspentDay) {
+        Lease lease = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext(?))", Object.class,
+                "send_rate_tokens:" + BUCKET);
+            // Read the clock after the lock: now() is the start of the transaction, before any
+            // wait on the lock, and would refill the time since the previous holder twice
+            Timestamp now = jdbcTemplate.queryForObject("SELECT clock_timestamp()", Timestamp.class);
+            LocalDate today = LocalDate.ofInstant(now.toInstant(), ZoneOffset.UTC);
+
+            List<BucketState> rows = jdbcTemplate.query(
+                "SELECT tokens, EXTRACT(EPOCH FROM (CAST(? AS timestamptz) - updated_at)) AS elapsed, " +
+                "quota_day, day_used FROM send_rate_tokens WHERE bucket = ?",
+                (rs, i) -> new BucketState(rs.getDouble("tokens"), rs.getDouble("elapsed"),
+                    rs.getDate("quota_day").toLocalDate(), rs.getLong("day_used")),
+                now, BUCKET);
+
+            double tokens;
+            long dayUsed;
+            if (rows.isEmpty()) {
+                jdbcTemplate.update(
+                    "INSERT INTO send_rate_tokens (bucket, tokens, updated_at, quota_day, day_used) " +
+                    "VALUES (?, ?, ?, ?, 0)",
+                    BUCKET, maxPerSecond, now, Date.valueOf(today));
+                tokens = maxPerSecond;
+                dayUsed = 0;
+            } else {
+                BucketState state = rows.get(0);
+                tokens = Math.min(maxPerSecond, state.tokens() + Math.max(0, state.elapsed()) * maxPerSecond);
+                dayUsed = state.quotaDay().equals(today) ? state.dayUsed() : 0;
+            }
+            if (unspent > 0 && today.equals(unspentDay)) {
+                dayUsed = Math.max(0, dayUsed - unspent);
+            }
+
+            long dayLeft = maxPerDay > 0 ? Math.max(0, maxPerDay - dayUsed) : Long.MAX_VALUE;
+            long granted = Math.min(requested, Math.min((long) Math.floor(tokens), dayLeft));
+            tokens -= granted;
+            dayUsed += granted;
+
+            jdbcTemplate.update(
+                "UPDATE send_rate_tokens SET tokens = ?, updated_at = ?, quota_day = ?, day_used = ? " +
+                "WHERE bucket = ?",
+                tokens, now, Date.valueOf(today), dayUsed, BUCKET);
+
+            // Wait until enough tokens for another chunk (or the remainder) have accrued
+            double needed = Math.min(requested, Math.max(1, Math.min(chunkSize, (long) maxPerSecond)));
+            long retryAfterNanos = (long) (Math.max(0, needed - tokens) / maxPerSecond * 1_000_000_000L);
+            return new Lease(granted, Math.max(retryAfterNanos, 1_000_000L), dayLeft == granted && granted < requested,
+                today);
+        });
+
+        Counter counter = leaseCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        return lease;
+    }
+
+    private record BucketState(double tokens, double elapsed, LocalDate quotaDay, long dayUsed) {
+    }
+
+    private record Lease(long granted, long retryAfterNanos, boolean dailyExhausted, LocalDate quotaDay) {
+    }
+}
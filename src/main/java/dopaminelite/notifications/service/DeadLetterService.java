@@ -0,0 +1,108 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.DeadLetterDto;
+import dopaminelite.notifications.dto.DeadLetterListResponse;
+import dopaminelite.notifications.dto.DeadLetterReplayRequest;
+import dopaminelite.notifications.dto.DeadLetterReplayResponse;
+import dopaminelite.notifications.entity.DeliveryDeadLetter;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.repository.DeliveryDeadLetterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Service for inspecting and replaying dead-lettered deliveries.
+ *
+ * A replay moves matching entries back into the outbox in chunks, each in its
+ * own short transaction, so a replay of a whole SES incident neither holds
+ * long locks nor builds one huge transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadLetterService {
+
+    private final DeliveryDeadLetterRepository deadLetterRepository;
+    private final OutboxNotifier outboxNotifier;
+
+    @Value("${notifications.outbox.dead-letter.replay-chunk-size:1000}")
+    private int replayChunkSize = 1000;
+
+    /**
+     * List dead letters with optional filters and pagination, newest first.
+     */
+    @Transactional(readOnly = true)
+    public DeadLetterListResponse listDeadLetters(DeliveryErrorClass errorClass, NotificationChannel channel,
+                                                  UUID broadcastId, Instant dateFrom, Instant dateTo,
+                                                  int limit, int offset) {
+        // Use database column name for native query sorting
+        Pageable pageable = PageRequest.of(offset / limit, limit, Sort.by(Sort.Direction.DESC, "dead_lettered_at"));
+
+        Page<DeliveryDeadLetter> page = deadLetterRepository.findByFilters(
+            name(errorClass), name(channel), broadcastId, dateFrom, dateTo, pageable);
+
+        return DeadLetterListResponse.builder()
+            .items(page.getContent().stream().map(this::toDto).toList())
+            .total(page.getTotalElements())
+            .build();
+    }
+
+    /**
+     * Re-enqueue every dead letter matching the request, up to maxEntries if given.
+     */
+    public DeadLetterReplayResponse replay(DeadLetterReplayRequest request) {
+        Integer maxEntries = request.getMaxEntries();
+        long replayed = 0;
+        while (maxEntries == null || replayed < maxEntries) {
+            int limit = maxEntries == null
+                ? replayChunkSize
+                : (int) Math.min(replayChunkSize, maxEntries - replayed);
+            int moved = deadLetterRepository.replayChunk(name(request.getErrorClass()), name(request.getChannel()),
+                request.getBroadcastId(), request.getDateFrom(), request.getDateTo(), limit);
+            replayed += moved;
+            if (moved < limit) {
+                break;
+            }
+        }
+
+        if (replayed > 0) {
+            outboxNotifier.notifyEnqueued();
+        }
+        log.info("Replayed {} dead letters (errorClass={}, channel={}, broadcastId={})",
+            replayed, request.getErrorClass(), request.getChannel(), request.getBroadcastId());
+        return DeadLetterReplayResponse.builder().replayed(replayed).build();
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private DeadLetterDto toDto(DeliveryDeadLetter deadLetter) {
+        return DeadLetterDto.builder()
+            .id(deadLetter.getId())
+            .notificationId(deadLetter.getNotificationId())
+            .channel(deadLetter.getChannel())
+            .priority(deadLetter.getPriority())
+            .recipientEmail(deadLetter.getRecipientEmail())
+            .userId(deadLetter.getUserId())
+            .broadcastId(deadLetter.getBroadcastId())
+            .title(deadLetter.getTitle())
+            .retryCount(deadLetter.getRetryCount())
+            .lastError(deadLetter.getLastError())
+            .errorClass(deadLetter.getErrorClass())
+            .enqueuedAt(deadLetter.getEnqueuedAt())
+            .deadLetteredAt(deadLetter.getDeadLetteredAt())
+            .build();
+    }
+}
@@ -0,0 +1,137 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.exception.PushDeliveryException;
+import dopaminelite.notifications.exception.WebhookDeliveryException;
+import dopaminelite.notifications.exception.WhatsAppApiException;
+import jakarta.mail.SendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Maps delivery exceptions to a {@link DeliveryErrorClass}.
+ */
+public final class DeliveryErrorClassifier {
+
+    // SMTP 4xx reply ("451 ...") or enhanced status code ("4.2.2")
+    private static final Pattern TRANSIENT_REPLY = Pattern.compile("(?:^|[\\s:;])4\\d\\d[ -]|\\b4\\.\\d{1,3}\\.\\d{1,3}\\b");
+
+    // Cloud API rate-limit codes: app, throughput, spam and pair rate limits
+    private static final Set<Integer> WHATSAPP_THROTTLE_CODES = Set.of(4, 80007, 130429, 131048, 131056);
+    private static final int WHATSAPP_TOKEN_EXPIRED = 190;
+
+    private DeliveryErrorClassifier() {
+    }
+
+    public static DeliveryErrorClass classify(Exception e) {
+        if (e instanceof WhatsAppApiException apiException) {
+            return classifyWhatsApp(apiException);
+        }
+        if (e instanceof PushDeliveryException pushException) {
+            return classifyHttpStatus(pushException.getStatus());
+        }
+        if (e instanceof WebhookDeliveryException webhookException) {
+            return classifyHttpStatus(webhookException.getStatus());
+        }
+        if (isThrottling(e.getMessage())) {
+            return DeliveryErrorClass.THROTTLED;
+        }
+        if (e instanceof MailAuthenticationException) {
+            return DeliveryErrorClass.AUTHENTICATION;
+        }
+        if (isDomainDeferral(e)) {
+            return DeliveryErrorClass.TEMPORARILY_REJECTED;
+        }
+        if (isRelayDeferral(e)) {
+            return DeliveryErrorClass.PROVIDER_UNAVAILABLE;
+        }
+        if (e instanceof MailSendException sendException && sendException.getFailedMessages().values().stream()
+                .anyMatch(SendFailedException.class::isInstance)) {
+            return DeliveryErrorClass.RECIPIENT_REJECTED;
+        }
+        if (e instanceof MailException) {
+            return DeliveryErrorClass.PROVIDER_UNAVAILABLE;
+        }
+        return DeliveryErrorClass.UNKNOWN;
+    }
+
+    private static DeliveryErrorClass classifyWhatsApp(WhatsAppApiException e) {
+        Integer code = e.getErrorCode();
+        if (Integer.valueOf(WHATSAPP_TOKEN_EXPIRED).equals(code)) {
+            return DeliveryErrorClass.AUTHENTICATION;
+        }
+        if (code != null && WHATSAPP_THROTTLE_CODES.contains(code)) {
+            return DeliveryErrorClass.THROTTLED;
+        }
+        return classifyHttpStatus(e.getStatus());
+    }
+
+    /**
+     * Error class of an HTTP provider's response status.
+     */
+    private static DeliveryErrorClass classifyHttpStatus(int status) {
+        if (status == 401 || status == 403) {
+            return DeliveryErrorClass.AUTHENTICATION;
+        }
+        if (status == 429) {
+            return DeliveryErrorClass.THROTTLED;
+        }
+        if (status >= 500) {
+            return DeliveryErrorClass.PROVIDER_UNAVAILABLE;
+        }
+        if (status >= 400) {
+            return DeliveryErrorClass.RECIPIENT_REJECTED;
+        }
+        return DeliveryErrorClass.UNKNOWN;
+    }
+
+    /**
+     * Whether the recipient's domain deferred the send: a transient 4xx reply to the
+     * RCPT command for the recipient's address, anywhere in the exception chain or
+     * among the failed messages. Through the SES relay this is the only reply scoped
+     * to the recipient; a 4xx on connect, MAIL FROM or DATA comes from the relay
+     * itself (see {@link #isRelayDeferral}) and says nothing about the domain.
+     */
+    public static boolean isDomainDeferral(Throwable e) {
+        return anyInChain(e, t -> t instanceof SMTPAddressFailedException failed
+            && failed.getReturnCode() / 100 == 4 && !isThrottling(failed.getMessage()));
+    }
+
+    /**
+     * Whether the relay refused the send for now with a transient SMTP reply that is
+     * not a recipient's deferral, e.g. SES's "454 Throttling failure" or a 421 on
+     * connect. These are provider failures.
+     */
+    public static boolean isRelayDeferral(Throwable e) {
+        return !isDomainDeferral(e)
+            && anyInChain(e, t -> t.getMessage() != null && TRANSIENT_REPLY.matcher(t.getMessage()).find());
+    }
+
+    private static boolean isThrottling(String message) {
+        String lower = message != null ? message.toLowerCase() : "";
+        return lower.contains("throttl") || lower.contains("maximum sending rate");
+    }
+
+    private static boolean anyInChain(Throwable e, Predicate<Throwable> test) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (test.test(t)) {
+                return true;
+            }
+            if (t instanceof MailSendException sendException) {
+                for (Exception failure : sendException.getFailedMessages().values()) {
+                    if (failure != t && anyInChain(failure, test)) {
+                        return true;
+                    }
+                }
+            }
+            if (t.getCause() == t) break;
+        }
+        return false;
+    }
+}
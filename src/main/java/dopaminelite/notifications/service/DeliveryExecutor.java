@@ -0,0 +1,96 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs outbox deliveries on virtual threads with a concurrency cap per channel.
+ *
+ * Each task gets its own virtual thread, so blocking SMTP/HTTP I/O does not
+ * tie up platform threads; a per-channel semaphore bounds how many deliveries
+ * are in flight against each provider at once.
+ */
+@Slf4j
+@Component
+public class DeliveryExecutor implements DisposableBean {
+
+    private static final int DEFAULT_PUSH_CONCURRENCY = 32;
+    private static final int DEFAULT_WEBHOOK_CONCURRENCY = 16;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<NotificationChannel, Semaphore> channelPermits = new EnumMap<>(NotificationChannel.class);
+
+    public DeliveryExecutor(int emailConcurrency, int whatsappConcurrency) {
+        this(emailConcurrency, whatsappConcurrency, DEFAULT_PUSH_CONCURRENCY, DEFAULT_WEBHOOK_CONCURRENCY);
+    }
+
+    @Autowired
+    public DeliveryExecutor(@Value("${notifications.delivery.concurrency.email:16}") int emailConcurrency,
+                            @Value("${notifications.delivery.concurrency.whatsapp:8}") int whatsappConcurrency,
+                            @Value("${notifications.delivery.concurrency.push:32}") int pushConcurrency,
+                            @Value("${notifications.delivery.concurrency.webhook:16}") int webhookConcurrency) {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            int permits = switch (channel) {
+                case EMAIL -> emailConcurrency;
+                case WHATSAPP -> whatsappConcurrency;
+                case PUSH -> pushConcurrency;
+                case WEBHOOK -> webhookConcurrency;
+                default -> 1;
+            };
+            channelPermits.put(channel, new Semaphore(Math.max(1, permits)));
+        }
+        log.info("Delivery executor started: email concurrency={}, whatsapp concurrency={}, push concurrency={}, " +
+            "webhook concurrency={}", emailConcurrency, whatsappConcurrency, pushConcurrency, webhookConcurrency);
+    }
+
+    /**
+     * Run a delivery task once a slot for its channel is free.
+     *
+     * @return a future that completes when the task has finished
+     */
+    public CompletableFuture<Void> submit(NotificationChannel channel, Runnable task) {
+        return supply(channel, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run a delivery task that produces a result once a slot for its channel is free.
+     *
+     * @return a future completed with the task's result or exception
+     */
+    public <T> CompletableFuture<T> supply(NotificationChannel channel, Supplier<T> task) {
+        Semaphore permits = channelPermits.get(channel);
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Delivery executor did not finish in-flight deliveries before shutdown");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package dopaminelite.notifications.service;
+
+/**
+ * Outcome of a successful channel delivery.
+ *
+ * @param providerMessageId id the provider assigned to the message, if it returns one
+ */
+public record DeliveryResult(String providerMessageId) {
+
+    public static DeliveryResult sent() {
+        return new DeliveryResult(null);
+    }
+
+    public static DeliveryResult sent(String providerMessageId) {
+        return new DeliveryResult(providerMessageId);
+    }
+}
@@ -0,0 +1,146 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.DeliveryOutbox;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.DeliveryStatus;
+import dopaminelite.notifications.repository.DeliveryOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the results of a delivered outbox batch back to the database.
+ *
+ * All outbox and notification updates of a batch go out as two JDBC batches in
+ * one short transaction, after the SMTP I/O has finished, so a failure on one
+ * entry can never roll back the SENT status of another. Outbox rows are only
+ * updated while still held by the attempt that delivered them; if the lease
+ * expired and the entry was reaped or re-claimed, the stale result is dropped.
+ * Notifications are addressed by their full key so the update is partition-pruned.
+ * Entries that failed for good are moved to the dead-letter table in the same transaction,
+ * and the delivery keys of sent entries are recorded for deduplication, including
+ * those whose result was dropped: the entry goes back to the queue, but the send
+ * happened, and the recorded key stops the next claim from repeating it.
+ */
+@Slf4j
+@Component
+public class DeliveryResultWriter {
+
+    private static final String UPDATE_OUTBOX =
+        "UPDATE delivery_outbox SET status = ?, retry_count = ?, next_retry_at = ?, last_error = ?, error_class = ?, " +
+        "delivered_at = ?, claimed_by = NULL, lease_until = NULL, attempt_id = NULL, updated_at = ? " +
+        "WHERE id = ? AND attempt_id = ? AND status = 'IN_FLIGHT'";
+
+    private static final String UPDATE_NOTIFICATION =
+        "UPDATE notifications SET delivery_status = ?, updated_at = ? " +
+        "WHERE user_id = ? AND id = ? AND created_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DeliveryOutboxRepository outboxRepository;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+
+    public DeliveryResultWriter(JdbcTemplate jdbcTemplate, DeliveryOutboxRepository outboxRepository,
+                                IdempotencyService idempotencyService, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxRepository = outboxRepository;
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Persist delivery results, each fenced by the attempt id it was claimed under.
+     *
+     * @return number of outbox results dropped because the attempt no longer held the entry
+     */
+    public int write(List<DeliveryOutbox> outboxResults, List<Notification> notificationResults) {
+        if (outboxResults.isEmpty() && notificationResults.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+
+        Integer stale = transactionTemplate.execute(status -> {
+            int[][] outboxCounts = jdbcTemplate.batchUpdate(UPDATE_OUTBOX, outboxResults, outboxResults.size(),
+                (ps, outbox) -> {
+                    ps.setString(1, outbox.getStatus().name());
+                    ps.setInt(2, outbox.getRetryCount());
+                    ps.setObject(3, toUtc(outbox.getNextRetryAt()));
+                    ps.setString(4, outbox.getLastError());
+                    ps.setString(5, outbox.getErrorClass() != null ? outbox.getErrorClass().name() : null);
+                    ps.setObject(6, toUtc(outbox.getDeliveredAt()));
+                    ps.setObject(7, toUtc(now));
+                    ps.setObject(8, outbox.getId());
+                    ps.setObject(9, outbox.getAttemptId());
+                });
+
+            // Sends by email address have no notification row to update
+            List<Notification> notificationRows = notificationResults.stream()
+                .filter(notification -> notification.getUserId() != null)
+                .toList();
+            jdbcTemplate.batchUpdate(UPDATE_NOTIFICATION, notificationRows, notificationRows.size(),
+                (ps, notification) -> {
+                    ps.setString(1, notification.getDeliveryStatus().name());
+                    ps.setObject(2, toUtc(now));
+                    ps.setObject(3, notification.getUserId());
+                    ps.setObject(4, notification.getId());
+                    ps.setObject(5, toUtc(notification.getCreatedAt()));
+                });
+
+            int dropped = 0;
+            int index = 0;
+            List<UUID> deadLetters = new ArrayList<>();
+            List<UUID> sentKeys = new ArrayList<>();
+            for (int[] counts : outboxCounts) {
+                for (int count : counts) {
+                    DeliveryOutbox outbox = outboxResults.get(index++);
+                    // A send under a lost lease still happened: recording it lets the next claim skip it
+                    if (outbox.getStatus() == DeliveryStatus.SENT && outbox.getDeliveryKey() != null) {
+                        sentKeys.add(outbox.getDeliveryKey());
+                    }
+                    if (count == 0) {
+                        dropped++;
+                    } else if (isDeadLetter(outbox)) {
+                        deadLetters.add(outbox.getId());
+                    }
+                }
+            }
+            idempotencyService.recordDelivered(sentKeys);
+            if (!deadLetters.isEmpty()) {
+                outboxRepository.moveToDeadLetters(deadLetters);
+                log.info("Moved {} failed deliveries to dead letters", deadLetters.size());
+            }
+            return dropped;
+        });
+
+        if (stale != null && stale > 0) {
+            log.warn("Dropped {} delivery results whose in-flight lease had expired", stale);
+        }
+        return stale != null ? stale : 0;
+    }
+
+    /**
+     * Exhausted retries, or a failure that no retry can fix.
+     */
+    private static boolean isDeadLetter(DeliveryOutbox outbox) {
+        return outbox.getStatus() == DeliveryStatus.FAILED
+            && (outbox.getRetryCount() >= outbox.getMaxRetries()
+                || outbox.getErrorClass() == DeliveryErrorClass.NOTIFICATION_MISSING);
+    }
+
+    /**
+     * Timestamps are stored as UTC without zone, matching hibernate.jdbc.time_zone.
+     */
+    private static LocalDateTime toUtc(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null;
+    }
+}
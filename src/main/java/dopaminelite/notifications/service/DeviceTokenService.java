@@ -0,0 +1,60 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.DeviceToken;
+import dopaminelite.notifications.entity.enums.DevicePlatform;
+import dopaminelite.notifications.repository.DeviceTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registry of the devices that receive PUSH notifications.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceTokenService {
+
+    private final DeviceTokenRepository deviceTokenRepository;
+
+    public void register(UUID userId, String token, DevicePlatform platform) {
+        deviceTokenRepository.upsert(userId, token, platform.name());
+        log.debug("Registered {} device for user {}", platform, userId);
+    }
+
+    public void unregister(UUID userId, String token) {
+        deviceTokenRepository.deleteByUserIdAndToken(userId, token);
+    }
+
+    /**
+     * Tokens of all the given users, in one query.
+     */
+    public Map<UUID, List<String>> findTokens(Collection<UUID> userIds) {
+        Map<UUID, List<String>> tokens = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return tokens;
+        }
+        for (DeviceToken deviceToken : deviceTokenRepository.findByUserIdIn(userIds)) {
+            tokens.computeIfAbsent(deviceToken.getUserId(), id -> new ArrayList<>()).add(deviceToken.getToken());
+        }
+        return tokens;
+    }
+
+    /**
+     * Remove tokens that FCM reported as no longer valid.
+     */
+    public void prune(Collection<String> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        int deleted = deviceTokenRepository.deleteByTokenIn(tokens);
+        log.info("Pruned {} invalid device tokens", deleted);
+    }
+}
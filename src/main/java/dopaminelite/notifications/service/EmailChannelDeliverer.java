@@ -0,0 +1,93 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.repository.BroadcastRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends notifications as email through {@link EmailService}.
+ *
+ * Sends run on the {@link DeliveryExecutor} under the email concurrency cap and
+ * within the recipient domain's budget. HTML bodies are detected and sent as
+ * rich text; broadcast copies whose body is the broadcast's own share one
+ * pre-rendered MIME message, while personalized copies are sent directly.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailChannelDeliverer implements ChannelDeliverer {
+
+    private static final int MAX_BROADCAST_BODIES = 256;
+
+    private final EmailService emailService;
+    private final RecipientDomainThrottle domainThrottle;
+    private final DeliveryExecutor deliveryExecutor;
+    private final BroadcastRecordRepository broadcastRepository;
+
+    // Body shared by all copies of a recent broadcast; empty once the broadcast is gone
+    private final Map<UUID, Optional<String>> broadcastBodies = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Optional<String>> eldest) {
+                return size() > MAX_BROADCAST_BODIES;
+            }
+        });
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.EMAIL;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient) {
+        return deliveryExecutor.supply(NotificationChannel.EMAIL, () -> send(notification, recipient));
+    }
+
+    private DeliveryResult send(Notification notification, String recipientEmail) {
+        // Detect basic HTML content; fall back to plain text
+        String body = notification.getBody();
+        boolean isHtml = body != null && body.matches("(?i).*<[a-z].*>.*");
+        RecipientDomainThrottle.Permit permit = domainThrottle.acquire(recipientEmail);
+        boolean domainDeferral = false;
+        try {
+            if (notification.getBroadcastId() != null && isSharedBroadcastBody(notification.getBroadcastId(), body)) {
+                // Broadcast copies share one pre-rendered MIME message
+                emailService.sendBroadcastEmail(notification.getBroadcastId(), recipientEmail,
+                    notification.getTitle(), body, isHtml);
+            } else if (isHtml) {
+                emailService.sendHtmlEmail(recipientEmail, notification.getTitle(), body);
+            } else {
+                emailService.sendEmail(recipientEmail, notification.getTitle(), body);
+            }
+            return DeliveryResult.sent();
+        } catch (RuntimeException e) {
+            // Only a deferral of this recipient pauses its domain; relay 4xx replies do not
+            domainDeferral = DeliveryErrorClassifier.isDomainDeferral(e);
+            throw e;
+        } finally {
+            domainThrottle.release(permit, domainDeferral);
+        }
+    }
+
+    /**
+     * Whether the body is the broadcast's own, i.e. the same for every copy and
+     * worth rendering once; template broadcasts are personalized per recipient.
+     */
+    private boolean isSharedBroadcastBody(UUID broadcastId, String body) {
+        Optional<String> shared = broadcastBodies.get(broadcastId);
+        if (shared == null) {
+            // Looked up outside the map's lock; a concurrent miss only repeats the query
+            shared = broadcastRepository.findBodyById(broadcastId);
+            broadcastBodies.put(broadcastId, shared);
+        }
+        return shared.isPresent() && shared.get().equals(body);
+    }
+}
@@ -1,34 +1,80 @@
 package dopaminelite.notifications.service;
 
+import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Email delivery via SMTP using Spring's JavaMailSender.
  * Configured to work with AWS SES SMTP endpoint.
  * Supports both plain text and HTML-formatted emails.
+ * Broadcast sends reuse a pre-rendered MIME message per broadcast and content,
+ * so only the recipient header differs between messages.
+ * Every send first takes one slot per recipient from the {@link SendQuota} and
+ * goes through the {@link SmtpCircuitBreaker} and {@link AdaptiveConcurrencyLimiter},
+ * so a degraded provider makes sends fail fast and defer instead of timing out.
  */
 @Slf4j
 @Service
 public class EmailService {
 
+    private static final int DEFAULT_RENDER_CACHE_SIZE = 64;
+
     private final String senderEmail;
     private final JavaMailSender mailSender;
+    private final Map<RenderKey, byte[]> renderedMessages;
+    private final SendQuota rateLimiter;
+    private final SmtpCircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
     /**
      * Primary constructor for Spring dependency injection.
      */
-    public EmailService(@Value("${notifications.email.sender}") String senderEmail, JavaMailSender mailSender) {
+    @Autowired
+    public EmailService(@Value("${notifications.email.sender}") String senderEmail, JavaMailSender mailSender,
+                        @Value("${notifications.email.render-cache.max-entries:64}") int renderCacheSize,
+                        SendQuota rateLimiter,
+                        SmtpCircuitBreaker circuitBreaker,
+                        AdaptiveConcurrencyLimiter concurrencyLimiter) {
         this.senderEmail = senderEmail;
         this.mailSender = mailSender;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.renderedMessages = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RenderKey, byte[]> eldest) {
+                return size() > renderCacheSize;
+            }
+        });
+    }
+
+    public EmailService(String senderEmail, JavaMailSender mailSender) {
+        this(senderEmail, mailSender, DEFAULT_RENDER_CACHE_SIZE, SendRateLimiter.unlimited(),
+            new SmtpCircuitBreaker(5, Duration.ofSeconds(30)),
+            new AdaptiveConcurrencyLimiter(16, 16, Duration.ofSeconds(2)));
     }
 
     /**
@@ -42,7 +88,7 @@ public class EmailService {
             message.setSubject(subject);
             message.setText(bodyText);
 
-            mailSender.send(message);
+            dispatch(1, () -> mailSender.send(message));
             log.info("SMTP email sent successfully to: {}", recipientEmail);
         } catch (Exception e) {
             log.error("SMTP send failed to: {}", recipientEmail, e);
@@ -61,7 +107,7 @@ public class EmailService {
             message.setSubject(subject);
             message.setText(bodyText);
 
-            mailSender.send(message);
+            dispatch(recipientEmails.size(), () -> mailSender.send(message));
             log.info("SMTP batch email sent successfully to: {}", recipientEmails);
         } catch (Exception e) {
             log.error("SMTP batch send failed to: {}", recipientEmails, e);
@@ -83,7 +129,7 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(bodyHtml, true); // true indicates HTML content
             
-            mailSender.send(message);
+            dispatch(1, () -> mailSender.send(message));
             log.info("SMTP HTML email sent successfully to: {}", recipientEmail);
         } catch (MessagingException e) {
             log.error("SMTP HTML send failed to: {}", recipientEmail, e);
@@ -105,11 +151,123 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(bodyHtml, true); // true indicates HTML content
             
-            mailSender.send(message);
+            dispatch(recipientEmails.size(), () -> mailSender.send(message));
             log.info("SMTP HTML batch email sent successfully to: {}", recipientEmails);
         } catch (MessagingException e) {
             log.error("SMTP HTML batch send failed to: {}", recipientEmails, e);
             throw new RuntimeException("Failed to send HTML batch email", e);
         }
     }
+
+    /**
+     * Send one recipient's copy of a broadcast email.
+     * The message is rendered once per broadcast and content hash; each recipient
+     * gets a copy of the rendered bytes with only the To header added.
+     * Only for content shared by the whole broadcast: a personalized copy would
+     * pay for rendering and reparsing alone and evict useful entries, so those
+     * go through {@link #sendEmail} or {@link #sendHtmlEmail}.
+     */
+    public void sendBroadcastEmail(UUID broadcastId, String recipientEmail, String subject, String body, boolean html) {
+        try {
+            RenderKey key = new RenderKey(broadcastId, contentHash(subject, body, html));
+            byte[] rendered = renderedMessages.get(key);
+            if (rendered == null) {
+                rendered = render(subject, body, html);
+                renderedMessages.put(key, rendered);
+            }
+
+            MimeMessage message = mailSender.createMimeMessage(new ByteArrayInputStream(rendered));
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipientEmail));
+
+            dispatch(1, () -> mailSender.send(message));
+            log.info("SMTP broadcast email {} sent successfully to: {}", broadcastId, recipientEmail);
+        } catch (MessagingException | IOException e) {
+            log.error("SMTP broadcast send failed to: {}", recipientEmail, e);
+            throw new RuntimeException("Failed to send broadcast email", e);
+        }
+    }
+
+    /**
+     * Hand a prepared message to the provider once circuit breaker, concurrency
+     * limit and quota allow it, and feed the outcome back to the first two.
+     * The quota is taken last, so a send deferred while waiting for a slot does
+     * not spend it; the breaker permission and the slot are given back if a later
+     * step defers.
+     */
+    private void dispatch(int recipients, Runnable send) {
+        circuitBreaker.acquirePermission();
+        try {
+            concurrencyLimiter.acquire();
+        } catch (RuntimeException e) {
+            circuitBreaker.releasePermission();
+            throw e;
+        }
+        try {
+            rateLimiter.acquire(recipients);
+        } catch (RuntimeException e) {
+            concurrencyLimiter.cancel();
+            circuitBreaker.releasePermission();
+            throw e;
+        }
+
+        transportWaitNanos();
+        long start = System.nanoTime();
+        boolean providerFailure = false;
+        try {
+            send.run();
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            providerFailure = SmtpCircuitBreaker.isProviderFailure(e);
+            if (providerFailure) {
+                circuitBreaker.onFailure();
+            } else {
+                // The provider answered; the message or recipient was the problem
+                circuitBreaker.onSuccess();
+            }
+            throw e;
+        } finally {
+            // Waiting for a pooled transport is local contention, not provider latency
+            long latency = System.nanoTime() - start - transportWaitNanos();
+            concurrencyLimiter.release(latency, providerFailure);
+        }
+    }
+
+    private long transportWaitNanos() {
+        return mailSender instanceof PooledJavaMailSender pooled ? pooled.takeTransportWaitNanos() : 0;
+    }
+
+    /**
+     * Render a complete MIME message without recipients.
+     * Message-ID is stripped so every copy gets its own id when sent.
+     */
+    private byte[] render(String subject, String body, boolean html) throws MessagingException, IOException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, html, "UTF-8");
+
+        helper.setFrom(senderEmail);
+        helper.setSubject(subject);
+        helper.setText(body, html);
+        message.saveChanges();
+        message.removeHeader("Message-ID");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static String contentHash(String subject, String body, boolean html) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(subject).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(body).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) (html ? 1 : 0));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record RenderKey(UUID broadcastId, String contentHash) {
+    }
 }
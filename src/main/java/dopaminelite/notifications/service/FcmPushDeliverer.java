@@ -0,0 +1,277 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.PushDeliveryException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
+/**
+ * Sends PUSH notifications to the users' registered devices through the FCM HTTP v1 API.
+ *
+ * A batch looks up the device tokens of all its users in one query and groups
+ * deliveries with the same content into one multicast. Each multicast of up to
+ * 500 tokens takes one slot of the {@link DeliveryExecutor}; within it, one
+ * request per token is multiplexed over the shared HTTP/2 connection, the way
+ * the Admin SDK's sendEachForMulticast does (v1 addresses a single token per
+ * message). A user's delivery succeeds when any of their devices accepted it.
+ * Tokens FCM reports as unregistered or invalid are pruned from the registry.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.push.enabled", havingValue = "true")
+public class FcmPushDeliverer implements ChannelDeliverer {
+
+    static final int MAX_MULTICAST_TOKENS = 500;
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+    private static final Set<String> STALE_TOKEN_CODES = Set.of("UNREGISTERED", "SENDER_ID_MISMATCH");
+
+    private final ObjectMapper objectMapper;
+    private final DeliveryExecutor deliveryExecutor;
+    private final DeviceTokenService deviceTokenService;
+    private final HttpClient httpClient;
+    private final FcmAccessTokenProvider accessTokenProvider;
+    private final URI sendUri;
+    private final Duration requestTimeout;
+    private final int multicastSize;
+
+    public FcmPushDeliverer(ObjectMapper objectMapper,
+                            DeliveryExecutor deliveryExecutor,
+                            DeviceTokenService deviceTokenService,
+                            @Value("${notifications.push.base-url:https://fcm.googleapis.com}") String baseUrl,
+                            @Value("${notifications.push.project-id}") String projectId,
+                            @Value("${notifications.push.credentials-file:}") String credentialsFile,
+                            @Value("${notifications.push.access-token:}") String accessToken,
+                            @Value("${notifications.push.multicast-size:500}") int multicastSize,
+                            @Value("${notifications.push.request-timeout:10s}") Duration requestTimeout) {
+        this.objectMapper = objectMapper;
+        this.deliveryExecutor = deliveryExecutor;
+        this.deviceTokenService = deviceTokenService;
+        this.sendUri = URI.create(baseUrl.replaceAll("/+$", "") + "/v1/projects/" + projectId + "/messages:send");
+        this.requestTimeout = requestTimeout;
+        this.multicastSize = Math.max(1, Math.min(multicastSize, MAX_MULTICAST_TOKENS));
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(requestTimeout)
+            .build();
+        this.accessTokenProvider = new FcmAccessTokenProvider(
+            objectMapper, httpClient, requestTimeout, credentialsFile, accessToken);
+        log.info("FCM push deliverer: {}, multicasts of up to {} tokens", sendUri, this.multicastSize);
+    }
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.PUSH;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient) {
+        return deliverBatch(List.of(new Delivery(notification, recipient))).get(0);
+    }
+
+    @Override
+    public List<CompletableFuture<DeliveryResult>> deliverBatch(List<Delivery> deliveries) {
+        Map<UUID, List<String>> tokensByUser = deviceTokenService.findTokens(
+            deliveries.stream().map(delivery -> delivery.notification().getUserId()).distinct().toList());
+
+        // Same content for many users (e.g. a broadcast): one multicast over all their devices
+        Map<Content, Set<String>> multicasts = new LinkedHashMap<>();
+        for (Delivery delivery : deliveries) {
+            List<String> tokens = tokensByUser.getOrDefault(delivery.notification().getUserId(), List.of());
+            multicasts.computeIfAbsent(Content.of(delivery.notification()), content -> new LinkedHashSet<>()).addAll(tokens);
+        }
+
+        // A token gets one message per distinct content, so results are keyed by both
+        Map<Content, Map<String, CompletableFuture<TokenResult>>> byContent = new HashMap<>();
+        List<CompletableFuture<List<TokenResult>>> chunks = new ArrayList<>();
+        multicasts.forEach((content, tokenSet) -> {
+            List<String> tokens = List.copyOf(tokenSet);
+            Map<String, CompletableFuture<TokenResult>> byToken = byContent.computeIfAbsent(content, c -> new HashMap<>());
+            for (int from = 0; from < tokens.size(); from += multicastSize) {
+                List<String> chunk = tokens.subList(from, Math.min(from + multicastSize, tokens.size()));
+                CompletableFuture<List<TokenResult>> sent =
+                    deliveryExecutor.supply(NotificationChannel.PUSH, () -> sendMulticast(content, chunk));
+                chunks.add(sent);
+                for (int i = 0; i < chunk.size(); i++) {
+                    int index = i;
+                    byToken.put(chunk.get(i), sent.thenApply(results -> results.get(index)));
+                }
+            }
+        });
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+            .whenComplete((ignored, error) -> pruneStaleTokens(chunks));
+
+        return deliveries.stream()
+            .map(delivery -> userResult(tokensByUser.getOrDefault(delivery.notification().getUserId(), List.of()),
+                byContent.getOrDefault(Content.of(delivery.notification()), Map.of())))
+            .toList();
+    }
+
+    /**
+     * Combined outcome over a user's devices: sent if any device accepted the message.
+     *
+     * @param byToken results of this delivery's content, by device token
+     */
+    private CompletableFuture<DeliveryResult> userResult(List<String> tokens, Map<String, CompletableFuture<TokenResult>> byToken) {
+        if (tokens.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                new PushDeliveryException("No registered devices", 404, "UNREGISTERED"));
+        }
+        List<CompletableFuture<TokenResult>> results = tokens.stream().map(byToken::get).toList();
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            TokenResult failure = null;
+            for (CompletableFuture<TokenResult> future : results) {
+                TokenResult result = future.join();
+                if (result.sent()) {
+                    return DeliveryResult.sent(result.messageId());
+                }
+                // Prefer a retryable failure so the delivery is attempted again
+                if (failure == null || result.retryable()) {
+                    failure = result;
+                }
+            }
+            throw new PushDeliveryException(failure.error(), failure.status(), failure.errorCode());
+        });
+    }
+
+    /**
+     * One request per token, all in flight at once over the shared connection.
+     */
+    private List<TokenResult> sendMulticast(Content content, List<String> tokens) {
+        String accessToken = accessTokenProvider.getToken();
+        List<CompletableFuture<TokenResult>> pending = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            HttpRequest request = HttpRequest.newBuilder(sendUri)
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(buildMessage(token, content).toString()))
+                .build();
+            pending.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> error != null ? unreachable(token, error) : parse(token, response)));
+        }
+        List<TokenResult> results = pending.stream().map(CompletableFuture::join).toList();
+        if (results.stream().anyMatch(result -> result.status() == 401)) {
+            accessTokenProvider.invalidate();
+        }
+        return results;
+    }
+
+    ObjectNode buildMessage(String token, Content content) {
+        ObjectNode message = objectMapper.createObjectNode();
+        ObjectNode body = message.putObject("message").put("token", token);
+        body.putObject("notification")
+            .put("title", content.title())
+            .put("body", content.body());
+        if (content.broadcastId() != null) {
+            body.putObject("data").put("broadcastId", content.broadcastId().toString());
+        }
+        return message;
+    }
+
+    private TokenResult parse(String token, HttpResponse<String> response) {
+        JsonNode body = readBody(response.body());
+        if (response.statusCode() / 100 == 2) {
+            return new TokenResult(token, body.path("name").asText(null), response.statusCode(), null, null);
+        }
+        JsonNode error = body.path("error");
+        String errorCode = error.path("status").asText(null);
+        for (JsonNode detail : error.path("details")) {
+            if (detail.hasNonNull("errorCode")) {
+                errorCode = detail.get("errorCode").asText();
+            }
+        }
+        String message = "FCM " + response.statusCode() + ": " + error.path("message").asText(response.body());
+        return new TokenResult(token, null, response.statusCode(), errorCode, message);
+    }
+
+    private static TokenResult unreachable(String token, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return new TokenResult(token, null, 503, null, "FCM unreachable: " + cause.getMessage());
+    }
+
+    /**
+     * Remove the tokens FCM no longer accepts, once the batch has completed.
+     */
+    private void pruneStaleTokens(List<CompletableFuture<List<TokenResult>>> chunks) {
+        List<String> stale = new ArrayList<>();
+        for (CompletableFuture<List<TokenResult>> chunk : chunks) {
+            if (chunk.isDone() && !chunk.isCompletedExceptionally()) {
+                chunk.join().stream().filter(TokenResult::stale).map(TokenResult::token).forEach(stale::add);
+            }
+        }
+        try {
+            deviceTokenService.prune(stale);
+        } catch (RuntimeException e) {
+            log.warn("Failed to prune {} stale device tokens", stale.size(), e);
+        }
+    }
+
+    private JsonNode readBody(String body) {
+        try {
+            return body == null || body.isBlank() ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    /**
+     * What a multicast carries; deliveries with equal content share one.
+     */
+    record Content(String title, String body, UUID broadcastId) {
+
+        static Content of(Notification notification) {
+            String title = notification.getTitle() != null ? notification.getTitle() : "";
+            String body = notification.getBody() != null ? HTML_TAG.matcher(notification.getBody()).replaceAll("") : "";
+            return new Content(title, body, notification.getBroadcastId());
+        }
+    }
+
+    /**
+     * Outcome of the message to one device token.
+     */
+    record TokenResult(String token, String messageId, int status, String errorCode, String error) {
+
+        boolean sent() {
+            return status / 100 == 2;
+        }
+
+        boolean retryable() {
+            return status == 429 || status >= 500;
+        }
+
+        /**
+         * The token itself is no longer valid and should be removed from the registry.
+         */
+        boolean stale() {
+            if (errorCode == null) return false;
+            return STALE_TOKEN_CODES.contains(errorCode)
+                || ("INVALID_ARGUMENT".equals(errorCode)
+                    && error != null && error.toLowerCase(Locale.ROOT).contains("registration token"));
+        }
+    }
+}
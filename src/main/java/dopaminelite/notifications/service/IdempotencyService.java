@@ -0,0 +1,197 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates ingestion requests and outbox deliveries through the idempotency_keys table.
+ *
+ * Keys are stored as a 16-byte hash with an expiry. An ingestion request that
+ * carries an Idempotency-Key claims it with an INSERT in the same transaction as
+ * the work itself: a concurrent duplicate blocks on the key until the first
+ * request commits, then gets the first request's result instead of running
+ * again; if the first request rolls back, the key is free again. A first-time
+ * key costs one INSERT; only a duplicate reads the stored result.
+ *
+ * Every outbox delivery has a deterministic key derived from its notification
+ * and channel. Keys of sent deliveries are recorded with the results, and the
+ * worker skips any entry whose key is already recorded, so a re-claimed or
+ * replayed entry does not send the same email twice.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    static final String DELIVERY_SCOPE = "delivery";
+    private static final int PURGE_CHUNK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration deliveryTtl;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              @Value("${notifications.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${notifications.idempotency.delivery-ttl:7d}") Duration deliveryTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.deliveryTtl = deliveryTtl;
+    }
+
+    /**
+     * Run {@code action} once per (scope, key) within the TTL.
+     *
+     * @param key the client's Idempotency-Key; without one the action always runs
+     * @return the action's result, or the stored result of the first request with this key
+     */
+    @Transactional
+    public Outcome execute(String scope, String key, Supplier<UUID> action) {
+        if (key == null || key.isBlank()) {
+            return new Outcome(action.get(), false);
+        }
+        UUID keyHash = keyHash(scope, key);
+        LocalDateTime now = utcNow();
+
+        // A live key wins the conflict; an expired one is taken over
+        int claimed = jdbcTemplate.update(
+            "INSERT INTO idempotency_keys (key_hash, scope, created_at, expires_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (key_hash) DO UPDATE SET scope = EXCLUDED.scope, result_id = NULL, " +
+            "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at <= EXCLUDED.created_at",
+            keyHash, scope, now, now.plus(ttl));
+        if (claimed == 0) {
+            List<StoredKey> stored = findLive(keyHash, now);
+            log.info("Duplicate {} request with idempotency key {}", scope, key);
+            return new Outcome(stored.isEmpty() ? null : stored.get(0).resultId(), true);
+        }
+
+        UUID resultId = action.get();
+        if (resultId != null) {
+            jdbcTemplate.update("UPDATE idempotency_keys SET result_id = ? WHERE key_hash = ?", resultId, keyHash);
+        }
+        return new Outcome(resultId, false);
+    }
+
+    /**
+     * Deterministic key of the delivery of a notification over a channel.
+     */
+    public static UUID deliveryKey(UUID notificationId, NotificationChannel channel) {
+        return UUID.nameUUIDFromBytes((DELIVERY_SCOPE + ":" + notificationId + ":" + channel)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deterministic key of the delivery of a notification to one endpoint of a channel
+     * (e.g. one webhook subscription).
+     */
+    public static UUID deliveryKey(UUID notificationId, NotificationChannel channel, UUID endpointId) {
+        return UUID.nameUUIDFromBytes((DELIVERY_SCOPE + ":" + notificationId + ":" + channel + ":" + endpointId)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Delivery keys among {@code deliveryKeys} that were already sent.
+     */
+    public Set<UUID> findDelivered(Collection<UUID> deliveryKeys) {
+        if (deliveryKeys.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(deliveryKeys.size(), "?"));
+        Object[] args = new Object[deliveryKeys.size() + 1];
+        args[0] = utcNow();
+        int i = 1;
+        for (UUID key : deliveryKeys) {
+            args[i++] = key;
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT key_hash FROM idempotency_keys WHERE expires_at > ? AND key_hash IN (" + placeholders + ")",
+            UUID.class, args));
+    }
+
+    /**
+     * Record sent deliveries; joins the caller's transaction.
+     */
+    public void recordDelivered(Collection<UUID> deliveryKeys) {
+        if (deliveryKeys.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = utcNow();
+        LocalDateTime expiresAt = now.plus(deliveryTtl);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO idempotency_keys (key_hash, scope, created_at, expires_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (key_hash) DO NOTHING",
+            deliveryKeys, deliveryKeys.size(), (ps, key) -> {
+                ps.setObject(1, key);
+                ps.setString(2, DELIVERY_SCOPE);
+                ps.setObject(3, now);
+                ps.setObject(4, expiresAt);
+            });
+    }
+
+    /**
+     * Delete expired keys in bounded chunks.
+     */
+    @Scheduled(fixedDelayString = "${notifications.idempotency.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE key_hash IN " +
+                "(SELECT key_hash FROM idempotency_keys WHERE expires_at <= ? LIMIT " + PURGE_CHUNK + ")",
+                utcNow());
+            total += deleted;
+        } while (deleted == PURGE_CHUNK);
+        if (total > 0) {
+            log.info("Purged {} expired idempotency keys", total);
+        }
+        return total;
+    }
+
+    private List<StoredKey> findLive(UUID keyHash, LocalDateTime now) {
+        return jdbcTemplate.query(
+            "SELECT result_id FROM idempotency_keys WHERE key_hash = ? AND expires_at > ?",
+            (rs, i) -> new StoredKey(rs.getObject("result_id", UUID.class)),
+            keyHash, now);
+    }
+
+    private static UUID keyHash(String scope, String key) {
+        return UUID.nameUUIDFromBytes((scope + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Timestamps are stored as UTC without zone, matching hibernate.jdbc.time_zone.
+     */
+    private static LocalDateTime utcNow() {
+        return LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Result of an idempotent call.
+     *
+     * @param resultId id produced by the first request with the key (e.g. a broadcast id), if any
+     * @param replayed true when this request was a duplicate and nothing ran
+     */
+    public record Outcome(UUID resultId, boolean replayed) {
+    }
+
+    private record StoredKey(UUID resultId) {
+    }
+}
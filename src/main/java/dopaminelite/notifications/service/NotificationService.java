@@ -5,8 +5,13 @@ import dopaminelite.notifications.entity.BroadcastRecord;
 import dopaminelite.notifications.entity.DeliveryOutbox;
 import dopaminelite.notifications.entity.Notification;
 import dopaminelite.notifications.entity.NotificationTemplate;
+import dopaminelite.notifications.entity.WebhookSubscription;
+import dopaminelite.notifications.entity.enums.BroadcastStatus;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
 import dopaminelite.notifications.entity.enums.DeliveryStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import dopaminelite.notifications.exception.BroadcastLeaseLostException;
 import dopaminelite.notifications.exception.ResourceNotFoundException;
 import dopaminelite.notifications.exception.ValidationException;
 import dopaminelite.notifications.repository.BroadcastRecordRepository;
@@ -15,14 +20,19 @@ import dopaminelite.notifications.repository.NotificationRepository;
 import dopaminelite.notifications.repository.NotificationTemplateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Matcher;
@@ -34,7 +44,7 @@ import java.util.regex.Pattern;
  * Responsibilities:
  * - Query lists and single notifications for BFF use.
  * - Mark notifications as read.
- * - Process domain events and fan out to channels (IN_APP, EMAIL, WHATSAPP).
+ * - Process domain events and fan out to channels (IN_APP, EMAIL, WHATSAPP, PUSH, WEBHOOK).
  * - Handle direct, ad-hoc sends across multiple channels.
  */
 @Slf4j
@@ -44,14 +54,19 @@ public class NotificationService {
     
     private final NotificationRepository notificationRepository;
     private final DeliveryOutboxRepository deliveryOutboxRepository;
-    private final EmailService emailService;
     private final NotificationTemplateRepository templateRepository;
     private final BroadcastRecordRepository broadcastRepository;
     private final BffClientService bffClientService;
+    private final OutboxNotifier outboxNotifier;
+    private final ChannelDeliverers channelDeliverers;
+    private final WebhookSubscriptionService webhookSubscriptionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BffUserLookup userLookup;
     
     /**
      * List notifications for a user with optional filters.
      * Parameters mirror OpenAPI query: unreadOnly, channel, limit, offset.
+     * WEBHOOK notifications are deliveries to partner systems, not to the user, and are never listed.
      */
     @Transactional(readOnly = true)
     public NotificationListResponse listNotifications(
@@ -67,6 +82,12 @@ public class NotificationService {
 
         boolean isUnread = unreadOnly != null && unreadOnly;
 
+        if (channel == NotificationChannel.WEBHOOK) {
+            return NotificationListResponse.builder()
+                .items(List.of())
+                .total(0L)
+                .build();
+        }
         if (channel != null && isUnread) {
             page = notificationRepository.findByUserIdAndIsReadAndChannelOrderByCreatedAtDesc(
                 userId, false, channel, pageable
@@ -78,13 +99,15 @@ public class NotificationService {
             );
             total = notificationRepository.countByUserIdAndChannel(userId, channel);
         } else if (isUnread) {
-            page = notificationRepository.findByUserIdAndIsReadOrderByCreatedAtDesc(
-                userId, false, pageable
+            page = notificationRepository.findByUserIdAndIsReadAndChannelNotOrderByCreatedAtDesc(
+                userId, false, NotificationChannel.WEBHOOK, pageable
             );
-            total = notificationRepository.countByUserIdAndIsRead(userId, false);
+            total = notificationRepository.countByUserIdAndIsReadAndChannelNot(userId, false, NotificationChannel.WEBHOOK);
         } else {
-            page = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-            total = notificationRepository.countByUserId(userId);
+            page = notificationRepository.findByUserIdAndChannelNotOrderByCreatedAtDesc(
+                userId, NotificationChannel.WEBHOOK, pageable
+            );
+            total = notificationRepository.countByUserIdAndChannelNot(userId, NotificationChannel.WEBHOOK);
         }
 
         List<NotificationDto> items = page.getContent().stream()
@@ -187,6 +210,12 @@ public class NotificationService {
         if (channels == null || channels.isEmpty()) {
             channels = getDefaultChannelsForEventType(request.getEventType());
         }
+        // Partner systems subscribed to this event type receive it
+        if (!channels.contains(NotificationChannel.WEBHOOK)
+            && !webhookSubscriptionService.findActive(request.getEventType()).isEmpty()) {
+            channels = new ArrayList<>(channels);
+            channels.add(NotificationChannel.WEBHOOK);
+        }
         
         // Validate that email exists for email channel
         if (channels.contains(NotificationChannel.EMAIL) && 
@@ -203,21 +232,28 @@ public class NotificationService {
                     request.getPrimaryUserId());
                 continue;
             }
+            // Skip WhatsApp channel if no WhatsApp number
+            if (channel == NotificationChannel.WHATSAPP && 
+                (userData.getWhatsappNumber() == null || userData.getWhatsappNumber().isBlank())) {
+                log.warn("Skipping WhatsApp notification for user {} - no WhatsApp number", 
+                    request.getPrimaryUserId());
+                continue;
+            }
             createNotificationForChannel(request, channel, userData);
         }
     }
     
     /**
-     * Send direct notifications to multiple users.
-     * Supports multi-channel sends similar to event processing.
-     * Creates a broadcast record to track the send operation.
+     * Queue a direct send to multiple users as a broadcast job.
+     * Only the broadcast record is written here, so the call returns at once
+     * whatever the audience size; {@link BroadcastJobRunner} fans out in the
+     * background, one chunk of users at a time (see {@link #sendBroadcastChunk}).
      */
     @Transactional
     public UUID sendDirectNotifications(DirectNotificationSendRequest request, UUID sentBy) {
-        log.info("Sending direct notifications to {} users via {} channels",
+        log.info("Queueing direct notifications to {} users via {} channels",
             request.getTargetUserIds().size(), request.getChannels());
 
-        // Create broadcast record
         BroadcastRecord broadcast = createBroadcastRecord(
             null, // no template
             request.getTitle(),
@@ -225,111 +261,196 @@ public class NotificationService {
             request.getChannels(),
             request.getTargetUserIds().size(),
             sentBy,
-            request.getMetadata()
+            request.getMetadata(),
+            request.getTargetUserIds(),
+            null
         );
+        eventPublisher.publishEvent(new BroadcastQueuedEvent(broadcast.getId()));
 
+        return broadcast.getId();
+    }
+    
+    /**
+     * Fan a broadcast job out to one chunk of its audience, starting at the job's checkpoint.
+     * The chunk commits on its own, together with the advanced checkpoint and its counts,
+     * so a resumed job neither skips nor repeats recipients and the progress shown always
+     * matches what was committed. Template broadcasts are personalized per recipient.
+     * A recipient with unusable data is counted as failed and the chunk goes on, but a
+     * database error aborts the transaction, so it fails the whole chunk; the runner then
+     * redoes the chunk one recipient at a time (see {@link BroadcastJobRunner}).
+     *
+     * @throws BroadcastLeaseLostException if the job was taken over meanwhile; the chunk rolls back
+     */
+    @Transactional
+    public void sendBroadcastChunk(BroadcastRecord broadcast, int checkpoint, List<UUID> userIds,
+                                   Instant leaseUntil) {
+        List<NotificationChannel> channels = broadcast.getChannels();
+        boolean fromTemplate = broadcast.getTemplateId() != null;
         int successCount = 0;
         int failureCount = 0;
 
-        for (UUID userId : request.getTargetUserIds()) {
+        // User data is fetched from BFF concurrently and arrives in order
+        for (BffUserLookup.UserLookup lookup : userLookup.resolve(userIds)) {
+            UUID userId = lookup.userId();
             try {
-                // Fetch user data from BFF
-                UserPublicDataDto userData = bffClientService.getUserPublicData(userId);
+                UserPublicDataDto userData = lookup.getOrThrow();
                 
                 // Validate that email exists for email channel
-                if (request.getChannels().contains(NotificationChannel.EMAIL) && 
+                if (channels.contains(NotificationChannel.EMAIL) && 
                     (userData.getEmail() == null || userData.getEmail().isBlank())) {
                     log.warn("User {} has no email address, skipping email notification", userId);
-                    failureCount += (int) request.getChannels().stream()
+                    failureCount += (int) channels.stream()
                         .filter(ch -> ch == NotificationChannel.EMAIL)
                         .count();
                 }
                 
-                for (NotificationChannel channel : request.getChannels()) {
+                // Replace placeholders in content
+                String personalizedContent = fromTemplate
+                    ? replacePlaceholders(broadcast.getBody(), broadcast.getMetadata(), userData)
+                    : null;
+                
+                for (NotificationChannel channel : channels) {
                     try {
                         // Skip email channel if no email address
                         if (channel == NotificationChannel.EMAIL && 
                             (userData.getEmail() == null || userData.getEmail().isBlank())) {
                             continue;
                         }
-                        createDirectNotification(userId, userData.getEmail(), channel, request, userData, broadcast.getId());
+                        if (channel == NotificationChannel.WHATSAPP && 
+                            (userData.getWhatsappNumber() == null || userData.getWhatsappNumber().isBlank())) {
+                            log.warn("User {} has no WhatsApp number, skipping WhatsApp notification", userId);
+                            failureCount++;
+                            continue;
+                        }
+                        if (fromTemplate) {
+                            createTemplateNotification(userId, userData.getEmail(), userData.getWhatsappNumber(),
+                                channel, broadcast.getTitle(), personalizedContent, broadcast.getId());
+                        } else {
+                            createDirectNotification(userId, userData.getEmail(), channel, broadcast, userData);
+                        }
                         successCount++;
+                    } catch (DataAccessException e) {
+                        throw e;
                     } catch (Exception e) {
                         log.error("Failed to create notification for user {} channel {}", userId, channel, e);
                         failureCount++;
                     }
                 }
+            } catch (DataAccessException e) {
+                throw e;
             } catch (Exception e) {
                 log.error("Failed to fetch user data for user {}", userId, e);
-                failureCount += request.getChannels().size();
+                failureCount += channels.size();
             }
         }
         
-        // Update broadcast stats
-        updateBroadcastStats(broadcast, successCount, failureCount);
-        
-        return broadcast.getId();
+        int advanced = broadcastRepository.advanceCheckpoint(broadcast.getId(), broadcast.getClaimedBy(),
+            checkpoint, userIds.size(), successCount, failureCount, leaseUntil);
+        if (advanced == 0) {
+            throw new BroadcastLeaseLostException("Broadcast job " + broadcast.getId()
+                + " is no longer held by " + broadcast.getClaimedBy() + " at checkpoint " + checkpoint);
+        }
+    }
+    
+    /**
+     * Count one recipient of a broadcast job as failed on all its channels and move the
+     * checkpoint past it. Used for a recipient whose own chunk could not be committed.
+     *
+     * @throws BroadcastLeaseLostException if the job was taken over meanwhile
+     */
+    @Transactional
+    public void skipBroadcastRecipient(BroadcastRecord broadcast, int checkpoint, Instant leaseUntil) {
+        int failureCount = broadcast.getTargetEmails() == null
+            ? broadcast.getChannels().size()
+            : broadcast.getChannels().contains(NotificationChannel.EMAIL) ? 1 : 0;
+        int advanced = broadcastRepository.advanceCheckpoint(broadcast.getId(), broadcast.getClaimedBy(),
+            checkpoint, 1, 0, failureCount, leaseUntil);
+        if (advanced == 0) {
+            throw new BroadcastLeaseLostException("Broadcast job " + broadcast.getId()
+                + " is no longer held by " + broadcast.getClaimedBy() + " at checkpoint " + checkpoint);
+        }
     }
     
     /**
-     * Send direct notifications by email addresses.
+     * Queue a send to email addresses as a broadcast job, like {@link #sendDirectNotifications}.
      * Note: IN_APP notifications are not supported when sending by email only,
      * as we don't have user IDs. EMAIL channel is the primary use case.
+     * Nothing is sent in the request: {@link BroadcastJobRunner} enqueues the addresses
+     * chunk by chunk (see {@link #sendBroadcastEmailChunk}), and the outbox delivers,
+     * defers and retries them like any other email.
      */
     @Transactional
     public UUID sendDirectNotificationsByEmail(DirectNotificationSendByEmailRequest request, UUID sentBy) {
-        log.info("Sending direct notifications to {} email addresses via {} channels",
+        log.info("Queueing direct notifications to {} email addresses via {} channels",
             request.getTargetEmails().size(), request.getChannels());
 
-        // Validate channels - only EMAIL is truly supported for email-only sends
-        if (request.getChannels().contains(NotificationChannel.IN_APP) || 
-            request.getChannels().contains(NotificationChannel.WHATSAPP)) {
+        // Only EMAIL can reach a bare address; any other channel would be stored and never sent
+        if (request.getChannels().stream().anyMatch(channel -> channel != NotificationChannel.EMAIL)) {
             throw new ValidationException("Only EMAIL channel is supported when sending by email addresses. " +
-                "For IN_APP or WHATSAPP channels, use the /send endpoint with user IDs.");
+                "For other channels, use the /send endpoint with user IDs.");
         }
 
-        // Create broadcast record
+        // An address listed twice would get two outbox entries and be sent twice
+        List<String> targetEmails = request.getTargetEmails().stream()
+            .map(email -> email.trim().toLowerCase(Locale.ROOT))
+            .distinct()
+            .toList();
+
         BroadcastRecord broadcast = createBroadcastRecord(
             null, // no template
             request.getTitle(),
             request.getBody(),
             request.getChannels(),
-            request.getTargetEmails().size(),
+            targetEmails.size(),
             sentBy,
-            request.getMetadata()
+            request.getMetadata(),
+            null,
+            targetEmails
         );
+        eventPublisher.publishEvent(new BroadcastQueuedEvent(broadcast.getId()));
 
+        return broadcast.getId();
+    }
+    
+    /**
+     * Enqueue one chunk of a send by email address, starting at the job's checkpoint.
+     * Without a user there is no notification row: each address gets an EMAIL outbox
+     * entry carrying the broadcast's content, and a notification id derived from the
+     * broadcast and the address. Addresses were de-duplicated when the job was queued.
+     *
+     * @throws BroadcastLeaseLostException if the job was taken over meanwhile; the chunk rolls back
+     */
+    @Transactional
+    public void sendBroadcastEmailChunk(BroadcastRecord broadcast, int checkpoint, List<String> emails,
+                                        Instant leaseUntil) {
         int successCount = 0;
-        int failureCount = 0;
-
-        for (String email : request.getTargetEmails()) {
-            try {
-                for (NotificationChannel channel : request.getChannels()) {
-                    try {
-                        if (channel == NotificationChannel.EMAIL) {
-                            createDirectNotificationByEmail(email, request, broadcast.getId());
-                            successCount++;
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to create notification for email {} channel {}", email, channel, e);
-                        failureCount++;
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Failed to process email {}", email, e);
-                failureCount += request.getChannels().size();
+        if (broadcast.getChannels().contains(NotificationChannel.EMAIL)) {
+            Instant now = Instant.now();
+            for (String email : emails) {
+                Notification notification = new Notification();
+                notification.setId(emailRecipientId(broadcast.getId(), email));
+                notification.setChannel(NotificationChannel.EMAIL);
+                notification.setTitle(broadcast.getTitle());
+                notification.setBody(broadcast.getBody());
+                notification.setBroadcastId(broadcast.getId());
+                notification.setCreatedAt(now);
+                enqueueOutboxEntry(notification, email, null, null, DeliveryPriority.BULK);
+                successCount++;
             }
         }
-        
-        // Update broadcast stats
-        updateBroadcastStats(broadcast, successCount, failureCount);
-        
-        return broadcast.getId();
+
+        int advanced = broadcastRepository.advanceCheckpoint(broadcast.getId(), broadcast.getClaimedBy(),
+            checkpoint, emails.size(), successCount, 0, leaseUntil);
+        if (advanced == 0) {
+            throw new BroadcastLeaseLostException("Broadcast job " + broadcast.getId()
+                + " is no longer held by " + broadcast.getClaimedBy() + " at checkpoint " + checkpoint);
+        }
     }
     
     /**
-     * Send notifications using a template.
-     * Supports placeholder replacement for personalized templates.
+     * Queue a template send as a broadcast job.
+     * The template is checked here; placeholders are replaced per recipient when
+     * {@link BroadcastJobRunner} works through the audience in chunks.
      */
     @Transactional
     public UUID sendFromTemplate(SendFromTemplateRequest request, UUID sentBy) {
@@ -346,7 +467,7 @@ public class NotificationService {
             throw new ValidationException("No channels specified for template-based send");
         }
 
-        log.info("Sending notifications from template {} to {} users via {} channels",
+        log.info("Queueing notifications from template {} to {} users via {} channels",
             template.getTemplateName(), request.getTargetUserIds().size(), channels);
 
         // Use English content as default (can be enhanced to support language selection)
@@ -366,63 +487,23 @@ public class NotificationService {
             channels,
             request.getTargetUserIds().size(),
             sentBy,
-            request.getPlaceholderData()
+            request.getPlaceholderData(),
+            request.getTargetUserIds(),
+            null
         );
-
-        int successCount = 0;
-        int failureCount = 0;
-
-        for (UUID userId : request.getTargetUserIds()) {
-            try {
-                // Fetch user data from BFF
-                UserPublicDataDto userData = bffClientService.getUserPublicData(userId);
-                
-                // Validate that email exists for email channel
-                if (channels.contains(NotificationChannel.EMAIL) && 
-                    (userData.getEmail() == null || userData.getEmail().isBlank())) {
-                    log.warn("User {} has no email address, skipping email notification", userId);
-                    failureCount += (int) channels.stream()
-                        .filter(ch -> ch == NotificationChannel.EMAIL)
-                        .count();
-                }
-                
-                // Replace placeholders in content
-                String personalizedContent = replacePlaceholders(contentTemplate, request.getPlaceholderData(), userData);
-                
-                for (NotificationChannel channel : channels) {
-                    try {
-                        // Skip email channel if no email address
-                        if (channel == NotificationChannel.EMAIL && 
-                            (userData.getEmail() == null || userData.getEmail().isBlank())) {
-                            continue;
-                        }
-                        createTemplateNotification(userId, userData.getEmail(), channel, template.getTemplateName(), personalizedContent, broadcast.getId());
-                        successCount++;
-                    } catch (Exception e) {
-                        log.error("Failed to create template notification for user {} channel {}", 
-                            userId, channel, e);
-                        failureCount++;
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Failed to fetch user data for user {}", userId, e);
-                failureCount += channels.size();
-            }
-        }
-        
-        // Update broadcast and template stats
-        updateBroadcastStats(broadcast, successCount, failureCount);
         incrementTemplateSentTimes(template);
+        eventPublisher.publishEvent(new BroadcastQueuedEvent(broadcast.getId()));
         
         return broadcast.getId();
     }
     
     /**
-     * Create a broadcast record.
+     * Create a broadcast record. With target users or email addresses it is queued as a job for the runner.
      */
     private BroadcastRecord createBroadcastRecord(UUID templateId, String title, String body,
                                                   List<NotificationChannel> channels, int recipientCount,
-                                                  UUID sentBy, Map<String, Object> metadata) {
+                                                  UUID sentBy, Map<String, Object> metadata,
+                                                  List<UUID> targetUserIds, List<String> targetEmails) {
         BroadcastRecord broadcast = new BroadcastRecord();
         broadcast.setTemplateId(templateId);
         broadcast.setTitle(title);
@@ -434,6 +515,13 @@ public class NotificationService {
         broadcast.setSentBy(sentBy);
         broadcast.setSentAt(Instant.now());
         broadcast.setMetadata(metadata);
+        if (targetUserIds != null) {
+            broadcast.setStatus(BroadcastStatus.QUEUED);
+            broadcast.setTargetUserIds(List.copyOf(targetUserIds));
+        } else if (targetEmails != null) {
+            broadcast.setStatus(BroadcastStatus.QUEUED);
+            broadcast.setTargetEmails(List.copyOf(targetEmails));
+        }
         
         broadcast = broadcastRepository.save(broadcast);
         log.info("Created broadcast record: {} for {} recipients", broadcast.getId(), recipientCount);
@@ -441,17 +529,6 @@ public class NotificationService {
         return broadcast;
     }
     
-    /**
-     * Update broadcast statistics.
-     */
-    private void updateBroadcastStats(BroadcastRecord broadcast, int successCount, int failureCount) {
-        broadcast.setSuccessCount(successCount);
-        broadcast.setFailureCount(failureCount);
-        broadcastRepository.save(broadcast);
-        log.debug("Updated broadcast {} stats: success={}, failure={}", 
-            broadcast.getId(), successCount, failureCount);
-    }
-    
     /**
      * Increment template sent times.
      */
@@ -525,8 +602,8 @@ public class NotificationService {
      * Create a notification from a template.
      * If body contains HTML tags, sends as HTML email.
      */
-    private void createTemplateNotification(UUID userId, String userEmail, NotificationChannel channel, 
-                                           String title, String body, UUID broadcastId) {
+    private void createTemplateNotification(UUID userId, String userEmail, String whatsappNumber,
+                                           NotificationChannel channel, String title, String body, UUID broadcastId) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setChannel(channel);
@@ -538,7 +615,8 @@ public class NotificationService {
         
         notificationRepository.save(notification);
         if (channel != NotificationChannel.IN_APP) {
-            enqueueOutbox(notification, userEmail);
+            enqueueOutbox(notification, userEmail, whatsappNumber, NotificationEventType.ADMIN_BROADCAST,
+                DeliveryPriority.BULK);
         }
     }
     
@@ -572,7 +650,8 @@ public class NotificationService {
         notificationRepository.save(notification);
         if (channel != NotificationChannel.IN_APP) {
             // enqueue to outbox for async delivery
-            enqueueOutbox(notification, userData.getEmail());
+            enqueueOutbox(notification, userData.getEmail(), userData.getWhatsappNumber(),
+                request.getEventType(), getPriorityForEventType(request.getEventType()));
         }
     }
     
@@ -580,52 +659,36 @@ public class NotificationService {
      * Create a direct ad-hoc notification for a user and channel.
      */
     private void createDirectNotification(UUID userId, String userEmail, NotificationChannel channel, 
-                                         DirectNotificationSendRequest request, UserPublicDataDto userData, UUID broadcastId) {
+                                         BroadcastRecord broadcast, UserPublicDataDto userData) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setChannel(channel);
         
         // Replace placeholders in title and body with actual user data
-        String title = replacePlaceholders(request.getTitle(), request.getMetadata(), userData);
-        String body = replacePlaceholders(request.getBody(), request.getMetadata(), userData);
+        String title = replacePlaceholders(broadcast.getTitle(), broadcast.getMetadata(), userData);
+        String body = replacePlaceholders(broadcast.getBody(), broadcast.getMetadata(), userData);
         
         notification.setTitle(title);
         notification.setBody(body);
-        notification.setMetadata(request.getMetadata());
+        notification.setMetadata(broadcast.getMetadata());
         notification.setDeliveryStatus(DeliveryStatus.PENDING);
         notification.setRead(false);
-        notification.setBroadcastId(broadcastId);
+        notification.setBroadcastId(broadcast.getId());
         
         notificationRepository.save(notification);
         if (channel != NotificationChannel.IN_APP) {
             // enqueue to outbox for async delivery
-            enqueueOutbox(notification, userEmail);
+            enqueueOutbox(notification, userEmail, userData.getWhatsappNumber(), NotificationEventType.ADMIN_BROADCAST,
+                DeliveryPriority.BULK);
         }
     }
     
     /**
-     * Create a direct notification by email address only.
-     * Since we don't have a user ID, we skip saving to notifications table
-     * and directly send via email service (no outbox, immediate delivery).
-     * Automatically detects HTML content and sends as rich text when appropriate.
+     * Stable id of a broadcast's copy to one email address, used in place of a notification id.
      */
-    private void createDirectNotificationByEmail(String email, DirectNotificationSendByEmailRequest request, UUID broadcastId) {
-        // Skip saving to notifications table since user_id is required
-        // Directly send email without outbox processing
-        try {
-            // Detect if body contains HTML tags
-            boolean isHtml = request.getBody() != null && request.getBody().matches("(?i).*<[a-z].*>.*");
-            
-            if (isHtml) {
-                emailService.sendHtmlEmail(email, request.getTitle(), request.getBody());
-            } else {
-                emailService.sendEmail(email, request.getTitle(), request.getBody());
-            }
-            log.info("Sent email directly to {}", email);
-        } catch (Exception e) {
-            log.error("Failed to send email to {}", email, e);
-            throw e;
-        }
+    static UUID emailRecipientId(UUID broadcastId, String email) {
+        return UUID.nameUUIDFromBytes(("broadcast-email:" + broadcastId + ":" + email.trim().toLowerCase(Locale.ROOT))
+            .getBytes(StandardCharsets.UTF_8));
     }
     
     /**
@@ -679,6 +742,7 @@ public class NotificationService {
     
     /**
      * Default channels per event type.
+     * PUSH is never a default; events that should reach devices list it in their channels.
      */
     private List<NotificationChannel> getDefaultChannelsForEventType(
         dopaminelite.notifications.entity.enums.NotificationEventType eventType
@@ -695,37 +759,32 @@ public class NotificationService {
     }
     
     /**
-     * Deliver via external providers (stub).
-     * Automatically detects HTML content and sends as rich text when appropriate.
-     * TODO: Integrate email/WhatsApp providers; update outbox status.
+     * Claiming lane per event type. Admin broadcasts go out in bulk; every other
+     * event concerns one user and should arrive promptly.
+     */
+    private DeliveryPriority getPriorityForEventType(
+        dopaminelite.notifications.entity.enums.NotificationEventType eventType
+    ) {
+        return switch (eventType) {
+            case ADMIN_BROADCAST -> DeliveryPriority.BULK;
+            case PAYMENT_STATUS_CHANGED, ISSUE_STATUS_CHANGED, ISSUE_MESSAGE_NEW,
+                 STUDENT_VERIFIED, STUDENT_REGISTERED -> DeliveryPriority.TRANSACTIONAL;
+        };
+    }
+
+    /**
+     * Deliver synchronously through the channel's {@link ChannelDeliverer}.
+     * IN_APP notifications have nothing to send and are marked SENT.
      */
     public void deliverNotification(Notification notification, String recipientEmail) {
-        // TODO: Implement actual delivery logic for EMAIL and WHATSAPP
-        // This would integrate with email service (e.g., SendGrid, AWS SES)
-        // and WhatsApp service (e.g., Twilio, WhatsApp Business API)
-        
         log.info("Delivering notification {} via {}", 
             notification.getId(), notification.getChannel());
         
         try {
-            switch (notification.getChannel()) {
-                case EMAIL:
-                    // Detect if body contains HTML tags
-                    boolean isHtml = notification.getBody() != null && 
-                        notification.getBody().matches("(?i).*<[a-z].*>.*");
-                    
-                    if (isHtml) {
-                        emailService.sendHtmlEmail(recipientEmail, notification.getTitle(), notification.getBody());
-                    } else {
-                        emailService.sendEmail(recipientEmail, notification.getTitle(), notification.getBody());
-                    }
-                    break;
-                case WHATSAPP:
-                    // TODO: Integrate WhatsApp provider
-                    log.info("WhatsApp delivery stub for user {}", notification.getUserId());
-                    break;
-                default:
-                    break;
+            if (channelDeliverers.supports(notification.getChannel())) {
+                channelDeliverers.forChannel(notification.getChannel())
+                    .deliver(notification, recipientEmail)
+                    .join();
             }
             
             notification.setDeliveryStatus(DeliveryStatus.SENT);
@@ -739,18 +798,52 @@ public class NotificationService {
 
     /**
      * Enqueue a delivery record into delivery_outbox for async processing.
-     * The worker will pick it up and handle retries.
+     * The worker is woken via NOTIFY once the transaction commits and handles retries.
+     * A WEBHOOK notification gets one record per active subscription to its event type,
+     * so each endpoint only sees what it subscribed to and is retried on its own.
+     * Broadcasts and direct sends count as {@link NotificationEventType#ADMIN_BROADCAST}.
      */
-    private void enqueueOutbox(Notification notification, String recipientEmail) {
+    private void enqueueOutbox(Notification notification, String recipientEmail, String recipientPhone,
+                               NotificationEventType eventType, DeliveryPriority priority) {
+        if (notification.getChannel() == NotificationChannel.WEBHOOK) {
+            List<WebhookSubscription> subscriptions = webhookSubscriptionService.findActive(eventType);
+            if (subscriptions.isEmpty()) {
+                log.warn("No webhook subscriptions to {} for notification {}", eventType, notification.getId());
+                notification.setDeliveryStatus(DeliveryStatus.FAILED);
+                notificationRepository.save(notification);
+                return;
+            }
+            for (WebhookSubscription subscription : subscriptions) {
+                enqueueOutboxEntry(notification, null, null, subscription.getId(), priority);
+            }
+            return;
+        }
+        enqueueOutboxEntry(notification, recipientEmail, recipientPhone, null, priority);
+    }
+
+    private void enqueueOutboxEntry(Notification notification, String recipientEmail, String recipientPhone,
+                                    UUID webhookId, DeliveryPriority priority) {
         DeliveryOutbox outbox = new DeliveryOutbox();
         outbox.setNotificationId(notification.getId());
         outbox.setChannel(notification.getChannel());
+        outbox.setDeliveryKey(webhookId != null
+            ? IdempotencyService.deliveryKey(notification.getId(), notification.getChannel(), webhookId)
+            : IdempotencyService.deliveryKey(notification.getId(), notification.getChannel()));
         outbox.setRecipientEmail(recipientEmail);
+        outbox.setRecipientPhone(recipientPhone);
+        outbox.setWebhookId(webhookId);
+        outbox.setPriority(priority);
         outbox.setStatus(DeliveryStatus.PENDING);
         outbox.setRetryCount(0);
         outbox.setMaxRetries(3);
         outbox.setNextRetryAt(Instant.now());
+        outbox.setUserId(notification.getUserId());
+        outbox.setNotificationCreatedAt(notification.getCreatedAt());
+        outbox.setBroadcastId(notification.getBroadcastId());
+        outbox.setTitle(notification.getTitle());
+        outbox.setBody(notification.getBody());
         deliveryOutboxRepository.save(outbox);
+        outboxNotifier.notifyEnqueued();
         log.debug("Enqueued outbox entry for notification {} via {}", notification.getId(), notification.getChannel());
     }
     
@@ -0,0 +1,157 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.DeliveryOutbox;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
+import dopaminelite.notifications.entity.enums.DeliveryStatus;
+import dopaminelite.notifications.repository.DeliveryOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Leases bounded batches of outbox entries to this worker instance.
+ *
+ * Claiming runs in its own short transaction: due rows are locked with
+ * FOR UPDATE SKIP LOCKED, moved to IN_FLIGHT with claimed_by/lease_until and a
+ * fresh attempt id, and committed before any delivery starts. Other replicas
+ * skip in-flight rows, so N workers can drain the outbox in parallel.
+ *
+ * The worker heartbeats the lease while it delivers. If it dies or stalls, the
+ * lease runs out and the reaper returns the entries to the queue; results
+ * written later under the old attempt id are fenced off.
+ *
+ * Each batch is shared between the TRANSACTIONAL and BULK lanes by weight, so a
+ * large broadcast cannot hold back event notifications. A lane that has less
+ * due than its share leaves the rest of the batch to the other lane.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxClaimService {
+
+    private final DeliveryOutboxRepository outboxRepository;
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    @Value("${notifications.outbox.worker-id:notifications}")
+    private String workerIdPrefix;
+
+    @Value("${notifications.outbox.lease-duration:2m}")
+    private Duration leaseDuration;
+
+    @Value("${notifications.outbox.priority.transactional-weight:4}")
+    private int transactionalWeight = 4;
+
+    @Value("${notifications.outbox.priority.bulk-weight:1}")
+    private int bulkWeight = 1;
+
+    /**
+     * Claim up to {@code batchSize} due entries for this worker.
+     *
+     * @return the leased entries (detached), or an empty list if nothing is due
+     */
+    @Transactional
+    public List<DeliveryOutbox> claimBatch(int batchSize) {
+        Instant now = Instant.now();
+        String workerId = getWorkerId();
+        Instant leaseUntil = now.plus(leaseDuration);
+        UUID attemptId = UUID.randomUUID();
+
+        int transactionalShare = transactionalShare(batchSize);
+        List<DeliveryOutbox> claimed = new ArrayList<>(batchSize);
+        claimLane(DeliveryPriority.TRANSACTIONAL, transactionalShare, now, workerId, leaseUntil, attemptId, claimed);
+        claimLane(DeliveryPriority.BULK, batchSize - claimed.size(), now, workerId, leaseUntil, attemptId, claimed);
+        // Bulk had less than its share due: hand the rest back to transactional
+        claimLane(DeliveryPriority.TRANSACTIONAL, batchSize - claimed.size(), now, workerId, leaseUntil, attemptId,
+            claimed);
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+
+        log.debug("Worker {} claimed {} outbox entries until {} (attempt {})",
+            workerId, claimed.size(), leaseUntil, attemptId);
+        return claimed;
+    }
+
+    /**
+     * Lock and lease up to {@code limit} due entries of one lane. Leased rows are
+     * IN_FLIGHT within this transaction, so a later pass over the same lane skips them.
+     */
+    private void claimLane(DeliveryPriority priority, int limit, Instant now, String workerId,
+                           Instant leaseUntil, UUID attemptId, List<DeliveryOutbox> claimed) {
+        if (limit <= 0) {
+            return;
+        }
+        List<DeliveryOutbox> locked = outboxRepository.lockClaimable(priority.name(), now, limit);
+        if (locked.isEmpty()) {
+            return;
+        }
+        outboxRepository.lease(locked.stream().map(DeliveryOutbox::getId).toList(),
+            DeliveryStatus.IN_FLIGHT, workerId, leaseUntil, attemptId);
+
+        // The detached entities keep their pre-claim status, which is what a
+        // deferred entry goes back to
+        for (DeliveryOutbox outbox : locked) {
+            outbox.setClaimedBy(workerId);
+            outbox.setLeaseUntil(leaseUntil);
+            outbox.setAttemptId(attemptId);
+        }
+        claimed.addAll(locked);
+    }
+
+    /**
+     * Slots of a batch reserved for the transactional lane; at least one each when both weigh in.
+     */
+    int transactionalShare(int batchSize) {
+        int total = Math.max(1, transactionalWeight + bulkWeight);
+        int share = (int) Math.ceil((double) batchSize * Math.max(0, transactionalWeight) / total);
+        if (bulkWeight > 0 && batchSize > 1) {
+            share = Math.min(share, batchSize - 1);
+        }
+        return Math.max(transactionalWeight > 0 ? 1 : 0, share);
+    }
+
+    /**
+     * Extend the lease of an attempt's entries that are still in flight.
+     *
+     * @return number of entries still held by the attempt
+     */
+    @Transactional
+    public int extendLease(UUID attemptId) {
+        return outboxRepository.extendLease(attemptId, DeliveryStatus.IN_FLIGHT, Instant.now().plus(leaseDuration));
+    }
+
+    /**
+     * Return in-flight entries with expired leases to the queue. Entries that
+     * thereby run out of retries are moved to the dead-letter table.
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.reaper-interval-ms:30000}")
+    @Transactional
+    public int reapExpiredLeases() {
+        int reaped = outboxRepository.reapExpiredLeases(Instant.now());
+        if (reaped > 0) {
+            log.warn("Recovered {} outbox entries whose in-flight lease expired", reaped);
+            int deadLettered = outboxRepository.moveExhaustedToDeadLetters();
+            if (deadLettered > 0) {
+                log.warn("Moved {} exhausted outbox entries to dead letters", deadLettered);
+            }
+        }
+        return reaped;
+    }
+
+    /**
+     * Identifier written to claimed_by; unique per running instance.
+     */
+    public String getWorkerId() {
+        return workerIdPrefix + "-" + instanceId;
+    }
+}
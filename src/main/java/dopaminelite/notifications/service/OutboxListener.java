@@ -0,0 +1,100 @@
+package dopaminelite.notifications.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Holds a dedicated connection that LISTENs on the outbox channel and wakes the
+ * {@link OutboxWorker} as soon as new entries are committed.
+ *
+ * The connection is borrowed from the pool for the lifetime of the application.
+ * If it drops, the listener reconnects with a short backoff; the worker's
+ * scheduled sweep covers anything enqueued in the meantime.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxListener implements SmartLifecycle {
+
+    private static final int POLL_TIMEOUT_MS = 10000;
+    private static final long RECONNECT_BACKOFF_MS = 5000;
+
+    private final DataSource dataSource;
+    private final OutboxWorker outboxWorker;
+
+    @Value("${notifications.outbox.listen.enabled:true}")
+    private boolean enabled;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Outbox LISTEN disabled; relying on scheduled polling only");
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform()
+            .name("outbox-listener")
+            .daemon(true)
+            .start(this::listenLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + OutboxNotifier.CHANNEL);
+                }
+                log.info("Listening for outbox notifications on channel {}", OutboxNotifier.CHANNEL);
+
+                // Catch up on anything committed while we were not listening
+                outboxWorker.wakeUp();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        outboxWorker.wakeUp();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Outbox listener connection lost, reconnecting in {} ms: {}",
+                    RECONNECT_BACKOFF_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+}
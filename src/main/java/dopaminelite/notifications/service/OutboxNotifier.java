@@ -0,0 +1,69 @@
+package dopaminelite.notifications.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Signals outbox workers that new entries were enqueued, using Postgres NOTIFY.
+ *
+ * Inside a transaction a single NOTIFY is issued just before commit; Postgres
+ * only delivers it once the transaction commits, so listeners never wake up
+ * for rows they cannot see yet and a broadcast enqueueing thousands of rows
+ * still sends one notification. The NOTIFY runs on the transaction's own
+ * connection, so if it fails Postgres aborts the transaction and the enqueue
+ * fails with it rather than being committed without a wake-up.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxNotifier {
+
+    /**
+     * Postgres channel the outbox listener subscribes to.
+     */
+    public static final String CHANNEL = "delivery_outbox";
+
+    private static final Object SYNCHRONIZATION_KEY = OutboxNotifier.class.getName() + ".registered";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Request a wake-up of outbox workers for the current transaction.
+     * Without an active transaction the notification is sent immediately;
+     * inside one, a failed NOTIFY makes the commit fail.
+     */
+    public void notifyEnqueued() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyNow();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(SYNCHRONIZATION_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(SYNCHRONIZATION_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                jdbcTemplate.execute("NOTIFY " + CHANNEL);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SYNCHRONIZATION_KEY);
+            }
+        });
+    }
+
+    private void notifyNow() {
+        try {
+            jdbcTemplate.execute("NOTIFY " + CHANNEL);
+        } catch (Exception e) {
+            // Outside a transaction the entries are already stored; the polling sweep still picks them up.
+            log.warn("Failed to send outbox NOTIFY: {}", e.getMessage());
+        }
+    }
+}
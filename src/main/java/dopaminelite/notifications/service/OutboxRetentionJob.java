@@ -0,0 +1,214 @@
+package dopaminelite.notifications.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of delivery_outbox.
+ *
+ * Upcoming months are created ahead of time; there is no default partition,
+ * so an insert can only succeed while its month exists. Once a month is older
+ * than the SENT retention and every entry in it has been sent, the partition is
+ * detached concurrently (claims keep running) and dropped, or kept as a
+ * standalone archive table. Entries keep their original created_at; a month
+ * with entries still queued simply waits for a later run. Purging history is a
+ * metadata operation rather than a DELETE, and claims only ever scan the
+ * indexes of live months.
+ */
+@Slf4j
+@Component
+public class OutboxRetentionJob {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^delivery_outbox_(\\d{4})_(\\d{2})$");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String RETENTION_LOCK = "delivery_outbox:retention";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int premakeMonths;
+    private final Duration sentRetention;
+    private final boolean archive;
+    private final Clock clock;
+
+    public OutboxRetentionJob(JdbcTemplate jdbcTemplate,
+                              @Value("${notifications.outbox.retention.premake-months:3}") int premakeMonths,
+                              @Value("${notifications.outbox.retention.sent-retention:30d}") Duration sentRetention,
+                              @Value("${notifications.outbox.retention.archive:false}") boolean archive) {
+        this(jdbcTemplate, premakeMonths, sentRetention, archive, Clock.systemUTC());
+    }
+
+    OutboxRetentionJob(JdbcTemplate jdbcTemplate, int premakeMonths, Duration sentRetention, boolean archive, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.sentRetention = sentRetention;
+        this.archive = archive;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.retention.interval-ms:3600000}")
+    public void runMaintenance() {
+        createUpcomingPartitions();
+        purgeExpiredPartitions();
+    }
+
+    /**
+     * Create the partitions for the current month and the next premake-months.
+     *
+     * @return number of partitions created
+     */
+    public int createUpcomingPartitions() {
+        YearMonth current = YearMonth.now(clock);
+        int created = 0;
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (partitionExists(name)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF delivery_outbox FOR VALUES FROM ('%s') TO ('%s')",
+                    name, month.atDay(1), month.plusMonths(1).atDay(1)));
+                created++;
+                log.info("Created outbox partition {}", name);
+            } catch (DataAccessException e) {
+                // Another replica won the race
+                log.warn("Could not create outbox partition {}: {}", name, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Detach and drop (or archive) every monthly partition past the SENT retention
+     * that holds nothing but SENT rows. A month with entries still queued or in
+     * flight is left alone and picked up by a later run once they have settled.
+     *
+     * @return number of partitions removed from delivery_outbox
+     */
+    public int purgeExpiredPartitions() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(sentRetention);
+        Integer purged = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            // DETACH ... CONCURRENTLY cannot run inside a transaction block
+            connection.setAutoCommit(true);
+            SingleConnectionDataSource single = new SingleConnectionDataSource(connection, true);
+            JdbcTemplate session = new JdbcTemplate(single);
+            Boolean locked = session.queryForObject(
+                "SELECT pg_try_advisory_lock(hashtext(?))", Boolean.class, RETENTION_LOCK);
+            if (!Boolean.TRUE.equals(locked)) {
+                return 0;
+            }
+            try {
+                session.execute("SET lock_timeout = '5s'");
+                int count = 0;
+                for (Partition partition : listMonthlyPartitions(session)) {
+                    YearMonth month = parseMonth(partition.name());
+                    LocalDateTime upperBound = month.plusMonths(1).atDay(1).atStartOfDay();
+                    if (upperBound.isAfter(cutoff)) {
+                        continue;
+                    }
+                    try {
+                        if (purge(session, partition, month)) {
+                            count++;
+                        }
+                    } catch (DataAccessException e) {
+                        log.warn("Could not purge outbox partition {}: {}", partition.name(), e.getMessage());
+                    }
+                }
+                return count;
+            } finally {
+                session.execute("RESET lock_timeout");
+                session.queryForObject("SELECT pg_advisory_unlock(hashtext(?))", Boolean.class, RETENTION_LOCK);
+            }
+        });
+        return purged != null ? purged : 0;
+    }
+
+    /**
+     * Detach a partition without blocking claims and drop or archive it, provided it only holds SENT rows.
+     * No row enters an expired month and SENT rows never change status, so the check before the
+     * detach holds; it is repeated afterwards and the partition re-attached if it does not.
+     */
+    private boolean purge(JdbcTemplate session, Partition partition, YearMonth month) {
+        String name = partition.name();
+        if (partition.detachPending()) {
+            // An earlier concurrent detach was interrupted; it can only be completed
+            session.execute("ALTER TABLE delivery_outbox DETACH PARTITION " + name + " FINALIZE");
+        } else {
+            if (holdsUndelivered(session, name)) {
+                log.info("Keeping outbox partition {} until its undelivered entries have settled", name);
+                return false;
+            }
+            session.execute("ALTER TABLE delivery_outbox DETACH PARTITION " + name + " CONCURRENTLY");
+        }
+
+        if (holdsUndelivered(session, name)) {
+            session.execute(String.format(
+                "ALTER TABLE delivery_outbox ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                name, month.atDay(1), month.plusMonths(1).atDay(1)));
+            log.warn("Re-attached outbox partition {}: it still holds undelivered entries", name);
+            return false;
+        }
+
+        if (archive) {
+            String archiveName = name.replace("delivery_outbox_", "delivery_outbox_archive_");
+            session.execute("ALTER TABLE " + name + " RENAME TO " + archiveName);
+            log.info("Archived outbox partition {} as {}", name, archiveName);
+        } else {
+            session.execute("DROP TABLE " + name);
+            log.info("Dropped outbox partition {}", name);
+        }
+        return true;
+    }
+
+    private static boolean holdsUndelivered(JdbcTemplate session, String name) {
+        return Boolean.TRUE.equals(session.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + name + " WHERE status <> 'SENT')", Boolean.class));
+    }
+
+    private static List<Partition> listMonthlyPartitions(JdbcTemplate session) {
+        return session.query(
+            "SELECT c.relname, i.inhdetachpending FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'delivery_outbox'::regclass ORDER BY c.relname",
+            (rs, rowNum) -> new Partition(rs.getString(1), rs.getBoolean(2))).stream()
+            .filter(partition -> PARTITION_NAME.matcher(partition.name()).matches())
+            .toList();
+    }
+
+    private boolean partitionExists(String name) {
+        Boolean exists = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'delivery_outbox'::regclass AND c.relname = ?)",
+            Boolean.class, name);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "delivery_outbox_" + month.format(SUFFIX);
+    }
+
+    private static YearMonth parseMonth(String name) {
+        Matcher matcher = PARTITION_NAME.matcher(name);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a monthly outbox partition: " + name);
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private record Partition(String name, boolean detachPending) {
+    }
+}
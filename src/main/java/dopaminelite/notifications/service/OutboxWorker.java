@@ -3,115 +3,396 @@ package dopaminelite.notifications.service;
 import dopaminelite.notifications.entity.DeliveryOutbox;
 import dopaminelite.notifications.entity.Notification;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
 import dopaminelite.notifications.entity.enums.DeliveryStatus;
-import dopaminelite.notifications.repository.DeliveryOutboxRepository;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
 import dopaminelite.notifications.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Scheduled worker to process pending deliveries from delivery_outbox.
  * Handles retries with exponential backoff.
+ * Entries are leased in bounded batches via {@link OutboxClaimService},
+ * so several replicas can run this worker concurrently without double-sending;
+ * the lease is heartbeated while a batch is in flight.
+ * Each batch is handed channel by channel to the {@link ChannelDeliverer}s, whose
+ * asynchronous deliveries run in parallel; their results are written back
+ * together by the {@link DeliveryResultWriter}.
+ * Entries carry a snapshot of their notification, so a batch needs no
+ * per-entry lookups; only legacy entries without one are fetched, in one query.
+ * New entries wake the worker immediately via {@link OutboxListener}; the
+ * scheduled run is only a fallback sweep.
+ * Emails are spread across recipient domains, so the budget of one slow domain
+ * (see {@link RecipientDomainThrottle}) defers only its own entries while the
+ * rest of a broadcast goes out at full speed.
+ * Entries whose delivery key is already recorded as sent are completed without
+ * sending again (see {@link IdempotencyService}).
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OutboxWorker {
 
-    private final DeliveryOutboxRepository outboxRepository;
     private final NotificationRepository notificationRepository;
-    private final EmailService emailService;
+    private final OutboxClaimService claimService;
+    private final ChannelDeliverers channelDeliverers;
+    private final DeliveryResultWriter resultWriter;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${notifications.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.heartbeat-interval:20s}")
+    private Duration heartbeatInterval = Duration.ofSeconds(20);
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
 
     /**
-     * Polls pending/failed outbox entries and attempts delivery.
-     * Runs every minute.
+     * Claims due outbox entries batch by batch and attempts delivery.
+     * Runs on a fallback schedule and on every wake-up, and keeps claiming until
+     * the backlog is drained. Concurrent calls are coalesced: if a drain is
+     * already in progress, it runs once more after finishing instead of overlapping.
      */
-    @Scheduled(fixedDelay = 60000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:60000}")
     public void processPending() {
-        List<DeliveryOutbox> pending = outboxRepository.findByStatusInAndNextRetryAtBefore(
-            List.of(DeliveryStatus.PENDING, DeliveryStatus.FAILED),
-            Instant.now()
-        );
-        if (pending.isEmpty()) return;
-        
-        log.info("OutboxWorker: processing {} pending deliveries", pending.size());
-        
-        for (DeliveryOutbox outbox : pending) {
-            processOutboxEntry(outbox);
+        wakeRequested.set(true);
+        while (wakeRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                wakeRequested.set(false);
+                drainOutbox();
+            } finally {
+                running.set(false);
+            }
         }
     }
 
-    private void processOutboxEntry(DeliveryOutbox outbox) {
-        Notification notification = notificationRepository.findById(outbox.getNotificationId())
-            .orElse(null);
-        if (notification == null) {
-            log.warn("Notification {} not found for outbox {}", outbox.getNotificationId(), outbox.getId());
-            outbox.setStatus(DeliveryStatus.FAILED);
-            outbox.setLastError("Notification not found");
-            outboxRepository.save(outbox);
-            return;
+    /**
+     * Trigger an asynchronous drain, e.g. after a NOTIFY from the listener.
+     */
+    public void wakeUp() {
+        Thread.ofVirtual().name("outbox-wakeup").start(this::processPending);
+    }
+
+    /**
+     * Not transactional: leases are committed by the claim, deliveries run
+     * without any open transaction, and each batch's results are flushed in one
+     * short transaction once all of its deliveries have finished.
+     */
+    private void drainOutbox() {
+        List<DeliveryOutbox> claimed;
+        do {
+            claimed = claimService.claimBatch(batchSize);
+            if (claimed.isEmpty()) return;
+
+            log.info("OutboxWorker: processing {} claimed deliveries", claimed.size());
+
+            // Keep the in-flight lease alive until the batch's results are written
+            UUID attemptId = claimed.get(0).getAttemptId();
+            Thread heartbeat = Thread.ofVirtual().name("outbox-heartbeat").start(() -> heartbeat(attemptId));
+            try {
+                Map<UUID, Notification> notifications = resolveNotifications(claimed);
+                Set<UUID> delivered = findDelivered(claimed);
+                BatchResults results = new BatchResults();
+                Map<NotificationChannel, List<DeliveryOutbox>> byChannel = new EnumMap<>(NotificationChannel.class);
+                for (DeliveryOutbox outbox : interleaveByDomain(claimed)) {
+                    Notification notification = notifications.get(outbox.getNotificationId());
+                    if (delivered.contains(outbox.getDeliveryKey())) {
+                        completeDuplicate(outbox, notification, results);
+                    } else if (notification == null) {
+                        failMissingNotification(outbox, results);
+                    } else {
+                        byChannel.computeIfAbsent(outbox.getChannel(), c -> new ArrayList<>()).add(outbox);
+                    }
+                }
+                List<CompletableFuture<Void>> deliveries = new ArrayList<>(claimed.size());
+                byChannel.forEach((channel, entries) ->
+                    deliveries.addAll(deliverChannel(channel, entries, notifications, results)));
+                CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
+
+                flush(results);
+            } finally {
+                heartbeat.interrupt();
+            }
+        } while (claimed.size() >= batchSize);
+    }
+
+    /**
+     * Reorder a batch round-robin over recipient domains, lane by lane, so the
+     * delivery slots are not all taken by the one domain that dominates a broadcast.
+     */
+    static List<DeliveryOutbox> interleaveByDomain(List<DeliveryOutbox> claimed) {
+        Map<DeliveryPriority, Map<String, ArrayDeque<DeliveryOutbox>>> lanes = new EnumMap<>(DeliveryPriority.class);
+        for (DeliveryOutbox outbox : claimed) {
+            String domain = RecipientDomainThrottle.domainOf(outbox.getRecipientEmail());
+            DeliveryPriority priority = outbox.getPriority() != null ? outbox.getPriority() : DeliveryPriority.TRANSACTIONAL;
+            lanes.computeIfAbsent(priority, p -> new LinkedHashMap<>())
+                .computeIfAbsent(domain != null ? domain : "", d -> new ArrayDeque<>())
+                .add(outbox);
+        }
+        List<DeliveryOutbox> ordered = new ArrayList<>(claimed.size());
+        for (Map<String, ArrayDeque<DeliveryOutbox>> byDomain : lanes.values()) {
+            while (!byDomain.isEmpty()) {
+                Iterator<ArrayDeque<DeliveryOutbox>> queues = byDomain.values().iterator();
+                while (queues.hasNext()) {
+                    ArrayDeque<DeliveryOutbox> queue = queues.next();
+                    ordered.add(queue.poll());
+                    if (queue.isEmpty()) queues.remove();
+                }
+            }
         }
+        return ordered;
+    }
 
+    /**
+     * Delivery keys of the batch that were already sent, in one query. Entries
+     * enqueued before delivery keys existed get theirs derived here.
+     */
+    private Set<UUID> findDelivered(List<DeliveryOutbox> claimed) {
+        for (DeliveryOutbox outbox : claimed) {
+            if (outbox.getDeliveryKey() == null) {
+                outbox.setDeliveryKey(IdempotencyService.deliveryKey(outbox.getNotificationId(), outbox.getChannel()));
+            }
+        }
         try {
-            deliverNotification(notification, outbox.getChannel(), outbox.getRecipientEmail());
-            
-            // Success: mark outbox as sent
-            outbox.setStatus(DeliveryStatus.SENT);
-            outbox.setDeliveredAt(Instant.now());
+            return idempotencyService.findDelivered(claimed.stream().map(DeliveryOutbox::getDeliveryKey).toList());
+        } catch (Exception e) {
+            log.warn("Could not look up sent delivery keys; delivering the batch unchecked", e);
+            return Set.of();
+        }
+    }
+
+    /**
+     * Close an entry that was already delivered by an earlier attempt.
+     */
+    private void completeDuplicate(DeliveryOutbox outbox, Notification notification, BatchResults results) {
+        log.info("Skipping outbox entry {}: delivery {} was already sent", outbox.getId(), outbox.getDeliveryKey());
+        outbox.setStatus(DeliveryStatus.SENT);
+        outbox.setDeliveredAt(Instant.now());
+        releaseLease(outbox);
+        results.outbox.add(outbox);
+        if (notification != null) {
             notification.setDeliveryStatus(DeliveryStatus.SENT);
-            notificationRepository.save(notification);
-            outboxRepository.save(outbox);
-            log.info("Delivered notification {} via {}", notification.getId(), outbox.getChannel());
+            results.notifications.add(notification);
+        }
+    }
+
+    /**
+     * Extend the attempt's lease periodically until interrupted.
+     */
+    private void heartbeat(UUID attemptId) {
+        while (true) {
+            try {
+                Thread.sleep(heartbeatInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                claimService.extendLease(attemptId);
+            } catch (Exception e) {
+                log.warn("Failed to extend lease for outbox attempt {}", attemptId, e);
+            }
+        }
+    }
+
+    /**
+     * Build each entry's notification from its snapshot. Entries enqueued before
+     * snapshots existed are loaded with a single query for the whole batch.
+     */
+    private Map<UUID, Notification> resolveNotifications(List<DeliveryOutbox> claimed) {
+        Map<UUID, Notification> notifications = new HashMap<>();
+        List<UUID> legacyIds = new ArrayList<>();
+        for (DeliveryOutbox outbox : claimed) {
+            if (hasSnapshot(outbox)) {
+                notifications.put(outbox.getNotificationId(), fromSnapshot(outbox));
+            } else {
+                legacyIds.add(outbox.getNotificationId());
+            }
+        }
+        if (!legacyIds.isEmpty()) {
+            for (Notification notification : notificationRepository.findAllById(legacyIds)) {
+                notifications.put(notification.getId(), notification);
+            }
+        }
+        return notifications;
+    }
+
+    /**
+     * Sends by email address carry a snapshot without a user, as they have no notification row.
+     */
+    private static boolean hasSnapshot(DeliveryOutbox outbox) {
+        return outbox.getNotificationCreatedAt() != null && outbox.getTitle() != null;
+    }
+
+    /**
+     * Detached notification carrying just what delivery and the result write need.
+     */
+    private static Notification fromSnapshot(DeliveryOutbox outbox) {
+        Notification notification = new Notification();
+        notification.setId(outbox.getNotificationId());
+        notification.setUserId(outbox.getUserId());
+        notification.setCreatedAt(outbox.getNotificationCreatedAt());
+        notification.setChannel(outbox.getChannel());
+        notification.setBroadcastId(outbox.getBroadcastId());
+        notification.setTitle(outbox.getTitle());
+        notification.setBody(outbox.getBody());
+        notification.setDeliveryStatus(DeliveryStatus.PENDING);
+        return notification;
+    }
+
+    /**
+     * Hand one channel's share of the batch to its deliverer and record each
+     * outcome as it completes.
+     */
+    private List<CompletableFuture<Void>> deliverChannel(NotificationChannel channel, List<DeliveryOutbox> entries,
+                                                         Map<UUID, Notification> notifications, BatchResults results) {
+        List<ChannelDeliverer.Delivery> batch = entries.stream()
+            .map(outbox -> new ChannelDeliverer.Delivery(notifications.get(outbox.getNotificationId()),
+                recipientOf(outbox)))
+            .toList();
+        List<CompletableFuture<DeliveryResult>> pending;
+        try {
+            pending = channelDeliverers.forChannel(channel).deliverBatch(batch);
+        } catch (RuntimeException e) {
+            pending = batch.stream().map(delivery -> CompletableFuture.<DeliveryResult>failedFuture(e)).toList();
+        }
+
+        List<CompletableFuture<Void>> completions = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            DeliveryOutbox outbox = entries.get(i);
+            Notification notification = batch.get(i).notification();
+            completions.add(pending.get(i).handle((result, error) -> {
+                recordOutcome(outbox, notification, result, error, results);
+                return null;
+            }));
+        }
+        return completions;
+    }
+
+    /**
+     * Channel address captured when the entry was enqueued.
+     */
+    private static String recipientOf(DeliveryOutbox outbox) {
+        return switch (outbox.getChannel()) {
+            case WHATSAPP -> outbox.getRecipientPhone();
+            case WEBHOOK -> outbox.getWebhookId() != null ? outbox.getWebhookId().toString() : null;
+            default -> outbox.getRecipientEmail();
+        };
+    }
+
+    private void flush(BatchResults results) {
+        try {
+            resultWriter.write(new ArrayList<>(results.outbox), new ArrayList<>(results.notifications));
         } catch (Exception e) {
-            log.error("Failed to deliver notification {} via {}", notification.getId(), outbox.getChannel(), e);
-            
-            // Increment retry count and schedule next attempt
-            outbox.setRetryCount(outbox.getRetryCount() + 1);
-            outbox.setLastError(e.getMessage() != null ? e.getMessage().substring(0, Math.min(1000, e.getMessage().length())) : "Unknown error");
-            
-            if (outbox.getRetryCount() >= outbox.getMaxRetries()) {
-                // Max retries exceeded
-                outbox.setStatus(DeliveryStatus.FAILED);
-                notification.setDeliveryStatus(DeliveryStatus.FAILED);
-                notificationRepository.save(notification);
-                log.warn("Max retries exceeded for notification {}", notification.getId());
+            // Leases expire and the reaper returns the entries to the queue
+            log.error("Failed to write results for {} outbox entries", results.outbox.size(), e);
+        }
+    }
+
+    private void failMissingNotification(DeliveryOutbox outbox, BatchResults results) {
+        log.warn("Notification {} not found for outbox {}", outbox.getNotificationId(), outbox.getId());
+        outbox.setStatus(DeliveryStatus.FAILED);
+        outbox.setLastError("Notification not found");
+        outbox.setErrorClass(DeliveryErrorClass.NOTIFICATION_MISSING);
+        releaseLease(outbox);
+        results.outbox.add(outbox);
+    }
+
+    /**
+     * Apply a delivery's outcome to its entry. Unexpected errors are only logged,
+     * so they cannot fail the whole batch; the entry's lease expires and it is
+     * picked up again later.
+     */
+    private void recordOutcome(DeliveryOutbox outbox, Notification notification, DeliveryResult result,
+                               Throwable error, BatchResults results) {
+        try {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                // Success: mark outbox as sent
+                outbox.setStatus(DeliveryStatus.SENT);
+                outbox.setDeliveredAt(Instant.now());
+                notification.setDeliveryStatus(DeliveryStatus.SENT);
+                releaseLease(outbox);
+                results.notifications.add(notification);
+                results.outbox.add(outbox);
+                log.info("Delivered notification {} via {}{}", notification.getId(), outbox.getChannel(),
+                    result != null && result.providerMessageId() != null ? " as " + result.providerMessageId() : "");
+            } else if (cause instanceof DeliveryDeferredException deferred) {
+                // Provider quota exhausted: reschedule without spending a retry
+                log.info("Deferred notification {} via {} until {}: {}",
+                    notification.getId(), outbox.getChannel(), deferred.getRetryAt(), deferred.getMessage());
+                outbox.setNextRetryAt(deferred.getRetryAt());
+                outbox.setLastError(deferred.getMessage());
+                releaseLease(outbox);
+                results.outbox.add(outbox);
             } else {
-                // Exponential backoff: 2^retryCount minutes
-                long backoffMinutes = (long) Math.pow(2, outbox.getRetryCount());
-                outbox.setNextRetryAt(Instant.now().plus(Duration.ofMinutes(backoffMinutes)));
-                outbox.setStatus(DeliveryStatus.FAILED);
+                recordFailure(outbox, notification, cause instanceof Exception e ? e : new RuntimeException(cause), results);
             }
-            
-            outboxRepository.save(outbox);
+        } catch (Exception e) {
+            log.error("Unexpected error processing outbox entry {}", outbox.getId(), e);
         }
     }
 
-    private void deliverNotification(Notification notification, NotificationChannel channel, String recipientEmail) {
-        switch (channel) {
-            case EMAIL:
-                // Detect basic HTML content; fall back to plain text
-                String body = notification.getBody();
-                boolean isHtml = body != null && body.matches("(?i).*<[a-z].*>.*");
-                if (isHtml) {
-                    emailService.sendHtmlEmail(recipientEmail, notification.getTitle(), body);
-                } else {
-                    emailService.sendEmail(recipientEmail, notification.getTitle(), body);
-                }
-                break;
-            case WHATSAPP:
-                // TODO: Integrate WhatsApp provider
-                log.info("WhatsApp delivery stub for user {}", notification.getUserId());
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported channel: " + channel);
+    private void recordFailure(DeliveryOutbox outbox, Notification notification, Exception e, BatchResults results) {
+        log.error("Failed to deliver notification {} via {}", notification.getId(), outbox.getChannel(), e);
+
+        // Increment retry count and schedule next attempt
+        outbox.setRetryCount(outbox.getRetryCount() + 1);
+        outbox.setLastError(e.getMessage() != null ? e.getMessage().substring(0, Math.min(1000, e.getMessage().length())) : "Unknown error");
+        outbox.setErrorClass(DeliveryErrorClassifier.classify(e));
+
+        if (outbox.getRetryCount() >= outbox.getMaxRetries()) {
+            // Max retries exceeded: the result writer moves it to dead letters
+            outbox.setStatus(DeliveryStatus.FAILED);
+            notification.setDeliveryStatus(DeliveryStatus.FAILED);
+            results.notifications.add(notification);
+            log.warn("Max retries exceeded for notification {}", notification.getId());
+        } else {
+            // Exponential backoff: 2^retryCount minutes
+            long backoffMinutes = (long) Math.pow(2, outbox.getRetryCount());
+            outbox.setNextRetryAt(Instant.now().plus(Duration.ofMinutes(backoffMinutes)));
+            outbox.setStatus(DeliveryStatus.FAILED);
         }
+
+        releaseLease(outbox);
+        results.outbox.add(outbox);
+    }
+
+    /**
+     * The attempt id stays set: the result write is fenced on it.
+     */
+    private void releaseLease(DeliveryOutbox outbox) {
+        outbox.setClaimedBy(null);
+        outbox.setLeaseUntil(null);
+    }
+
+    /**
+     * Results collected from the delivery threads of one batch.
+     */
+    private static final class BatchResults {
+        private final ConcurrentLinkedQueue<DeliveryOutbox> outbox = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Notification> notifications = new ConcurrentLinkedQueue<>();
     }
 }
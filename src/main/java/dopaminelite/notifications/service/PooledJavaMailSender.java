@@ -0,0 +1,114 @@
+package dopaminelite.notifications.service;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JavaMailSender that sends over pooled, persistent SMTP connections.
+ *
+ * {@link JavaMailSenderImpl} opens and closes a connection on every send call;
+ * this subclass only replaces the transport handling, so message preparation,
+ * MIME conversion and error types stay exactly as in Spring's implementation.
+ * Time spent waiting for a free transport is recorded per thread, so callers
+ * timing a send can tell pool contention apart from provider latency.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final SmtpTransportPool pool;
+    private final ThreadLocal<long[]> transportWaitNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public PooledJavaMailSender(int poolSize, int maxMessagesPerConnection,
+                                Duration validateAfterIdle, Duration maxIdle) {
+        this.pool = new SmtpTransportPool(this::connectTransport, poolSize, maxMessagesPerConnection,
+            validateAfterIdle, maxIdle);
+    }
+
+    public SmtpTransportPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Time the calling thread has spent waiting for a transport since the last call.
+     */
+    public long takeTransportWaitNanos() {
+        long[] waited = transportWaitNanos.get();
+        long nanos = waited[0];
+        waited[0] = 0;
+        return nanos;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+
+        for (int i = 0; i < mimeMessages.length; i++) {
+            MimeMessage mimeMessage = mimeMessages[i];
+            Object original = (originalMessages != null ? originalMessages[i] : mimeMessage);
+
+            SmtpTransportPool.PooledTransport pooled;
+            long borrowStart = System.nanoTime();
+            try {
+                pooled = pool.borrow();
+            } catch (AuthenticationFailedException ex) {
+                throw new MailAuthenticationException(ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failedMessages.put(original, ex);
+                continue;
+            } catch (Exception ex) {
+                failedMessages.put(original, ex);
+                continue;
+            } finally {
+                transportWaitNanos.get()[0] += System.nanoTime() - borrowStart;
+            }
+
+            boolean broken = false;
+            try {
+                if (mimeMessage.getSentDate() == null) {
+                    mimeMessage.setSentDate(new Date());
+                }
+                String messageId = mimeMessage.getMessageID();
+                mimeMessage.saveChanges();
+                if (messageId != null) {
+                    // Preserve explicitly specified message id...
+                    mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                }
+                Address[] addresses = mimeMessage.getAllRecipients();
+                pooled.getTransport().sendMessage(mimeMessage, (addresses != null ? addresses : new Address[0]));
+                pooled.markSent();
+            } catch (SendFailedException ex) {
+                // Rejected recipients: the session itself is still usable
+                failedMessages.put(original, ex);
+            } catch (Exception ex) {
+                broken = true;
+                failedMessages.put(original, ex);
+            } finally {
+                pool.release(pooled, broken);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.close();
+    }
+}
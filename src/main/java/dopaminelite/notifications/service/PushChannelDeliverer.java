@@ -0,0 +1,30 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Push delivery stub, used while FCM is not configured
+ * (see {@link FcmPushDeliverer}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.push.enabled", havingValue = "false", matchIfMissing = true)
+public class PushChannelDeliverer implements ChannelDeliverer {
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.PUSH;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient) {
+        log.info("Push delivery stub for user {}", notification.getUserId());
+        return CompletableFuture.completedFuture(DeliveryResult.sent());
+    }
+}
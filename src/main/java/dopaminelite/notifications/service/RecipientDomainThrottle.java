@@ -0,0 +1,219 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrency and rate budget per recipient email domain.
+ *
+ * Mailbox providers throttle bursts from one sender on their own, whatever SES
+ * allows. Each domain gets a cap on concurrent sends and a GCRA rate with a
+ * one-second burst; when a domain defers a recipient with a transient 4xx reply
+ * to RCPT TO ({@link DeliveryErrorClassifier#isDomainDeferral}) it is paused with
+ * exponential backoff. Relay-level 4xx replies do not pause a domain. A send that does not fit its domain's budget
+ * is deferred with {@link DeliveryDeferredException} instead of waiting, so the
+ * delivery slot goes to a recipient on another domain. Every deferral reserves
+ * its own retry slot behind the domain's backlog, so a batch of deferred entries
+ * comes back one emission interval apart rather than all at once. A limit of 0
+ * disables that check.
+ */
+@Slf4j
+@Component
+public class RecipientDomainThrottle implements MeterBinder {
+
+    private static final long BURST_WINDOW_NANOS = Duration.ofSeconds(1).toNanos();
+    private static final Duration CONCURRENCY_RETRY = Duration.ofSeconds(1);
+    private static final int MAX_TRACKED_DOMAINS = 10_000;
+    private static final long IDLE_EVICTION_NANOS = Duration.ofMinutes(10).toNanos();
+
+    private final int maxConcurrency;
+    private final long emissionIntervalNanos;
+    private final long deferralSpacingNanos;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+
+    private final Map<String, DomainState> domains = new ConcurrentHashMap<>();
+
+    public RecipientDomainThrottle(@Value("${notifications.email.domain.max-concurrency:4}") int maxConcurrency,
+                                   @Value("${notifications.email.domain.max-per-second:5}") double maxPerSecond,
+                                   @Value("${notifications.email.domain.backoff:30s}") Duration backoff,
+                                   @Value("${notifications.email.domain.max-backoff:10m}") Duration maxBackoff) {
+        this.maxConcurrency = maxConcurrency;
+        this.emissionIntervalNanos = maxPerSecond > 0 ? (long) (1_000_000_000L / maxPerSecond) : 0;
+        // Deferred entries return at the rate the domain can take them
+        this.deferralSpacingNanos = emissionIntervalNanos > 0
+            ? emissionIntervalNanos
+            : CONCURRENCY_RETRY.toNanos() / Math.max(1, maxConcurrency);
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        log.info("Recipient domain throttle: max {} concurrent, max {}/s per domain", maxConcurrency, maxPerSecond);
+    }
+
+    /**
+     * Throttle that never limits; used where no domain budget applies (e.g. tests).
+     */
+    public static RecipientDomainThrottle unlimited() {
+        return new RecipientDomainThrottle(0, 0, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Take a send slot for the recipient's domain.
+     *
+     * @throws DeliveryDeferredException if the domain is paused or over its budget
+     */
+    public Permit acquire(String recipientEmail) {
+        String domain = domainOf(recipientEmail);
+        if (domain == null) {
+            return Permit.NONE;
+        }
+        long now = System.nanoTime();
+        if (domains.size() > MAX_TRACKED_DOMAINS) {
+            domains.values().removeIf(state -> state.isIdle(now));
+        }
+        DomainState state = domains.computeIfAbsent(domain, d -> new DomainState(now));
+        state.acquire(domain, now);
+        return new Permit(domain, state);
+    }
+
+    /**
+     * Return the slot; a transient rejection pauses the whole domain.
+     */
+    public void release(Permit permit, boolean transientRejection) {
+        if (permit.state == null) return;
+        Duration pause = permit.state.release(transientRejection, backoff, maxBackoff);
+        if (pause != null) {
+            log.warn("Recipient domain {} rejected a send temporarily, pausing it for {}", permit.domain, pause);
+        }
+    }
+
+    /**
+     * Domains currently paused after a transient rejection.
+     */
+    public long getPausedDomains() {
+        long now = System.nanoTime();
+        return domains.values().stream().filter(state -> state.isPaused(now)).count();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notifications.email.domain.paused", this, RecipientDomainThrottle::getPausedDomains)
+            .description("Recipient domains paused after a transient 4xx rejection")
+            .register(registry);
+        Gauge.builder("notifications.email.domain.tracked", domains, Map::size)
+            .description("Recipient domains with a tracked send budget")
+            .register(registry);
+    }
+
+    static String domainOf(String recipientEmail) {
+        if (recipientEmail == null) return null;
+        int at = recipientEmail.lastIndexOf('@');
+        if (at < 0 || at == recipientEmail.length() - 1) return null;
+        return recipientEmail.substring(at + 1).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A send slot held on one domain; release it exactly once when the send is done.
+     */
+    public static final class Permit {
+
+        static final Permit NONE = new Permit(null, null);
+
+        private final String domain;
+        private final DomainState state;
+
+        private Permit(String domain, DomainState state) {
+            this.domain = domain;
+            this.state = state;
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+    }
+
+    private final class DomainState {
+
+        private int inFlight;
+        private long theoreticalArrival;
+        private long pausedUntil;
+        private long backlogUntil;
+        private int rejections;
+        private long lastUsed;
+
+        DomainState(long now) {
+            // Seeded from the caller's clock reading, so a new domain is never seen as paused
+            this.theoreticalArrival = now;
+            this.pausedUntil = now;
+            this.backlogUntil = now;
+            this.lastUsed = now;
+        }
+
+        synchronized void acquire(String domain, long now) {
+            lastUsed = now;
+            if (pausedUntil - now > 0) {
+                throw deferred("Recipient domain " + domain + " is paused after a temporary rejection",
+                    now, pausedUntil);
+            }
+            if (maxConcurrency > 0 && inFlight >= maxConcurrency) {
+                throw deferred("Recipient domain " + domain + " is at its concurrency limit",
+                    now, now + CONCURRENCY_RETRY.toNanos());
+            }
+            if (emissionIntervalNanos > 0) {
+                long start = Math.max(theoreticalArrival, now);
+                long earliest = start + emissionIntervalNanos - BURST_WINDOW_NANOS;
+                if (earliest - now > 0) {
+                    throw deferred("Recipient domain " + domain + " is at its send rate", now, earliest);
+                }
+                theoreticalArrival = start + emissionIntervalNanos;
+            }
+            inFlight++;
+        }
+
+        synchronized Duration release(boolean transientRejection, Duration backoff, Duration maxBackoff) {
+            inFlight--;
+            long now = System.nanoTime();
+            lastUsed = now;
+            if (!transientRejection) {
+                rejections = 0;
+                return null;
+            }
+            rejections++;
+            Duration pause = backoff.multipliedBy(1L << Math.min(rejections - 1, 16));
+            if (pause.compareTo(maxBackoff) > 0) {
+                pause = maxBackoff;
+            }
+            pausedUntil = now + pause.toNanos();
+            return pause;
+        }
+
+        synchronized boolean isPaused(long now) {
+            return pausedUntil - now > 0;
+        }
+
+        synchronized boolean isIdle(long now) {
+            return inFlight == 0 && pausedUntil - now <= 0 && backlogUntil - now <= 0
+                && now - lastUsed > IDLE_EVICTION_NANOS;
+        }
+
+        /**
+         * Defer to the later of the earliest possible retry and the end of the domain's
+         * backlog, and extend the backlog by one slot for the entry being deferred.
+         */
+        private DeliveryDeferredException deferred(String message, long now, long earliest) {
+            long retryAt = backlogUntil - earliest > 0 ? backlogUntil : earliest;
+            backlogUntil = retryAt + deferralSpacingNanos;
+            return new DeliveryDeferredException(message, Instant.now().plusNanos(retryAt - now));
+        }
+    }
+}
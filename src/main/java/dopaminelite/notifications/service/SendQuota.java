@@ -0,0 +1,16 @@
+package dopaminelite.notifications.service;
+
+/**
+ * Gate that every outgoing email passes before it is handed to the provider.
+ */
+public interface SendQuota {
+
+    /**
+     * Take {@code permits} send slots (one per recipient), waiting until the
+     * provider rate allows them.
+     *
+     * @throws dopaminelite.notifications.exception.DeliveryDeferredException
+     *         if the quota cannot be satisfied any time soon (e.g. daily limit reached)
+     */
+    void acquire(int permits);
+}
@@ -0,0 +1,145 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free send-rate governor for the SES quotas (max send rate and 24h quota).
+ *
+ * The per-second limit is a GCRA token bucket: a single theoretical arrival time
+ * is advanced with CAS, and a caller that runs ahead of the allowed rate sleeps
+ * until its slot instead of failing. Up to one second of sends may go out as a
+ * burst. The daily quota counts recipients per UTC day; once it is used up,
+ * sends are deferred to the next day with {@link DeliveryDeferredException}.
+ * A limit of 0 disables that check.
+ *
+ * Limits are per instance; with several replicas use {@link ClusterSendQuota}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.email.rate.cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class SendRateLimiter implements SendQuota, MeterBinder {
+
+    private static final long BURST_WINDOW_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final long maxPerDay;
+    private final long emissionIntervalNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final AtomicReference<DailyCount> dailyCount =
+        new AtomicReference<>(new DailyCount(LocalDate.now(ZoneOffset.UTC).toEpochDay(), 0));
+
+    private volatile Timer waitTimer;
+
+    public SendRateLimiter(@Value("${notifications.email.rate.max-per-second:14}") double maxPerSecond,
+                           @Value("${notifications.email.rate.max-per-day:50000}") long maxPerDay) {
+        this.maxPerDay = maxPerDay;
+        this.emissionIntervalNanos = maxPerSecond > 0 ? (long) (1_000_000_000L / maxPerSecond) : 0;
+        log.info("Send rate limiter: max {}/s, max {}/day", maxPerSecond, maxPerDay);
+    }
+
+    /**
+     * Limiter that never throttles; used where no quota applies (e.g. tests).
+     */
+    public static SendRateLimiter unlimited() {
+        return new SendRateLimiter(0, 0);
+    }
+
+    @Override
+    public void acquire(int permits) {
+        reserveDaily(permits);
+        if (emissionIntervalNanos == 0) return;
+
+        long cost = emissionIntervalNanos * permits;
+        long now;
+        long tat;
+        long start;
+        do {
+            now = System.nanoTime();
+            tat = theoreticalArrival.get();
+            start = Math.max(tat, now);
+        } while (!theoreticalArrival.compareAndSet(tat, start + cost));
+
+        long waitNanos = start + cost - BURST_WINDOW_NANOS - now;
+        if (waitNanos <= 0) return;
+
+        try {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryDeferredException("Interrupted while waiting for send rate", Instant.now());
+        }
+        Timer timer = waitTimer;
+        if (timer != null) {
+            timer.record(Duration.ofNanos(waitNanos));
+        }
+    }
+
+    /**
+     * Share of the one-second burst window currently reserved: 0 when idle,
+     * 1 when sends are going out at the configured maximum rate.
+     */
+    public double getSaturation() {
+        if (emissionIntervalNanos == 0) return 0;
+        long backlog = theoreticalArrival.get() - System.nanoTime();
+        return Math.min(1.0, Math.max(0.0, (double) backlog / BURST_WINDOW_NANOS));
+    }
+
+    /**
+     * Recipients counted against today's quota (UTC).
+     */
+    public long getSentToday() {
+        DailyCount current = dailyCount.get();
+        return current.epochDay() == today() ? current.count() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notifications.email.rate.saturation", this, SendRateLimiter::getSaturation)
+            .description("Fraction of the per-second SES send rate in use")
+            .register(registry);
+        Gauge.builder("notifications.email.rate.daily.used", this, SendRateLimiter::getSentToday)
+            .description("Recipients counted against today's SES quota")
+            .register(registry);
+        waitTimer = Timer.builder("notifications.email.rate.wait")
+            .description("Time spent waiting for a send slot")
+            .register(registry);
+    }
+
+    private void reserveDaily(int permits) {
+        if (maxPerDay <= 0) return;
+        long today = today();
+        while (true) {
+            DailyCount current = dailyCount.get();
+            long used = current.epochDay() == today ? current.count() : 0;
+            if (used + permits > maxPerDay) {
+                Instant retryAt = LocalDate.ofEpochDay(today + 1).atStartOfDay(ZoneOffset.UTC).toInstant();
+                throw new DeliveryDeferredException("Daily send quota of " + maxPerDay + " reached", retryAt);
+            }
+            if (dailyCount.compareAndSet(current, new DailyCount(today, used + permits))) {
+                return;
+            }
+        }
+    }
+
+    private static long today() {
+        return LocalDate.now(ZoneOffset.UTC).toEpochDay();
+    }
+
+    private record DailyCount(long epochDay, long count) {
+    }
+}
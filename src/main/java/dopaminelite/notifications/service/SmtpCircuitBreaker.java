@@ -0,0 +1,127 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.SendFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker around the SMTP provider.
+ *
+ * After {@code failureThreshold} consecutive provider failures the circuit opens
+ * and sends fail fast with {@link DeliveryDeferredException} instead of each
+ * waiting out the SMTP timeout. Once the open period has passed, a single probe
+ * send is let through (half-open): success closes the circuit, failure opens it again.
+ * Rejected recipients do not count as provider failures.
+ */
+@Slf4j
+@Component
+public class SmtpCircuitBreaker implements MeterBinder {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openUntil = Instant.MIN;
+    private boolean probeInFlight;
+
+    public SmtpCircuitBreaker(@Value("${notifications.email.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                              @Value("${notifications.email.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Check whether a send may go to the provider now.
+     *
+     * @throws DeliveryDeferredException while the circuit is open or a probe is in flight
+     */
+    public synchronized void acquirePermission() {
+        switch (state) {
+            case CLOSED -> {
+            }
+            case OPEN -> {
+                if (Instant.now().isBefore(openUntil)) {
+                    throw new DeliveryDeferredException("SMTP circuit open", openUntil);
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                log.info("SMTP circuit half-open, sending probe");
+            }
+            case HALF_OPEN -> {
+                if (probeInFlight) {
+                    throw new DeliveryDeferredException("SMTP circuit half-open, probe in flight",
+                        Instant.now().plus(openDuration));
+                }
+                probeInFlight = true;
+            }
+        }
+    }
+
+    /**
+     * Give back a permission that did not result in a send (e.g. the send was deferred).
+     */
+    public synchronized void releasePermission() {
+        probeInFlight = false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("SMTP circuit closed, provider recovered");
+        }
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("SMTP circuit opened after {} consecutive failures", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openUntil = Instant.now().plus(openDuration);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("notifications.email.circuit.state", this, breaker -> breaker.getState().ordinal())
+            .description("SMTP circuit state (0=closed, 1=open, 2=half-open)")
+            .register(registry);
+    }
+
+    /**
+     * Whether an exception from a send indicates the provider itself is failing,
+     * as opposed to a problem with a particular message or recipient. A transient
+     * reply from the relay, such as SES throttling, counts as a provider failure.
+     */
+    public static boolean isProviderFailure(Exception e) {
+        if (e instanceof MailAuthenticationException || DeliveryErrorClassifier.isRelayDeferral(e)) {
+            return true;
+        }
+        if (e instanceof MailSendException sendException) {
+            return sendException.getFailedMessages().values().stream()
+                .noneMatch(SendFailedException.class::isInstance);
+        }
+        return false;
+    }
+}
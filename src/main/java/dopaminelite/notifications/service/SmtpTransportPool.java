@@ -0,0 +1,158 @@
+package dopaminelite.notifications.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of connected, authenticated SMTP transports.
+ *
+ * Opening an SES session costs a TCP handshake, STARTTLS and AUTH; the pool keeps
+ * up to {@code maxSize} sessions open and hands them out one sender at a time.
+ * A connection is retired after {@code maxMessagesPerConnection} messages or when
+ * it has been idle longer than {@code maxIdle}; connections idle longer than
+ * {@code validateAfterIdle} are checked with an SMTP NOOP before reuse.
+ */
+@Slf4j
+public class SmtpTransportPool implements AutoCloseable {
+
+    /**
+     * Opens a new connected transport.
+     */
+    @FunctionalInterface
+    public interface Connector {
+        Transport connect() throws MessagingException;
+    }
+
+    private final Connector connector;
+    private final int maxMessagesPerConnection;
+    private final long validateAfterIdleNanos;
+    private final long maxIdleNanos;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private volatile boolean closed;
+
+    public SmtpTransportPool(Connector connector, int maxSize, int maxMessagesPerConnection,
+                             Duration validateAfterIdle, Duration maxIdle) {
+        this.connector = connector;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.validateAfterIdleNanos = validateAfterIdle.toNanos();
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.permits = new Semaphore(Math.max(1, maxSize), true);
+    }
+
+    /**
+     * Borrow a connected transport, waiting for a free slot if the pool is exhausted.
+     * Every borrowed transport must be handed back via {@link #release}.
+     */
+    public PooledTransport borrow() throws MessagingException, InterruptedException {
+        if (closed) {
+            throw new MessagingException("SMTP transport pool is closed");
+        }
+        permits.acquire();
+        try {
+            PooledTransport pooled;
+            // Most recently used first: those are the least likely to have been dropped by the server
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isReusable(pooled)) {
+                    return pooled;
+                }
+                closeQuietly(pooled);
+            }
+            Transport transport = connector.connect();
+            connectionsOpened.incrementAndGet();
+            return new PooledTransport(transport);
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a transport to the pool.
+     *
+     * @param broken true if the connection failed and must not be reused
+     */
+    public void release(PooledTransport pooled, boolean broken) {
+        try {
+            if (broken || closed || pooled.messagesSent >= maxMessagesPerConnection) {
+                closeQuietly(pooled);
+            } else {
+                pooled.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Total number of SMTP connections opened since startup.
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Number of open connections currently waiting for reuse.
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private boolean isReusable(PooledTransport pooled) {
+        long idleNanos = System.nanoTime() - pooled.lastUsedNanos;
+        if (idleNanos > maxIdleNanos) {
+            return false;
+        }
+        if (idleNanos > validateAfterIdleNanos) {
+            // SMTP isConnected() issues a NOOP, so this detects sessions the server has dropped
+            return pooled.transport.isConnected();
+        }
+        return true;
+    }
+
+    private void closeQuietly(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP transport: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A pooled transport together with its usage counters.
+     */
+    public static final class PooledTransport {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public Transport getTransport() {
+            return transport;
+        }
+
+        public void markSent() {
+            messagesSent++;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of user public data fetched from the BFF.
+ *
+ * Entries are kept in least-recently-used order up to max-size. An entry is
+ * served as is until refresh-after; after that it is still served, but
+ * refreshed in the background (stale-while-revalidate), and past expire-after
+ * it is fetched again before use. A user the BFF does not know is cached as
+ * missing for negative-ttl, so repeated events for a deleted user do not each
+ * cost a round trip. Concurrent fetches of one user share a single request.
+ * The BFF evicts a user on profile changes through DELETE /user-cache/{userId};
+ * a fetch that was in flight while any user was evicted is not cached, so an
+ * eviction is never overwritten by data read before it. A max-size of 0
+ * disables caching.
+ */
+@Slf4j
+@Component
+public class UserDataCache implements MeterBinder, DisposableBean {
+
+    private final int maxSize;
+    private final Duration refreshAfter;
+    private final Duration expireAfter;
+    private final Duration negativeTtl;
+    private final Clock clock;
+
+    private final Map<UUID, Entry> entries;
+    private final Map<UUID, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong evictionEpoch = new AtomicLong();
+    private final ExecutorService refreshExecutor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("user-cache-refresh-", 0).factory());
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public UserDataCache(@Value("${notifications.bff.cache.max-size:10000}") int maxSize,
+                         @Value("${notifications.bff.cache.refresh-after:1m}") Duration refreshAfter,
+                         @Value("${notifications.bff.cache.expire-after:10m}") Duration expireAfter,
+                         @Value("${notifications.bff.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this(maxSize, refreshAfter, expireAfter, negativeTtl, Clock.systemUTC());
+    }
+
+    UserDataCache(int maxSize, Duration refreshAfter, Duration expireAfter, Duration negativeTtl, Clock clock) {
+        this.maxSize = Math.max(0, maxSize);
+        this.refreshAfter = refreshAfter;
+        this.expireAfter = expireAfter;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > UserDataCache.this.maxSize;
+            }
+        };
+        log.info("BFF user cache: max {} users, refresh after {}, expire after {}, not-found for {}",
+            maxSize, refreshAfter, expireAfter, negativeTtl);
+    }
+
+    /**
+     * Cache that never holds anything; used where every lookup must reach the BFF (e.g. tests).
+     */
+    public static UserDataCache disabled() {
+        return new UserDataCache(0, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * The cached user, or the user fetched with {@code loader} if absent or expired.
+     *
+     * @throws ResourceNotFoundException if the user is (cached as) unknown to the BFF
+     */
+    public UserPublicDataDto get(UUID userId, Function<UUID, UserPublicDataDto> loader) {
+        if (maxSize == 0) {
+            return loader.apply(userId);
+        }
+        Instant now = clock.instant();
+        Entry entry = peek(userId);
+        if (entry != null && now.isBefore(entry.expiresAt())) {
+            if (entry.user() == null) {
+                negativeHits.increment();
+                throw new ResourceNotFoundException("User not found: " + userId);
+            }
+            if (now.isBefore(entry.refreshAt())) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                refreshInBackground(userId, loader);
+            }
+            return entry.user();
+        }
+        misses.increment();
+        return load(userId, loader);
+    }
+
+    /**
+     * Cached users among {@code userIds}, plus the rest fetched in one call to {@code loader}.
+     * Stale entries are fetched again with the rest, since that costs no extra request.
+     *
+     * @return users by id; users unknown to the BFF are absent
+     */
+    public Map<UUID, UserPublicDataDto> getAll(List<UUID> userIds,
+                                               Function<List<UUID>, Map<UUID, UserPublicDataDto>> loader) {
+        if (maxSize == 0) {
+            return loader.apply(userIds);
+        }
+        Instant now = clock.instant();
+        Map<UUID, UserPublicDataDto> users = new HashMap<>();
+        List<UUID> toFetch = new ArrayList<>();
+        for (UUID userId : userIds) {
+            Entry entry = peek(userId);
+            if (entry != null && entry.user() == null && now.isBefore(entry.expiresAt())) {
+                negativeHits.increment();
+            } else if (entry != null && now.isBefore(entry.refreshAt())) {
+                hits.increment();
+                users.put(userId, entry.user());
+            } else {
+                misses.increment();
+                toFetch.add(userId);
+            }
+        }
+        if (toFetch.isEmpty()) {
+            return users;
+        }
+
+        long epoch = evictionEpoch.get();
+        Map<UUID, UserPublicDataDto> fetched = loader.apply(toFetch);
+        Instant loadedAt = clock.instant();
+        for (UUID userId : toFetch) {
+            UserPublicDataDto user = fetched.get(userId);
+            store(userId, user != null ? found(user, loadedAt) : notFound(loadedAt), epoch);
+            if (user != null) {
+                users.put(userId, user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Drop a user, e.g. after a profile change; the next lookup fetches it again.
+     */
+    public void evict(UUID userId) {
+        evictionEpoch.incrementAndGet();
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+        log.debug("Evicted user {} from the BFF user cache", userId);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindRequests(registry, "hit", hits);
+        bindRequests(registry, "stale", staleHits);
+        bindRequests(registry, "not_found", negativeHits);
+        bindRequests(registry, "miss", misses);
+        Gauge.builder("notifications.bff.user.cache.size", this, UserDataCache::size)
+            .description("Users held in the BFF user cache")
+            .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    private static void bindRequests(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("notifications.bff.user.cache.requests", counter, LongAdder::doubleValue)
+            .description("BFF user cache lookups by result")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private Entry peek(UUID userId) {
+        synchronized (entries) {
+            return entries.get(userId);
+        }
+    }
+
+    /**
+     * Fetch a user once however many callers ask for it at the same time.
+     */
+    private UserPublicDataDto load(UUID userId, Function<UUID, UserPublicDataDto> loader) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> inFlight = loading.putIfAbsent(userId, mine);
+        if (inFlight != null) {
+            return userOf(userId, await(inFlight));
+        }
+        try {
+            Entry entry = fetch(userId, loader);
+            mine.complete(entry);
+            return userOf(userId, entry);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, mine);
+        }
+    }
+
+    private Entry fetch(UUID userId, Function<UUID, UserPublicDataDto> loader) {
+        long epoch = evictionEpoch.get();
+        Entry entry;
+        try {
+            entry = found(loader.apply(userId), clock.instant());
+        } catch (ResourceNotFoundException e) {
+            entry = notFound(clock.instant());
+        }
+        store(userId, entry, epoch);
+        return entry;
+    }
+
+    private void refreshInBackground(UUID userId, Function<UUID, UserPublicDataDto> loader) {
+        if (loading.containsKey(userId)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(userId, loader);
+                } catch (RuntimeException e) {
+                    // Keep serving the stale entry until it expires
+                    log.debug("Background refresh of user {} failed: {}", userId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("User cache shutting down, not refreshing user {}", userId);
+        }
+    }
+
+    private void store(UUID userId, Entry entry, long epoch) {
+        synchronized (entries) {
+            if (evictionEpoch.get() == epoch) {
+                entries.put(userId, entry);
+            }
+        }
+    }
+
+    private Entry found(UserPublicDataDto user, Instant loadedAt) {
+        return new Entry(user, loadedAt.plus(refreshAfter), loadedAt.plus(expireAfter));
+    }
+
+    private Entry notFound(Instant loadedAt) {
+        Instant expiresAt = loadedAt.plus(negativeTtl);
+        return new Entry(null, expiresAt, expiresAt);
+    }
+
+    private static UserPublicDataDto userOf(UUID userId, Entry entry) {
+        if (entry.user() == null) {
+            throw new ResourceNotFoundException("User not found: " + userId);
+        }
+        return entry.user();
+    }
+
+    private static Entry await(CompletableFuture<Entry> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A cached lookup; {@code user} is null for a user the BFF does not know.
+     */
+    private record Entry(UserPublicDataDto user, Instant refreshAt, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,215 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.WebhookSubscription;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import dopaminelite.notifications.exception.WebhookDeliveryException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Delivers WEBHOOK notifications as signed HTTP callbacks to the subscribed endpoints.
+ *
+ * Each outbox entry addresses one subscription, so a failing endpoint is
+ * retried on its own by the outbox. One shared HTTP/2 client keeps pooled,
+ * multiplexed connections per endpoint; requests run on the
+ * {@link DeliveryExecutor} under the webhook concurrency cap, and each endpoint
+ * gets at most a fixed number of callbacks in flight, so one slow partner
+ * cannot take every slot. A callback over that limit, or answered with 429/503
+ * and a Retry-After, is deferred. An endpoint answering 410 Gone is unsubscribed.
+ * The endpoint's host is resolved and checked for a public address before every
+ * callback, not only when subscribing, so a host re-pointed at an internal
+ * address is never called.
+ *
+ * Callbacks follow the Standard Webhooks headers: webhook-id, webhook-timestamp
+ * and webhook-signature "v1,base64(HMAC-SHA256(secret, id.timestamp.body))".
+ */
+@Slf4j
+@Component
+public class WebhookChannelDeliverer implements ChannelDeliverer {
+
+    private static final Duration ENDPOINT_BUSY_RETRY = Duration.ofSeconds(1);
+
+    private final ObjectMapper objectMapper;
+    private final DeliveryExecutor deliveryExecutor;
+    private final WebhookSubscriptionService subscriptionService;
+    private final HttpClient httpClient;
+    private final int maxConcurrencyPerEndpoint;
+    private final Duration requestTimeout;
+
+    private final Map<UUID, Semaphore> endpointPermits = new ConcurrentHashMap<>();
+
+    public WebhookChannelDeliverer(ObjectMapper objectMapper,
+                                   DeliveryExecutor deliveryExecutor,
+                                   WebhookSubscriptionService subscriptionService,
+                                   @Value("${notifications.webhook.max-concurrency-per-endpoint:4}") int maxConcurrencyPerEndpoint,
+                                   @Value("${notifications.webhook.request-timeout:10s}") Duration requestTimeout) {
+        this.objectMapper = objectMapper;
+        this.deliveryExecutor = deliveryExecutor;
+        this.subscriptionService = subscriptionService;
+        this.maxConcurrencyPerEndpoint = Math.max(1, maxConcurrencyPerEndpoint);
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(requestTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    }
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.WEBHOOK;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient) {
+        return deliverBatch(List.of(new Delivery(notification, recipient))).get(0);
+    }
+
+    @Override
+    public List<CompletableFuture<DeliveryResult>> deliverBatch(List<Delivery> deliveries) {
+        Map<UUID, WebhookSubscription> subscriptions = subscriptionService.findActive(deliveries.stream()
+            .map(delivery -> webhookId(delivery.recipient()))
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList());
+        return deliveries.stream()
+            .map(delivery -> {
+                UUID webhookId = webhookId(delivery.recipient());
+                WebhookSubscription subscription = webhookId != null ? subscriptions.get(webhookId) : null;
+                return deliveryExecutor.supply(NotificationChannel.WEBHOOK,
+                    () -> send(delivery.notification(), webhookId, subscription));
+            })
+            .toList();
+    }
+
+    private DeliveryResult send(Notification notification, UUID webhookId, WebhookSubscription subscription) {
+        if (subscription == null) {
+            throw new WebhookDeliveryException("Webhook subscription " + webhookId + " is not active", 404);
+        }
+        Semaphore permits = endpointPermits.computeIfAbsent(subscription.getId(),
+            id -> new Semaphore(maxConcurrencyPerEndpoint));
+        if (!permits.tryAcquire()) {
+            throw new DeliveryDeferredException("Webhook endpoint " + subscription.getUrl() + " is at its concurrency limit",
+                Instant.now().plus(ENDPOINT_BUSY_RETRY));
+        }
+        try {
+            subscriptionService.checkEndpointAddress(subscription.getUrl());
+            return post(notification, subscription);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private DeliveryResult post(Notification notification, WebhookSubscription subscription) {
+        String messageId = notification.getId().toString();
+        String timestamp = Long.toString(Instant.now().getEpochSecond());
+        String body = buildPayload(notification).toString();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(subscription.getUrl()))
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/json")
+            .header("webhook-id", messageId)
+            .header("webhook-timestamp", timestamp)
+            .header("webhook-signature", "v1," + sign(subscription.getSecret(), messageId + "." + timestamp + "." + body))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryDeferredException("Interrupted while sending webhook", Instant.now());
+        } catch (IOException e) {
+            throw new WebhookDeliveryException("Webhook endpoint " + subscription.getUrl() + " unreachable: "
+                + e.getMessage(), 503);
+        }
+
+        int status = response.statusCode();
+        if (status / 100 == 2) {
+            return DeliveryResult.sent();
+        }
+        String message = "Webhook endpoint " + subscription.getUrl() + " answered " + status;
+        if (status == 410) {
+            subscriptionService.deactivate(subscription.getId());
+        }
+        if (status == 429 || status == 503) {
+            Instant retryAt = retryAfter(response);
+            if (retryAt != null) {
+                throw new DeliveryDeferredException(message, retryAt);
+            }
+        }
+        throw new WebhookDeliveryException(message, status);
+    }
+
+    ObjectNode buildPayload(Notification notification) {
+        ObjectNode payload = objectMapper.createObjectNode()
+            .put("type", "notification.created")
+            .put("timestamp", Instant.now().toString());
+        ObjectNode data = payload.putObject("data")
+            .put("id", notification.getId().toString())
+            .put("userId", notification.getUserId() != null ? notification.getUserId().toString() : null)
+            .put("title", notification.getTitle())
+            .put("body", notification.getBody());
+        if (notification.getBroadcastId() != null) {
+            data.put("broadcastId", notification.getBroadcastId().toString());
+        }
+        if (notification.getCreatedAt() != null) {
+            data.put("createdAt", notification.getCreatedAt().toString());
+        }
+        return payload;
+    }
+
+    static String sign(String secret, String content) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getEncoder().encodeToString(mac.doFinal(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign webhook payload", e);
+        }
+    }
+
+    /**
+     * Retry-After in seconds, if the endpoint sent one.
+     */
+    private static Instant retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+            .filter(value -> value.matches("\\d+"))
+            .map(value -> Instant.now().plusSeconds(Long.parseLong(value)))
+            .orElse(null);
+    }
+
+    private static UUID webhookId(String recipient) {
+        if (recipient == null) return null;
+        try {
+            return UUID.fromString(recipient);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
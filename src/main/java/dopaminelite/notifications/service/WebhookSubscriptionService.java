@@ -0,0 +1,181 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.WebhookSubscriptionCreateRequest;
+import dopaminelite.notifications.dto.WebhookSubscriptionDto;
+import dopaminelite.notifications.entity.WebhookSubscription;
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import dopaminelite.notifications.exception.ValidationException;
+import dopaminelite.notifications.exception.WebhookDeliveryException;
+import dopaminelite.notifications.repository.WebhookSubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Partner endpoints subscribed to WEBHOOK notifications.
+ * An endpoint only receives the event types it subscribed to, and must be a public https URL.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WebhookSubscriptionService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final WebhookSubscriptionRepository subscriptionRepository;
+
+    @Transactional
+    public WebhookSubscriptionDto create(WebhookSubscriptionCreateRequest request) {
+        validateEndpoint(request.getUrl());
+
+        WebhookSubscription subscription = new WebhookSubscription();
+        subscription.setName(request.getName());
+        subscription.setUrl(request.getUrl());
+        subscription.setEventTypes(new ArrayList<>(new LinkedHashSet<>(request.getEventTypes())));
+        subscription.setSecret(request.getSecret() != null ? request.getSecret() : generateSecret());
+        subscription = subscriptionRepository.save(subscription);
+        log.info("Created webhook subscription {} for {}", subscription.getId(), subscription.getUrl());
+
+        WebhookSubscriptionDto dto = toDto(subscription);
+        dto.setSecret(subscription.getSecret());
+        return dto;
+    }
+
+    @Transactional(readOnly = true)
+    public List<WebhookSubscriptionDto> list() {
+        return subscriptionRepository.findAll().stream().map(this::toDto).toList();
+    }
+
+    @Transactional
+    public void delete(UUID id) {
+        if (!subscriptionRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Webhook subscription not found: " + id);
+        }
+        subscriptionRepository.deleteById(id);
+    }
+
+    /**
+     * Active subscriptions that receive the given event type.
+     */
+    @Transactional(readOnly = true)
+    public List<WebhookSubscription> findActive(NotificationEventType eventType) {
+        return subscriptionRepository.findByActiveTrue().stream()
+            .filter(subscription -> subscription.receives(eventType))
+            .toList();
+    }
+
+    /**
+     * Active subscriptions among the given ids, in one query.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, WebhookSubscription> findActive(Collection<UUID> ids) {
+        return subscriptionRepository.findAllById(ids).stream()
+            .filter(WebhookSubscription::isActive)
+            .collect(Collectors.toMap(WebhookSubscription::getId, Function.identity()));
+    }
+
+    /**
+     * Resolve an endpoint's host again right before a callback. The subscription was
+     * checked when it was created, but its DNS may since point at an internal address.
+     *
+     * @throws WebhookDeliveryException 400 if the host now resolves to a non-public
+     *         address, 503 if it does not resolve
+     */
+    public void checkEndpointAddress(String url) {
+        String host = URI.create(url).getHost();
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new WebhookDeliveryException("Webhook host " + host + " does not resolve", 503);
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new WebhookDeliveryException("Webhook host " + host + " resolves to non-public address "
+                    + address.getHostAddress(), 400);
+            }
+        }
+    }
+
+    public void deactivate(UUID id) {
+        subscriptionRepository.deactivate(id);
+        log.warn("Deactivated webhook subscription {}", id);
+    }
+
+    private WebhookSubscriptionDto toDto(WebhookSubscription subscription) {
+        return WebhookSubscriptionDto.builder()
+            .id(subscription.getId())
+            .name(subscription.getName())
+            .url(subscription.getUrl())
+            .eventTypes(subscription.getEventTypes())
+            .active(subscription.isActive())
+            .createdAt(subscription.getCreatedAt())
+            .build();
+    }
+
+    /**
+     * Reject endpoints the service must not call: anything but https, and hosts that
+     * resolve to loopback, private, link-local or other non-public addresses.
+     */
+    static void validateEndpoint(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new ValidationException("Invalid webhook URL: " + url);
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            throw new ValidationException("Webhook URL must be an https URL with a host: " + url);
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new ValidationException("Webhook host does not resolve: " + uri.getHost());
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new ValidationException("Webhook host " + uri.getHost() + " is not a public address");
+            }
+        }
+    }
+
+    private static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+            || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            // 0.0.0.0/8 and carrier-grade NAT 100.64.0.0/10
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            return first != 0 && !(first == 100 && second >= 64 && second < 128);
+        }
+        // IPv6 unique local addresses fc00::/7
+        return (bytes[0] & 0xfe) != 0xfc;
+    }
+
+    private static String generateSecret() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return "whsec_" + Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,30 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * WhatsApp delivery stub, used while the Cloud API is not configured
+ * (see {@link WhatsAppCloudDeliverer}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.whatsapp.enabled", havingValue = "false", matchIfMissing = true)
+public class WhatsAppChannelDeliverer implements ChannelDeliverer {
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.WHATSAPP;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient) {
+        log.info("WhatsApp delivery stub for user {}", notification.getUserId());
+        return CompletableFuture.completedFuture(DeliveryResult.sent());
+    }
+}
@@ -0,0 +1,270 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import dopaminelite.notifications.exception.WhatsAppApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Sends WhatsApp messages through the WhatsApp Business Cloud API.
+ *
+ * One shared HTTP/2 client keeps a small pool of multiplexed connections to the
+ * Graph API; requests run on the {@link DeliveryExecutor} under the WhatsApp
+ * concurrency cap. With a template configured, messages go out as that
+ * template with the title and body as its two body parameters (required outside
+ * the 24h customer-service window); otherwise as plain text.
+ *
+ * The Cloud API has no multi-recipient send, so a batch is submitted as
+ * concurrent single requests. Sends are paced to the business number's
+ * throughput with a GCRA, and each recipient number gets at most one message
+ * per per-recipient interval; a message that would exceed it, or that the API
+ * rejects with a rate-limit code, is deferred rather than failed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.whatsapp.enabled", havingValue = "true")
+public class WhatsAppCloudDeliverer implements ChannelDeliverer {
+
+    private static final long BURST_WINDOW_NANOS = Duration.ofSeconds(1).toNanos();
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+    private static final int MAX_TRACKED_RECIPIENTS = 100_000;
+    // Throughput and pair rate limit codes
+    private static final int THROUGHPUT_LIMIT = 130429;
+    private static final int PAIR_RATE_LIMIT = 131056;
+
+    private final ObjectMapper objectMapper;
+    private final DeliveryExecutor deliveryExecutor;
+    private final HttpClient httpClient;
+    private final URI messagesUri;
+    private final String accessToken;
+    private final String templateName;
+    private final String templateLanguage;
+    private final Duration requestTimeout;
+    private final long emissionIntervalNanos;
+    private final long recipientIntervalNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final Map<String, Long> recipientNextSend = new ConcurrentHashMap<>();
+
+    public WhatsAppCloudDeliverer(ObjectMapper objectMapper,
+                                  DeliveryExecutor deliveryExecutor,
+                                  @Value("${notifications.whatsapp.base-url:https://graph.facebook.com/v21.0}") String baseUrl,
+                                  @Value("${notifications.whatsapp.phone-number-id}") String phoneNumberId,
+                                  @Value("${notifications.whatsapp.access-token}") String accessToken,
+                                  @Value("${notifications.whatsapp.template.name:}") String templateName,
+                                  @Value("${notifications.whatsapp.template.language:en}") String templateLanguage,
+                                  @Value("${notifications.whatsapp.rate.max-per-second:80}") double maxPerSecond,
+                                  @Value("${notifications.whatsapp.rate.per-recipient-interval:6s}") Duration perRecipientInterval,
+                                  @Value("${notifications.whatsapp.request-timeout:10s}") Duration requestTimeout) {
+        this.objectMapper = objectMapper;
+        this.deliveryExecutor = deliveryExecutor;
+        this.messagesUri = URI.create(baseUrl.replaceAll("/+$", "") + "/" + phoneNumberId + "/messages");
+        this.accessToken = accessToken;
+        this.templateName = templateName;
+        this.templateLanguage = templateLanguage;
+        this.requestTimeout = requestTimeout;
+        this.emissionIntervalNanos = maxPerSecond > 0 ? (long) (1_000_000_000L / maxPerSecond) : 0;
+        this.recipientIntervalNanos = perRecipientInterval.toNanos();
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(requestTimeout)
+            .build();
+        log.info("WhatsApp Cloud API deliverer: {} ({}), max {}/s, {} per recipient",
+            messagesUri, templateName.isBlank() ? "text messages" : "template " + templateName,
+            maxPerSecond, perRecipientInterval);
+    }
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.WHATSAPP;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> deliver(Notification notification, String recipient) {
+        return deliveryExecutor.supply(NotificationChannel.WHATSAPP, () -> send(notification, recipient));
+    }
+
+    private DeliveryResult send(Notification notification, String recipientNumber) {
+        String to = normalizeNumber(recipientNumber);
+        if (to == null) {
+            throw new WhatsAppApiException("No WhatsApp number for notification " + notification.getId(), 400, null);
+        }
+        RecipientSlot slot = reserveRecipient(to);
+        // The slot stays taken only if the message reached the recipient (or the pair limit says so)
+        boolean keepSlot = false;
+        try {
+            awaitSendSlot();
+
+            HttpRequest request = HttpRequest.newBuilder(messagesUri)
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(buildMessage(to, notification).toString()))
+                .build();
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeliveryDeferredException("Interrupted while sending WhatsApp message", Instant.now());
+            } catch (IOException e) {
+                throw new WhatsAppApiException("WhatsApp Cloud API unreachable: " + e.getMessage(), 503, null);
+            }
+
+            JsonNode body = readBody(response.body());
+            if (response.statusCode() / 100 == 2) {
+                keepSlot = true;
+                return DeliveryResult.sent(body.path("messages").path(0).path("id").asText(null));
+            }
+
+            JsonNode error = body.path("error");
+            Integer code = error.hasNonNull("code") ? error.get("code").asInt() : null;
+            String message = "WhatsApp Cloud API " + response.statusCode() + ": " + error.path("message").asText(response.body());
+            if (code != null && code == PAIR_RATE_LIMIT) {
+                keepSlot = true;
+                throw new DeliveryDeferredException(message, Instant.now().plusNanos(recipientIntervalNanos));
+            }
+            if (code != null && code == THROUGHPUT_LIMIT) {
+                throw new DeliveryDeferredException(message, Instant.now().plusSeconds(1));
+            }
+            throw new WhatsAppApiException(message, response.statusCode(), code);
+        } finally {
+            if (!keepSlot) {
+                releaseRecipient(slot);
+            }
+        }
+    }
+
+    /**
+     * Text message, or the configured template with title and body as parameters.
+     */
+    ObjectNode buildMessage(String to, Notification notification) {
+        String title = notification.getTitle() != null ? notification.getTitle() : "";
+        String body = notification.getBody() != null ? HTML_TAG.matcher(notification.getBody()).replaceAll("") : "";
+
+        ObjectNode message = objectMapper.createObjectNode()
+            .put("messaging_product", "whatsapp")
+            .put("recipient_type", "individual")
+            .put("to", to);
+        if (templateName.isBlank()) {
+            message.put("type", "text");
+            message.putObject("text").put("body", title.isBlank() ? body : "*" + title + "*\n\n" + body);
+        } else {
+            message.put("type", "template");
+            ObjectNode template = message.putObject("template").put("name", templateName);
+            template.putObject("language").put("code", templateLanguage);
+            ArrayNode parameters = template.putArray("components").addObject()
+                .put("type", "body")
+                .putArray("parameters");
+            parameters.addObject().put("type", "text").put("text", title);
+            parameters.addObject().put("type", "text").put("text", body);
+        }
+        return message;
+    }
+
+    /**
+     * Claim the recipient's next send slot, or defer if its interval has not passed.
+     * The slot is held while the message is in flight so concurrent sends to the same
+     * number are deferred; {@link #releaseRecipient} gives it back if nothing was sent.
+     */
+    private RecipientSlot reserveRecipient(String to) {
+        if (recipientIntervalNanos <= 0) return null;
+        long now = System.nanoTime();
+        if (recipientNextSend.size() > MAX_TRACKED_RECIPIENTS) {
+            recipientNextSend.values().removeIf(next -> next - now <= 0);
+        }
+        long reserved = now + recipientIntervalNanos;
+        long[] waitNanos = {0};
+        Long[] previous = {null};
+        recipientNextSend.compute(to, (number, next) -> {
+            if (next != null && next - now > 0) {
+                waitNanos[0] = next - now;
+                return next;
+            }
+            previous[0] = next;
+            return reserved;
+        });
+        if (waitNanos[0] > 0) {
+            throw new DeliveryDeferredException("WhatsApp recipient " + to + " was messaged too recently",
+                Instant.now().plusNanos(waitNanos[0]));
+        }
+        return new RecipientSlot(to, previous[0], reserved);
+    }
+
+    /**
+     * Restore the recipient's slot as it was before an attempt that did not send.
+     */
+    private void releaseRecipient(RecipientSlot slot) {
+        if (slot == null) return;
+        if (slot.previous() == null) {
+            recipientNextSend.remove(slot.to(), slot.reserved());
+        } else {
+            recipientNextSend.replace(slot.to(), slot.reserved(), slot.previous());
+        }
+    }
+
+    /**
+     * Pace sends to the business number's throughput; waits for a slot like the SES limiter.
+     */
+    private void awaitSendSlot() {
+        if (emissionIntervalNanos == 0) return;
+        long now;
+        long tat;
+        long start;
+        do {
+            now = System.nanoTime();
+            tat = theoreticalArrival.get();
+            start = Math.max(tat, now);
+        } while (!theoreticalArrival.compareAndSet(tat, start + emissionIntervalNanos));
+
+        long waitNanos = start + emissionIntervalNanos - BURST_WINDOW_NANOS - now;
+        if (waitNanos <= 0) return;
+        try {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryDeferredException("Interrupted while waiting for WhatsApp send rate", Instant.now());
+        }
+    }
+
+    private JsonNode readBody(String body) {
+        try {
+            return body == null || body.isBlank() ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    /**
+     * Cloud API expects the number in international format without '+' or separators.
+     */
+    static String normalizeNumber(String number) {
+        if (number == null) return null;
+        String digits = number.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    private record RecipientSlot(String to, Long previous, long reserved) {
+    }
+}
@@ -0,0 +1,77 @@
+-- liquibase formatted sql
+-- changeset system:015-01-partition-delivery-outbox splitStatements:false endDelimiter:END_OUTBOX_PARTITIONS
+
+-- Rebuild delivery_outbox as a table range-partitioned by created_at (monthly).
+-- Old months then only hold SENT rows and are detached/dropped by the retention
+-- job instead of DELETE-d; claims only touch the partial indexes of live months.
+ALTER TABLE delivery_outbox RENAME TO delivery_outbox_unpartitioned;
+ALTER INDEX IF EXISTS delivery_outbox_pkey RENAME TO delivery_outbox_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_outbox_status_retry;
+DROP INDEX IF EXISTS idx_outbox_notification_id;
+DROP INDEX IF EXISTS idx_outbox_claimable;
+DROP INDEX IF EXISTS idx_outbox_in_flight;
+DROP INDEX IF EXISTS idx_outbox_attempt_id;
+
+CREATE TABLE delivery_outbox (
+  id UUID NOT NULL,
+  notification_id UUID NOT NULL,
+  channel VARCHAR(20) NOT NULL,
+  recipient_email VARCHAR(255) NULL,
+  status VARCHAR(20) NOT NULL,
+  retry_count INT NOT NULL DEFAULT 0,
+  max_retries INT NOT NULL DEFAULT 3,
+  next_retry_at TIMESTAMP NULL,
+  last_error VARCHAR(1000) NULL,
+  error_class VARCHAR(30) NULL,
+  delivered_at TIMESTAMP NULL,
+  claimed_by VARCHAR(100) NULL,
+  lease_until TIMESTAMP NULL,
+  attempt_id UUID NULL,
+  user_id UUID NULL,
+  notification_created_at TIMESTAMP NULL,
+  broadcast_id UUID NULL,
+  title VARCHAR(500) NULL,
+  body TEXT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside the pre-created months; the retention job keeps it empty
+CREATE TABLE delivery_outbox_default PARTITION OF delivery_outbox DEFAULT;
+
+DO $BODY$
+DECLARE
+  part_start DATE;
+  end_date   DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 month')::DATE;
+BEGIN
+  SELECT COALESCE(date_trunc('month', MIN(created_at)), date_trunc('month', CURRENT_DATE))::DATE
+    INTO part_start FROM delivery_outbox_unpartitioned;
+
+  WHILE part_start < end_date LOOP
+    EXECUTE format(
+      'CREATE TABLE IF NOT EXISTS delivery_outbox_%s PARTITION OF delivery_outbox FOR VALUES FROM (%L) TO (%L)'
+      , to_char(part_start, 'YYYY_MM'), part_start, (part_start + INTERVAL '1 month')::DATE
+    );
+    part_start := (part_start + INTERVAL '1 month')::DATE;
+  END LOOP;
+END $BODY$;
+
+CREATE INDEX idx_outbox_notification_id ON delivery_outbox (notification_id);
+CREATE INDEX idx_outbox_claimable ON delivery_outbox (next_retry_at)
+  WHERE status IN ('PENDING', 'FAILED') AND retry_count < max_retries;
+CREATE INDEX idx_outbox_in_flight ON delivery_outbox (lease_until)
+  WHERE status = 'IN_FLIGHT';
+CREATE INDEX idx_outbox_attempt_id ON delivery_outbox (attempt_id)
+  WHERE attempt_id IS NOT NULL;
+
+INSERT INTO delivery_outbox (id, notification_id, channel, recipient_email, status, retry_count, max_retries,
+  next_retry_at, last_error, error_class, delivered_at, claimed_by, lease_until, attempt_id, user_id,
+  notification_created_at, broadcast_id, title, body, created_at, updated_at)
+SELECT id, notification_id, channel, recipient_email, status, retry_count, max_retries,
+  next_retry_at, last_error, error_class, delivered_at, claimed_by, lease_until, attempt_id, user_id,
+  notification_created_at, broadcast_id, title, body, created_at, updated_at
+FROM delivery_outbox_unpartitioned;
+
+DROP TABLE delivery_outbox_unpartitioned;
+END_OUTBOX_PARTITIONS
@@ -0,0 +1,33 @@
+-- liquibase formatted sql
+-- changeset system:023-01-drop-outbox-default-partition splitStatements:false endDelimiter:END_OUTBOX_DEFAULT_PARTITION
+
+-- The retention job detaches expired months with DETACH PARTITION ... CONCURRENTLY so claims
+-- keep running, which Postgres refuses while the table has a default partition. Rows that
+-- landed in the default partition get monthly partitions of their own; from here on the job
+-- pre-creates months ahead and created_at (always the insert time) never falls outside them.
+ALTER TABLE delivery_outbox DETACH PARTITION delivery_outbox_default;
+
+DO $BODY$
+DECLARE
+  part_start DATE;
+BEGIN
+  FOR part_start IN SELECT DISTINCT date_trunc('month', created_at)::DATE FROM delivery_outbox_default LOOP
+    EXECUTE format(
+      'CREATE TABLE IF NOT EXISTS delivery_outbox_%s PARTITION OF delivery_outbox FOR VALUES FROM (%L) TO (%L)'
+      , to_char(part_start, 'YYYY_MM'), part_start, (part_start + INTERVAL '1 month')::DATE
+    );
+  END LOOP;
+END $BODY$;
+
+INSERT INTO delivery_outbox SELECT * FROM delivery_outbox_default;
+DROP TABLE delivery_outbox_default;
+
+-- Partitioned tables can only enforce uniqueness on keys that include the partition key, so the
+-- primary key stays (id, created_at). id on its own is still unique in practice: ids are random
+-- UUIDs assigned on insert (Hibernate GenerationType.UUID), created_at is set once by the insert
+-- and never rewritten, and a dead-letter replay deletes the dead letter before re-inserting its id.
+COMMENT ON COLUMN delivery_outbox.id IS
+  'Random UUID assigned on insert; unique on its own, though the primary key is (id, created_at) for partitioning';
+COMMENT ON COLUMN delivery_outbox.created_at IS
+  'Enqueue time and partition key; never updated';
+END_OUTBOX_DEFAULT_PARTITION
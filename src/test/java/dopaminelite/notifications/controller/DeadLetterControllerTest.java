@@ -0,0 +1,87 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.dto.DeadLetterDto;
+import dopaminelite.notifications.dto.DeadLetterListResponse;
+import dopaminelite.notifications.dto.DeadLetterReplayRequest;
+import dopaminelite.notifications.dto.DeadLetterReplayResponse;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.GlobalExceptionHandler;
+import dopaminelite.notifications.service.DeadLetterService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class DeadLetterControllerTest {
+    private final DeadLetterService deadLetterService = Mockito.mock(DeadLetterService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DeadLetterController(deadLetterService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    @DisplayName("GET /dead-letters passes filters to the service")
+    void listDeadLetters() throws Exception {
+        DeadLetterDto deadLetter = DeadLetterDto.builder()
+            .id(UUID.randomUUID())
+            .channel(NotificationChannel.EMAIL)
+            .errorClass(DeliveryErrorClass.PROVIDER_UNAVAILABLE)
+            .build();
+        Mockito.when(deadLetterService.listDeadLetters(Mockito.eq(DeliveryErrorClass.PROVIDER_UNAVAILABLE),
+                Mockito.eq(NotificationChannel.EMAIL), Mockito.isNull(), Mockito.isNull(), Mockito.isNull(),
+                Mockito.eq(20), Mockito.eq(0)))
+            .thenReturn(DeadLetterListResponse.builder().items(List.of(deadLetter)).total(1).build());
+
+        mockMvc.perform(get("/dead-letters")
+                        .param("errorClass", "PROVIDER_UNAVAILABLE")
+                        .param("channel", "EMAIL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.items[0].errorClass").value("PROVIDER_UNAVAILABLE"));
+    }
+
+    @Test
+    @DisplayName("POST /dead-letters/replay returns the replayed count")
+    void replay() throws Exception {
+        UUID broadcastId = UUID.randomUUID();
+        Mockito.when(deadLetterService.replay(Mockito.any()))
+            .thenReturn(DeadLetterReplayResponse.builder().replayed(42).build());
+
+        String json = "{" +
+                "\"errorClass\":\"PROVIDER_UNAVAILABLE\"," +
+                "\"broadcastId\":\"" + broadcastId + "\"," +
+                "\"maxEntries\":500" +
+                "}";
+
+        mockMvc.perform(post("/dead-letters/replay")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.replayed").value(42));
+
+        ArgumentCaptor<DeadLetterReplayRequest> captor = ArgumentCaptor.forClass(DeadLetterReplayRequest.class);
+        Mockito.verify(deadLetterService).replay(captor.capture());
+        assertEquals(DeliveryErrorClass.PROVIDER_UNAVAILABLE, captor.getValue().getErrorClass());
+        assertEquals(broadcastId, captor.getValue().getBroadcastId());
+        assertEquals(500, captor.getValue().getMaxEntries());
+    }
+
+    @Test
+    @DisplayName("POST /dead-letters/replay rejects a non-positive maxEntries")
+    void replayRejectsInvalidMax() throws Exception {
+        mockMvc.perform(post("/dead-letters/replay")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"maxEntries\":0}"))
+                .andExpect(status().isBadRequest());
+    }
+}
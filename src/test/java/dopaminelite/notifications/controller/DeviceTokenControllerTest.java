@@ -0,0 +1,89 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.entity.enums.DevicePlatform;
+import dopaminelite.notifications.exception.GlobalExceptionHandler;
+import dopaminelite.notifications.service.DeviceTokenService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class DeviceTokenControllerTest {
+    private final DeviceTokenService deviceTokenService = Mockito.mock(DeviceTokenService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DeviceTokenController(deviceTokenService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    @DisplayName("POST /device-tokens registers the token for the calling user")
+    void registerDeviceToken() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String json = "{" +
+                "\"userId\":\"" + UUID.randomUUID() + "\"," +
+                "\"token\":\"fcm-token-1\"," +
+                "\"platform\":\"ANDROID\"" +
+                "}";
+
+        mockMvc.perform(post("/device-tokens")
+                        .header("X-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isNoContent());
+
+        // A userId in the body is ignored: tokens always belong to the caller
+        Mockito.verify(deviceTokenService).register(userId, "fcm-token-1", DevicePlatform.ANDROID);
+    }
+
+    @Test
+    @DisplayName("POST /device-tokens requires the calling user")
+    void registerDeviceToken_withoutCaller() throws Exception {
+        String json = "{" +
+                "\"token\":\"fcm-token-1\"," +
+                "\"platform\":\"ANDROID\"" +
+                "}";
+
+        mockMvc.perform(post("/device-tokens")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(deviceTokenService);
+    }
+
+    @Test
+    @DisplayName("POST /device-tokens rejects a blank token")
+    void registerDeviceToken_blankToken() throws Exception {
+        String json = "{" +
+                "\"token\":\"\"," +
+                "\"platform\":\"WEB\"" +
+                "}";
+
+        mockMvc.perform(post("/device-tokens")
+                        .header("X-User-Id", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(deviceTokenService);
+    }
+
+    @Test
+    @DisplayName("DELETE /device-tokens removes the user's token")
+    void unregisterDeviceToken() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        mockMvc.perform(delete("/device-tokens")
+                        .header("X-User-Id", userId)
+                        .param("token", "fcm-token-1"))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(deviceTokenService).unregister(userId, "fcm-token-1");
+    }
+}
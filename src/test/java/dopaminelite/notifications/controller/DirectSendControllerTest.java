@@ -1,7 +1,9 @@
 package dopaminelite.notifications.controller;
 
 import dopaminelite.notifications.exception.GlobalExceptionHandler;
+import dopaminelite.notifications.service.IdempotencyService;
 import dopaminelite.notifications.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -10,16 +12,28 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class DirectSendControllerTest {
     private final NotificationService notificationService = Mockito.mock(NotificationService.class);
-    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DirectSendController(notificationService))
+    private final IdempotencyService idempotencyService = Mockito.mock(IdempotencyService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+                    new DirectSendController(notificationService, idempotencyService))
             .setControllerAdvice(new GlobalExceptionHandler())
             .build();
 
+    @BeforeEach
+    void runIdempotentActions() {
+        Mockito.when(idempotencyService.execute(Mockito.anyString(), Mockito.any(), Mockito.any()))
+            .thenAnswer(invocation -> {
+                Supplier<UUID> action = invocation.getArgument(2);
+                return new IdempotencyService.Outcome(action.get(), false);
+            });
+    }
+
     @Test
     @DisplayName("POST /notifications/send accepts direct send")
     void sendDirectNotifications() throws Exception {
@@ -40,4 +54,49 @@ class DirectSendControllerTest {
                 .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.broadcastId").exists());
     }
+
+    @Test
+    @DisplayName("POST /notifications/send with a repeated Idempotency-Key returns the original broadcast")
+    void sendDirectNotifications_repeatedIdempotencyKey() throws Exception {
+        UUID broadcastId = UUID.randomUUID();
+        Mockito.when(idempotencyService.execute(Mockito.anyString(), Mockito.eq("req-1"), Mockito.any()))
+            .thenReturn(new IdempotencyService.Outcome(broadcastId, true));
+
+        String json = "{" +
+                "\"targetUserIds\":[\"c0a80101-0000-0000-0000-000000000001\"]," +
+                "\"channels\":[\"EMAIL\"]," +
+                "\"title\":\"System Maintenance\"," +
+                "\"body\":\"The system will be down...\"" +
+                "}";
+
+        mockMvc.perform(post("/notifications/send")
+                        .header("Idempotency-Key", "req-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.broadcastId").value(broadcastId.toString()));
+
+        Mockito.verify(notificationService, Mockito.never()).sendDirectNotifications(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("POST /notifications/send-by-email accepts the send and returns the broadcast job id")
+    void sendDirectNotificationsByEmail() throws Exception {
+        UUID broadcastId = UUID.randomUUID();
+        Mockito.when(notificationService.sendDirectNotificationsByEmail(Mockito.any(), Mockito.any()))
+            .thenReturn(broadcastId);
+
+        String json = "{" +
+                "\"targetEmails\":[\"guest@example.com\"]," +
+                "\"channels\":[\"EMAIL\"]," +
+                "\"title\":\"Invitation\"," +
+                "\"body\":\"Join us\"" +
+                "}";
+
+        mockMvc.perform(post("/notifications/send-by-email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.broadcastId").value(broadcastId.toString()));
+    }
 }
@@ -4,7 +4,9 @@ import dopaminelite.notifications.dto.NotificationEventRequest;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
 import dopaminelite.notifications.entity.enums.NotificationEventType;
 import dopaminelite.notifications.exception.GlobalExceptionHandler;
+import dopaminelite.notifications.service.IdempotencyService;
 import dopaminelite.notifications.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -15,16 +17,28 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class NotificationEventControllerTest {
         private final NotificationService notificationService = Mockito.mock(NotificationService.class);
-        private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new NotificationEventController(notificationService))
+        private final IdempotencyService idempotencyService = Mockito.mock(IdempotencyService.class);
+        private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+                                new NotificationEventController(notificationService, idempotencyService))
                         .setControllerAdvice(new GlobalExceptionHandler())
                         .build();
 
+    @BeforeEach
+    void runIdempotentActions() {
+        Mockito.when(idempotencyService.execute(Mockito.anyString(), Mockito.any(), Mockito.any()))
+            .thenAnswer(invocation -> {
+                Supplier<UUID> action = invocation.getArgument(2);
+                return new IdempotencyService.Outcome(action.get(), false);
+            });
+    }
+
     @Test
         @DisplayName("POST /notification-events accepts event")
     void processNotificationEvent() throws Exception {
@@ -50,5 +64,29 @@ class NotificationEventControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isAccepted());
+
+        Mockito.verify(notificationService).processNotificationEvent(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("POST /notification-events with a repeated Idempotency-Key skips processing")
+    void processNotificationEvent_repeatedIdempotencyKey() throws Exception {
+        Mockito.when(idempotencyService.execute(Mockito.eq("notification-event"), Mockito.eq("evt-1"), Mockito.any()))
+            .thenReturn(new IdempotencyService.Outcome(null, true));
+
+        String json = "{" +
+                "\"eventType\":\"PAYMENT_STATUS_CHANGED\"," +
+                "\"primaryUserId\":\"" + UUID.randomUUID() + "\"," +
+                "\"channels\":[\"IN_APP\"]," +
+                "\"payload\":{\"submissionId\":\"abc\"}" +
+                "}";
+
+        mockMvc.perform(post("/notification-events")
+                        .header("Idempotency-Key", "evt-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isAccepted());
+
+        Mockito.verify(notificationService, Mockito.never()).processNotificationEvent(Mockito.any());
     }
 }
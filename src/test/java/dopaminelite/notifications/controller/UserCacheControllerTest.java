@@ -0,0 +1,41 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.exception.GlobalExceptionHandler;
+import dopaminelite.notifications.service.UserDataCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class UserCacheControllerTest {
+    private final UserDataCache userDataCache = Mockito.mock(UserDataCache.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new UserCacheController(userDataCache))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    @DisplayName("DELETE /user-cache/{userId} evicts the user")
+    void evictUser() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        mockMvc.perform(delete("/user-cache/{userId}", userId))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(userDataCache).evict(userId);
+    }
+
+    @Test
+    @DisplayName("DELETE /user-cache/{userId} rejects an invalid id")
+    void evictUser_invalidId() throws Exception {
+        mockMvc.perform(delete("/user-cache/{userId}", "not-a-uuid"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(userDataCache);
+    }
+}
@@ -0,0 +1,97 @@
+package dopaminelite.notifications.controller;
+
+import dopaminelite.notifications.dto.WebhookSubscriptionCreateRequest;
+import dopaminelite.notifications.dto.WebhookSubscriptionDto;
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import dopaminelite.notifications.exception.GlobalExceptionHandler;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import dopaminelite.notifications.exception.ValidationException;
+import dopaminelite.notifications.service.WebhookSubscriptionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class WebhookControllerTest {
+    private final WebhookSubscriptionService subscriptionService = Mockito.mock(WebhookSubscriptionService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new WebhookController(subscriptionService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    @DisplayName("POST /webhooks returns the subscription with its secret")
+    void createWebhook() throws Exception {
+        UUID id = UUID.randomUUID();
+        Mockito.when(subscriptionService.create(Mockito.any())).thenReturn(WebhookSubscriptionDto.builder()
+                .id(id).url("https://partner.example.com/hooks").secret("whsec_abc").active(true).build());
+
+        mockMvc.perform(post("/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Partner\",\"url\":\"https://partner.example.com/hooks\","
+                                + "\"eventTypes\":[\"ISSUE_MESSAGE_NEW\"]}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.secret").value("whsec_abc"));
+
+        ArgumentCaptor<WebhookSubscriptionCreateRequest> captor = ArgumentCaptor.forClass(WebhookSubscriptionCreateRequest.class);
+        Mockito.verify(subscriptionService).create(captor.capture());
+        assertEquals("https://partner.example.com/hooks", captor.getValue().getUrl());
+        assertEquals(List.of(NotificationEventType.ISSUE_MESSAGE_NEW), captor.getValue().getEventTypes());
+    }
+
+    @Test
+    @DisplayName("POST /webhooks rejects a URL that is not https")
+    void createWebhook_invalidUrl() throws Exception {
+        mockMvc.perform(post("/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"url\":\"http://partner.example.com\",\"eventTypes\":[\"ISSUE_MESSAGE_NEW\"]}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(subscriptionService);
+    }
+
+    @Test
+    @DisplayName("POST /webhooks requires at least one event type")
+    void createWebhook_withoutEventTypes() throws Exception {
+        mockMvc.perform(post("/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"url\":\"https://partner.example.com/hooks\",\"eventTypes\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(subscriptionService);
+    }
+
+    @Test
+    @DisplayName("POST /webhooks answers 400 for an endpoint on a private address")
+    void createWebhook_privateHost() throws Exception {
+        Mockito.when(subscriptionService.create(Mockito.any()))
+                .thenThrow(new ValidationException("Webhook host 10.0.0.5 is not a public address"));
+
+        mockMvc.perform(post("/webhooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"url\":\"https://10.0.0.5/hooks\",\"eventTypes\":[\"ISSUE_MESSAGE_NEW\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Webhook host 10.0.0.5 is not a public address"));
+    }
+
+    @Test
+    @DisplayName("DELETE /webhooks/{id} returns 404 for an unknown subscription")
+    void deleteWebhook_notFound() throws Exception {
+        UUID id = UUID.randomUUID();
+        Mockito.doThrow(new ResourceNotFoundException("Webhook subscription not found: " + id))
+                .when(subscriptionService).delete(id);
+
+        mockMvc.perform(delete("/webhooks/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+}
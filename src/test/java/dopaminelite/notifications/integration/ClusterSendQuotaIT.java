@@ -0,0 +1,137 @@
+package dopaminelite.notifications.integration;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import dopaminelite.notifications.service.ClusterSendQuota;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the cluster-wide send quota.
+ *
+ * Several ClusterSendQuota instances share one Postgres bucket, standing in for
+ * replicas of the service; together they must never exceed the configured rate
+ * or daily quota.
+ *
+ * Notes:
+ * - Requires Docker to run Testcontainers.
+ */
+@Testcontainers
+@SpringBootTest
+class ClusterSendQuotaIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:18")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.liquibase.enabled", () -> "true");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void resetBucket() {
+        jdbcTemplate.update("DELETE FROM send_rate_tokens");
+    }
+
+    @Test
+    @DisplayName("Should keep several instances together under the shared rate")
+    void instancesShareRate() throws Exception {
+        List<ClusterSendQuota> nodes = createNodes(3, 20, 0);
+        AtomicInteger sent = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ClusterSendQuota node : nodes) {
+                for (int worker = 0; worker < 4; worker++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 5; i++) {
+                            node.acquire(1);
+                            sent.incrementAndGet();
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        // 60 sends at 20/s with a one-second burst: at least ~2 seconds
+        assertThat(sent.get()).isEqualTo(60);
+        assertThat(elapsedSeconds).isGreaterThanOrEqualTo(1.8);
+        assertThat(sent.get()).isLessThanOrEqualTo((int) Math.ceil(20 + 20 * elapsedSeconds));
+    }
+
+    @Test
+    @DisplayName("Should enforce the daily quota across instances")
+    void instancesShareDailyQuota() throws Exception {
+        List<ClusterSendQuota> nodes = createNodes(3, 1000, 25);
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger deferred = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ClusterSendQuota node : nodes) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        try {
+                            node.acquire(1);
+                            sent.incrementAndGet();
+                        } catch (DeliveryDeferredException e) {
+                            deferred.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(sent.get()).isEqualTo(25);
+        assertThat(deferred.get()).isEqualTo(35);
+        assertThat(jdbcTemplate.queryForObject("SELECT day_used FROM send_rate_tokens", Long.class)).isEqualTo(25L);
+    }
+
+    private List<ClusterSendQuota> createNodes(int count, double maxPerSecond, long maxPerDay) {
+        List<ClusterSendQuota> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new ClusterSendQuota(jdbcTemplate, transactionManager, maxPerSecond, maxPerDay,
+                5, Duration.ofSeconds(1)));
+        }
+        return nodes;
+    }
+}
@@ -1,38 +1,101 @@
 package dopaminelite.notifications.integration;
 
-/**
- * Integration test for {@link dopaminelite.notifications.service.EmailService} using SMTP.
- *
- * TODO: Implement SMTP integration tests using GreenMail or similar SMTP test server.
- * Currently disabled to allow build to complete.
- */
-
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
 import dopaminelite.notifications.service.EmailService;
-import org.junit.jupiter.api.Disabled;
+import dopaminelite.notifications.service.PooledJavaMailSender;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
-@Disabled("SMTP integration tests to be implemented")
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for {@link EmailService} over the pooled SMTP transport,
+ * using a GreenMail SMTP server in place of SES.
+ */
 class EmailServiceIT {
 
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new PooledJavaMailSender(2, 3, Duration.ofSeconds(5), Duration.ofMinutes(1));
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        mailSender.setDefaultEncoding("UTF-8");
+        emailService = new EmailService("sender@example.com", mailSender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailSender.destroy();
+    }
+
     @Test
-    @DisplayName("SMTP sendEmail integration test - to be implemented")
-    void sendEmailWorks() {
-        // TODO: Set up GreenMail SMTP test server
-        // TODO: Configure EmailService with test SMTP settings
-        // TODO: Send test email
-        // TODO: Verify email was received by GreenMail
+    @DisplayName("sendEmail delivers message over SMTP")
+    void sendEmailWorks() throws Exception {
+        emailService.sendEmail("user@example.com", "Subject", "Body");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getSubject()).isEqualTo("Subject");
+        assertThat(received.getAllRecipients()[0].toString()).isEqualTo("user@example.com");
     }
 
     @Test
-    @DisplayName("sendEmailBatch integration test - to be implemented")
+    @DisplayName("sendEmailBatch delivers to every recipient")
     void sendEmailBatch_sendsToMultipleRecipients() {
-        // TODO: Implement batch send test
+        List<String> recipients = Arrays.asList("a@example.com", "b@example.com", "c@example.com");
+
+        emailService.sendEmailBatch(recipients, "Batch", "Body");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 3)).isTrue();
+    }
+
+    @Test
+    @DisplayName("sendEmail with Unicode content sends correctly")
+    void sendEmail_withUnicodeContent_sendsCorrectly() throws Exception {
+        emailService.sendEmail("user@example.com", "Test 🎉 Subject", "Body with émojis 😊 and ñ");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getSubject()).isEqualTo("Test 🎉 Subject");
+        assertThat(((String) received.getContent()).trim()).isEqualTo("Body with émojis 😊 and ñ");
     }
 
     @Test
-    @DisplayName("sendEmail with Unicode content - to be implemented")
-    void sendEmail_withUnicodeContent_sendsCorrectly() {
-        // TODO: Test Unicode handling
+    @DisplayName("sequential sends reuse one SMTP connection until the per-connection cap")
+    void sequentialSends_reusePooledConnection() {
+        for (int i = 0; i < 3; i++) {
+            emailService.sendEmail("user" + i + "@example.com", "Subject " + i, "Body");
+        }
+        assertThat(mailSender.getPool().getConnectionsOpened()).isEqualTo(1);
+
+        // Fourth message exceeds max-messages-per-connection (3), forcing a fresh session
+        emailService.sendEmail("user3@example.com", "Subject 3", "Body");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 4)).isTrue();
+        assertThat(mailSender.getPool().getConnectionsOpened()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("sendHtmlEmail delivers HTML content over pooled connection")
+    void sendHtmlEmail_deliversHtml() throws Exception {
+        emailService.sendHtmlEmail("user@example.com", "Html", "<p><strong>Hello</strong></p>");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        assertThat(greenMail.getReceivedMessages()[0].getContentType()).contains("multipart");
     }
 }
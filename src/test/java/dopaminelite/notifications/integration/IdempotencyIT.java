@@ -0,0 +1,115 @@
+package dopaminelite.notifications.integration;
+
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for idempotency keys against real Postgres.
+ *
+ * Purpose:
+ * - A repeated Idempotency-Key returns the first result without running again.
+ * - Sent delivery keys are found by the worker's batch lookup.
+ * - Expired keys are purged and can be claimed again.
+ *
+ * Notes:
+ * - Requires Docker to run Testcontainers.
+ */
+@Testcontainers
+@SpringBootTest
+class IdempotencyIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:18")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("notifications.outbox.listen.enabled", () -> "false");
+    }
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearKeys() {
+        jdbcTemplate.execute("DELETE FROM idempotency_keys");
+    }
+
+    @Test
+    @DisplayName("Should run an action once per idempotency key")
+    void repeatedKeyReturnsFirstResult() {
+        AtomicInteger runs = new AtomicInteger();
+        UUID broadcastId = UUID.randomUUID();
+
+        IdempotencyService.Outcome first = idempotencyService.execute("send", "req-1", () -> {
+            runs.incrementAndGet();
+            return broadcastId;
+        });
+        IdempotencyService.Outcome second = idempotencyService.execute("send", "req-1", () -> {
+            runs.incrementAndGet();
+            return UUID.randomUUID();
+        });
+        IdempotencyService.Outcome otherScope = idempotencyService.execute("send-by-email", "req-1", () -> {
+            runs.incrementAndGet();
+            return UUID.randomUUID();
+        });
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.resultId()).isEqualTo(broadcastId);
+        assertThat(otherScope.replayed()).isFalse();
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should find recorded delivery keys")
+    void findsRecordedDeliveries() {
+        UUID sent = IdempotencyService.deliveryKey(UUID.randomUUID(), NotificationChannel.EMAIL);
+        UUID pending = IdempotencyService.deliveryKey(UUID.randomUUID(), NotificationChannel.EMAIL);
+
+        idempotencyService.recordDelivered(List.of(sent));
+        idempotencyService.recordDelivered(List.of(sent));
+
+        assertThat(idempotencyService.findDelivered(List.of(sent, pending))).containsExactly(sent);
+    }
+
+    @Test
+    @DisplayName("Should purge expired keys and allow them to run again")
+    void expiredKeyRunsAgain() {
+        idempotencyService.execute("send", "req-2", UUID::randomUUID);
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = created_at - INTERVAL '1 hour'");
+
+        IdempotencyService.Outcome again = idempotencyService.execute("send", "req-2", UUID::randomUUID);
+        assertThat(again.replayed()).isFalse();
+
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = created_at - INTERVAL '1 hour'");
+        assertThat(idempotencyService.purgeExpired()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class)).isZero();
+    }
+}
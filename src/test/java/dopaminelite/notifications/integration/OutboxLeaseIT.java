@@ -0,0 +1,207 @@
+package dopaminelite.notifications.integration;
+
+import dopaminelite.notifications.entity.DeliveryOutbox;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
+import dopaminelite.notifications.entity.enums.DeliveryStatus;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.repository.DeliveryOutboxRepository;
+import dopaminelite.notifications.service.DeliveryResultWriter;
+import dopaminelite.notifications.service.IdempotencyService;
+import dopaminelite.notifications.service.OutboxClaimService;
+import dopaminelite.notifications.service.OutboxWorker;
+import dopaminelite.notifications.service.PooledJavaMailSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for in-flight outbox leases against real Postgres.
+ *
+ * Purpose:
+ * - Claimed entries are IN_FLIGHT and invisible to other claims.
+ * - Expired leases are reaped back into the queue, counting a retry.
+ * - A late result from the reaped attempt is fenced off.
+ * - A send reported under a lost lease is not repeated by the next claim.
+ * - Batches are shared between the transactional and bulk lanes by weight.
+ *
+ * Notes:
+ * - Requires Docker to run Testcontainers.
+ */
+@Testcontainers
+@SpringBootTest
+class OutboxLeaseIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:18")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("notifications.outbox.listen.enabled", () -> "false");
+    }
+
+    @Autowired
+    private DeliveryOutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxClaimService claimService;
+
+    @Autowired
+    private DeliveryResultWriter resultWriter;
+
+    @Autowired
+    private OutboxWorker outboxWorker;
+
+    @Autowired
+    private PooledJavaMailSender mailSender;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should mark claimed entries IN_FLIGHT and skip them on the next claim")
+    void claimMarksInFlight() {
+        DeliveryOutbox saved = outboxRepository.save(pendingEntry());
+
+        List<DeliveryOutbox> claimed = claimService.claimBatch(10);
+
+        assertThat(claimed).hasSize(1);
+        assertThat(claimed.get(0).getAttemptId()).isNotNull();
+        assertThat(outboxRepository.findById(saved.getId()).orElseThrow().getStatus())
+                .isEqualTo(DeliveryStatus.IN_FLIGHT);
+        assertThat(claimService.claimBatch(10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reap expired leases and fence the stale attempt's result")
+    void expiredLeaseIsReapedAndFenced() {
+        DeliveryOutbox saved = outboxRepository.save(pendingEntry());
+        DeliveryOutbox claimed = claimService.claimBatch(10).get(0);
+
+        // Simulate a worker that died: the lease runs out without heartbeats
+        jdbcTemplate.update("UPDATE delivery_outbox SET lease_until = lease_until - interval '1 day' WHERE id = ?",
+                saved.getId());
+
+        assertThat(claimService.reapExpiredLeases()).isEqualTo(1);
+        DeliveryOutbox reaped = outboxRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reaped.getStatus()).isEqualTo(DeliveryStatus.FAILED);
+        assertThat(reaped.getRetryCount()).isEqualTo(1);
+        assertThat(reaped.getAttemptId()).isNull();
+
+        // The stalled worker finally reports success under its old attempt
+        claimed.setStatus(DeliveryStatus.SENT);
+        claimed.setDeliveredAt(Instant.now());
+        assertThat(resultWriter.write(List.of(claimed), List.of())).isEqualTo(1);
+        assertThat(outboxRepository.findById(saved.getId()).orElseThrow().getStatus())
+                .isEqualTo(DeliveryStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("Should not send again on re-claim when the lease was lost after sending")
+    void sendUnderLostLeaseIsNotRepeated() {
+        DeliveryOutbox entry = pendingEntry();
+        entry.setDeliveryKey(IdempotencyService.deliveryKey(entry.getNotificationId(), entry.getChannel()));
+        DeliveryOutbox saved = outboxRepository.save(entry);
+        DeliveryOutbox claimed = claimService.claimBatch(10).get(0);
+
+        // The send went out, but the lease ran out and was reaped before the result was written
+        jdbcTemplate.update("UPDATE delivery_outbox SET lease_until = lease_until - interval '1 day' WHERE id = ?",
+                saved.getId());
+        assertThat(claimService.reapExpiredLeases()).isEqualTo(1);
+        claimed.setStatus(DeliveryStatus.SENT);
+        claimed.setDeliveredAt(Instant.now());
+        assertThat(resultWriter.write(List.of(claimed), List.of())).isEqualTo(1);
+
+        // Due again: the second claim finds the recorded key and completes the entry without sending
+        jdbcTemplate.update("UPDATE delivery_outbox SET next_retry_at = ? WHERE id = ?",
+                LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1), saved.getId());
+        long connectionsBefore = mailSender.getPool().getConnectionsOpened();
+        outboxWorker.processPending();
+
+        DeliveryOutbox completed = outboxRepository.findById(saved.getId()).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(DeliveryStatus.SENT);
+        assertThat(completed.getRetryCount()).isEqualTo(1);
+        assertThat(mailSender.getPool().getConnectionsOpened()).isEqualTo(connectionsBefore);
+    }
+
+    @Test
+    @DisplayName("Should write results for the attempt that still holds the lease")
+    void currentAttemptResultIsWritten() {
+        DeliveryOutbox saved = outboxRepository.save(pendingEntry());
+        DeliveryOutbox claimed = claimService.claimBatch(10).get(0);
+
+        assertThat(claimService.extendLease(claimed.getAttemptId())).isEqualTo(1);
+        claimed.setStatus(DeliveryStatus.SENT);
+        claimed.setDeliveredAt(Instant.now());
+
+        assertThat(resultWriter.write(List.of(claimed), List.of())).isZero();
+        DeliveryOutbox written = outboxRepository.findById(saved.getId()).orElseThrow();
+        assertThat(written.getStatus()).isEqualTo(DeliveryStatus.SENT);
+        assertThat(written.getClaimedBy()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reserve part of each batch for bulk entries and give unused share back")
+    void claimSharesBatchBetweenLanes() {
+        for (int i = 0; i < 10; i++) {
+            outboxRepository.save(pendingEntry(DeliveryPriority.BULK));
+        }
+        for (int i = 0; i < 4; i++) {
+            outboxRepository.save(pendingEntry(DeliveryPriority.TRANSACTIONAL));
+        }
+
+        // Default weights 4:1
+        List<DeliveryOutbox> mixed = claimService.claimBatch(5);
+        assertThat(mixed).extracting(DeliveryOutbox::getPriority)
+                .containsExactly(DeliveryPriority.TRANSACTIONAL, DeliveryPriority.TRANSACTIONAL,
+                        DeliveryPriority.TRANSACTIONAL, DeliveryPriority.TRANSACTIONAL, DeliveryPriority.BULK);
+
+        // Transactional lane ran dry: bulk fills the batch
+        List<DeliveryOutbox> bulkOnly = claimService.claimBatch(5);
+        assertThat(bulkOnly).hasSize(5);
+        assertThat(bulkOnly).extracting(DeliveryOutbox::getPriority).containsOnly(DeliveryPriority.BULK);
+    }
+
+    private DeliveryOutbox pendingEntry(DeliveryPriority priority) {
+        DeliveryOutbox outbox = pendingEntry();
+        outbox.setPriority(priority);
+        return outbox;
+    }
+
+    private DeliveryOutbox pendingEntry() {
+        DeliveryOutbox outbox = new DeliveryOutbox();
+        outbox.setNotificationId(UUID.randomUUID());
+        outbox.setChannel(NotificationChannel.EMAIL);
+        outbox.setRecipientEmail("user@example.com");
+        outbox.setStatus(DeliveryStatus.PENDING);
+        outbox.setNextRetryAt(Instant.now().minusSeconds(1));
+        return outbox;
+    }
+}
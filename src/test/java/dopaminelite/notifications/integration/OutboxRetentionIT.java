@@ -0,0 +1,128 @@
+package dopaminelite.notifications.integration;
+
+import dopaminelite.notifications.service.OutboxRetentionJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for delivery_outbox partition maintenance against real Postgres.
+ *
+ * Purpose:
+ * - Upcoming monthly partitions are created ahead of time.
+ * - Expired months are dropped once only SENT rows remain in them.
+ * - An expired month with entries still queued is kept, with their enqueue time intact.
+ *
+ * Notes:
+ * - Requires Docker to run Testcontainers.
+ */
+@Testcontainers
+@SpringBootTest
+class OutboxRetentionIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:18")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("notifications.outbox.listen.enabled", () -> "false");
+    }
+
+    @Autowired
+    private OutboxRetentionJob retentionJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createExpiredPartition() {
+        jdbcTemplate.execute("DELETE FROM delivery_outbox");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS delivery_outbox_2020_01 PARTITION OF delivery_outbox " +
+                "FOR VALUES FROM ('2020-01-01') TO ('2020-02-01')");
+    }
+
+    @Test
+    @DisplayName("Should create partitions for the coming months")
+    void createsUpcomingPartitions() {
+        retentionJob.createUpcomingPartitions();
+
+        YearMonth next = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+        assertThat(tableExists("delivery_outbox_" + next.toString().replace('-', '_'))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should drop an expired partition that only holds SENT rows")
+    void dropsExpiredSentPartition() {
+        insertEntry("SENT", LocalDateTime.of(2020, 1, 15, 10, 0));
+
+        assertThat(retentionJob.purgeExpiredPartitions()).isGreaterThanOrEqualTo(1);
+
+        assertThat(tableExists("delivery_outbox_2020_01")).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM delivery_outbox", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep an expired partition with queued entries until they are sent")
+    void keepsPartitionWithQueuedEntries() {
+        LocalDateTime enqueuedAt = LocalDateTime.of(2020, 1, 20, 10, 0);
+        insertEntry("SENT", LocalDateTime.of(2020, 1, 15, 10, 0));
+        UUID pending = insertEntry("PENDING", enqueuedAt);
+
+        retentionJob.purgeExpiredPartitions();
+
+        assertThat(tableExists("delivery_outbox_2020_01")).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT created_at FROM delivery_outbox WHERE id = ?", LocalDateTime.class, pending))
+                .isEqualTo(enqueuedAt);
+
+        jdbcTemplate.update("UPDATE delivery_outbox SET status = 'SENT' WHERE id = ?", pending);
+        retentionJob.purgeExpiredPartitions();
+
+        assertThat(tableExists("delivery_outbox_2020_01")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep an expired partition while an entry is in flight")
+    void keepsPartitionWithInFlightEntry() {
+        insertEntry("IN_FLIGHT", LocalDateTime.of(2020, 1, 20, 10, 0));
+
+        retentionJob.purgeExpiredPartitions();
+
+        assertThat(tableExists("delivery_outbox_2020_01")).isTrue();
+    }
+
+    private UUID insertEntry(String status, LocalDateTime createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO delivery_outbox (id, notification_id, channel, status, next_retry_at, " +
+                "created_at, updated_at) VALUES (?, ?, 'EMAIL', ?, ?, ?, ?)",
+                id, UUID.randomUUID(), status, createdAt, createdAt, createdAt);
+        return id;
+    }
+
+    private boolean tableExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, name));
+    }
+}
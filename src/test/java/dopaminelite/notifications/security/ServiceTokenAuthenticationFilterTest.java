@@ -0,0 +1,52 @@
+package dopaminelite.notifications.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceTokenAuthenticationFilterTest {
+
+    private final ServiceTokenAuthenticationFilter filter = new ServiceTokenAuthenticationFilter("test-service-token");
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("a matching service token authenticates the caller as the service")
+    void matchingToken_authenticates() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/device-tokens");
+        request.addHeader("X-Service-Token", "test-service-token");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertTrue(authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_SERVICE")));
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    @DisplayName("a missing or wrong service token leaves the request anonymous")
+    void wrongToken_staysAnonymous() throws Exception {
+        MockHttpServletRequest wrong = new MockHttpServletRequest("POST", "/device-tokens");
+        wrong.addHeader("X-Service-Token", "guess");
+
+        filter.doFilter(wrong, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/device-tokens"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
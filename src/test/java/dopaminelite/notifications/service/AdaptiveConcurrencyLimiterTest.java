@@ -0,0 +1,92 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(50).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    @Test
+    @DisplayName("fast successful sends raise the limit up to the maximum")
+    void fastSends_increaseLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 8, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("a slow send halves the limit, failures keep it at least 1")
+    void slowOrFailedSends_decreaseLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8, Duration.ZERO);
+
+        limiter.acquire();
+        limiter.release(SLOW, false);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("only one decrease per latency window")
+    void burstOfSlowSends_decreasesOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(SLOW, false);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("acquire waits while the limit is reached")
+    void acquire_atLimit_waitsForRelease() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, Duration.ofSeconds(1));
+        limiter.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> {
+            limiter.acquire();
+            acquired.countDown();
+        });
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(FAST, false);
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("acquire defers when no slot frees up within the max wait")
+    void acquire_atLimit_defersAfterMaxWait() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, Duration.ofSeconds(1),
+                Duration.ofMillis(50));
+        limiter.acquire();
+
+        assertThrows(DeliveryDeferredException.class, limiter::acquire);
+
+        limiter.cancel();
+        limiter.acquire();
+        assertEquals(1, limiter.getLimit());
+    }
+}
@@ -0,0 +1,189 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.exception.BatchLookupUnavailableException;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the BFF client and the user lookup stage against a local HTTP stub of the BFF.
+ */
+class BffClientServiceTest {
+
+    private static final String TOKEN = "internal-token";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<List<String>> batchRequests = new CopyOnWriteArrayList<>();
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    private final AtomicInteger singleRequests = new AtomicInteger();
+    private final Set<String> unknownUsers = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private volatile boolean batchEndpoint = true;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/users/public/batch", exchange -> {
+            if (!batchEndpoint) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            tokens.add(exchange.getRequestHeaders().getFirst("X-Service-Token"));
+            JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+            List<String> ids = new ArrayList<>();
+            body.get("userIds").forEach(id -> ids.add(id.asText()));
+            batchRequests.add(ids);
+            List<Map<String, String>> data = ids.stream()
+                .filter(id -> !unknownUsers.contains(id))
+                .map(id -> Map.of("id", id, "email", id + "@example.com"))
+                .toList();
+            respond(exchange, Map.of("success", true, "data", data));
+        });
+        server.createContext("/users/", exchange -> {
+            singleRequests.incrementAndGet();
+            String id = exchange.getRequestURI().getPath().split("/")[2];
+            if (unknownUsers.contains(id)) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            respond(exchange, Map.of("success", true, "data", Map.of("id", id, "email", id + "@example.com")));
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("getUsersPublicData sends up to batch-size ids per request and maps users by id")
+    void getUsersPublicData_batchesIds() {
+        BffClientService client = client(2);
+        List<UUID> userIds = users(5);
+        unknownUsers.add(userIds.get(3).toString());
+
+        Map<UUID, UserPublicDataDto> users = client.getUsersPublicData(userIds);
+
+        assertEquals(3, batchRequests.size());
+        assertEquals(List.of(2, 2, 1), batchRequests.stream().map(List::size).toList());
+        assertTrue(tokens.stream().allMatch(TOKEN::equals));
+        assertEquals(4, users.size());
+        assertEquals(userIds.get(0) + "@example.com", users.get(userIds.get(0)).getEmail());
+        assertFalse(users.containsKey(userIds.get(3)));
+    }
+
+    @Test
+    @DisplayName("getUsersPublicData reports a BFF without the batch endpoint and stops offering batches")
+    void getUsersPublicData_missingEndpoint() {
+        batchEndpoint = false;
+        BffClientService client = client(100);
+
+        assertTrue(client.isBatchLookupAvailable());
+        assertThrows(BatchLookupUnavailableException.class, () -> client.getUsersPublicData(users(3)));
+        assertFalse(client.isBatchLookupAvailable());
+    }
+
+    @Test
+    @DisplayName("resolve fetches a chunk in batch requests, keeping order and reporting unknown users")
+    void resolve_usesBatchEndpoint() throws InterruptedException {
+        BffUserLookup userLookup = new BffUserLookup(client(100), 4);
+        List<UUID> userIds = users(250);
+        unknownUsers.add(userIds.get(10).toString());
+
+        List<BffUserLookup.UserLookup> lookups = new ArrayList<>();
+        userLookup.resolve(userIds).forEach(lookups::add);
+        userLookup.destroy();
+
+        assertEquals(3, batchRequests.size());
+        assertEquals(0, singleRequests.get());
+        assertEquals(userIds, lookups.stream().map(BffUserLookup.UserLookup::userId).toList());
+        assertInstanceOf(ResourceNotFoundException.class, lookups.get(10).error());
+        assertEquals(userIds.get(11) + "@example.com", lookups.get(11).getOrThrow().getEmail());
+    }
+
+    @Test
+    @DisplayName("resolve falls back to parallel single lookups when the BFF has no batch endpoint")
+    void resolve_fallsBackToSingleLookups() throws InterruptedException {
+        batchEndpoint = false;
+        BffUserLookup userLookup = new BffUserLookup(client(100), 4);
+        List<UUID> userIds = users(5);
+
+        List<BffUserLookup.UserLookup> lookups = new ArrayList<>();
+        userLookup.resolve(userIds).forEach(lookups::add);
+        userLookup.destroy();
+
+        assertEquals(5, singleRequests.get());
+        for (int i = 0; i < userIds.size(); i++) {
+            assertEquals(userIds.get(i) + "@example.com", lookups.get(i).getOrThrow().getEmail());
+        }
+    }
+
+    @Test
+    @DisplayName("getUserPublicData serves repeated lookups, including unknown users, from the cache")
+    void getUserPublicData_usesCache() {
+        BffClientService client = client(100, new UserDataCache(100, Duration.ofMinutes(1),
+            Duration.ofMinutes(10), Duration.ofSeconds(30)));
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        unknownUsers.add(unknown.toString());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(known + "@example.com", client.getUserPublicData(known).getEmail());
+            assertThrows(ResourceNotFoundException.class, () -> client.getUserPublicData(unknown));
+        }
+
+        assertEquals(2, singleRequests.get());
+    }
+
+    private BffClientService client(int batchSize) {
+        return client(batchSize, UserDataCache.disabled());
+    }
+
+    private BffClientService client(int batchSize, UserDataCache cache) {
+        return new BffClientService(RestClient.builder(), cache,
+            "http://127.0.0.1:" + server.getAddress().getPort(), TOKEN, batchSize);
+    }
+
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+        exchange.getResponseBody().write(json);
+        exchange.close();
+    }
+
+    private static List<UUID> users(int count) {
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(UUID.randomUUID());
+        }
+        return users;
+    }
+}
@@ -0,0 +1,99 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BffUserLookupTest {
+
+    @Mock
+    private BffClientService bffClientService;
+
+    private BffUserLookup userLookup;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        userLookup.destroy();
+    }
+
+    @Test
+    @DisplayName("resolve returns lookups in the order of the ids")
+    void resolvePreservesOrder() {
+        userLookup = new BffUserLookup(bffClientService, 4);
+        List<UUID> userIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(bffClientService.getUserPublicData(any())).thenAnswer(inv -> {
+            UUID userId = inv.getArgument(0);
+            // Later users answer first
+            Thread.sleep(30L * (userIds.size() - userIds.indexOf(userId)));
+            return UserPublicDataDto.builder().email(userId + "@example.com").build();
+        });
+
+        List<String> emails = new ArrayList<>();
+        for (BffUserLookup.UserLookup lookup : userLookup.resolve(userIds)) {
+            emails.add(lookup.getOrThrow().getEmail());
+        }
+
+        assertThat(emails).containsExactly(
+            userIds.get(0) + "@example.com", userIds.get(1) + "@example.com", userIds.get(2) + "@example.com");
+    }
+
+    @Test
+    @DisplayName("resolve never has more lookups open than the concurrency")
+    void resolveBoundsConcurrency() {
+        userLookup = new BffUserLookup(bffClientService, 3);
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        when(bffClientService.getUserPublicData(any())).thenAnswer(inv -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            open.decrementAndGet();
+            return UserPublicDataDto.builder().build();
+        });
+        List<UUID> userIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            userIds.add(UUID.randomUUID());
+        }
+
+        int resolved = 0;
+        for (BffUserLookup.UserLookup lookup : userLookup.resolve(userIds)) {
+            assertThat(lookup.error()).isNull();
+            resolved++;
+        }
+
+        assertThat(resolved).isEqualTo(20);
+        assertThat(maxOpen.get()).isBetween(2, 3);
+    }
+
+    @Test
+    @DisplayName("resolve reports a failed lookup without affecting the others")
+    void resolveReportsFailurePerUser() {
+        userLookup = new BffUserLookup(bffClientService, 4);
+        UUID missing = UUID.randomUUID();
+        UUID found = UUID.randomUUID();
+        when(bffClientService.getUserPublicData(missing)).thenThrow(new ResourceNotFoundException("User not found"));
+        when(bffClientService.getUserPublicData(found)).thenReturn(UserPublicDataDto.builder().fullName("Found").build());
+
+        List<BffUserLookup.UserLookup> lookups = new ArrayList<>();
+        userLookup.resolve(List.of(missing, found)).forEach(lookups::add);
+
+        assertThat(lookups.get(0).userId()).isEqualTo(missing);
+        assertThatThrownBy(lookups.get(0)::getOrThrow).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(lookups.get(1).getOrThrow().getFullName()).isEqualTo("Found");
+    }
+}
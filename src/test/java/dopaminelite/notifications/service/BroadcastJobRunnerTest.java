@@ -0,0 +1,166 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.BroadcastRecord;
+import dopaminelite.notifications.exception.BroadcastLeaseLostException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BroadcastJobRunnerTest {
+
+    @Mock
+    private BroadcastService broadcastService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private BroadcastJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        runner = new BroadcastJobRunner(broadcastService, notificationService, 2, 1, "runner", Duration.ofMinutes(5),
+            3, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.destroy();
+    }
+
+    @Test
+    @DisplayName("run sends the audience in chunks and completes the job")
+    void runSendsAudienceInChunks() {
+        List<UUID> audience = users(5);
+        BroadcastRecord broadcast = broadcast(audience, 0);
+
+        runner.run(broadcast);
+
+        verify(notificationService).sendBroadcastChunk(eq(broadcast), eq(0), eq(audience.subList(0, 2)), any());
+        verify(notificationService).sendBroadcastChunk(eq(broadcast), eq(2), eq(audience.subList(2, 4)), any());
+        verify(notificationService).sendBroadcastChunk(eq(broadcast), eq(4), eq(audience.subList(4, 5)), any());
+        verifyNoMoreInteractions(notificationService);
+        verify(broadcastService).finishJob(broadcast.getId(), runner.getRunnerId(), null);
+    }
+
+    @Test
+    @DisplayName("runners sharing a configured id still hold jobs under distinct ids")
+    void runnerIdIsUniquePerInstance() {
+        BroadcastJobRunner other = new BroadcastJobRunner(broadcastService, notificationService, 2, 1, "runner",
+            Duration.ofMinutes(5), 3, Duration.ofSeconds(30));
+        try {
+            assertThat(runner.getRunnerId()).startsWith("runner-");
+            assertThat(other.getRunnerId()).startsWith("runner-").isNotEqualTo(runner.getRunnerId());
+        } finally {
+            other.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("run resumes an abandoned job from its checkpoint")
+    void runResumesFromCheckpoint() {
+        List<UUID> audience = users(5);
+        BroadcastRecord broadcast = broadcast(audience, 4);
+
+        runner.run(broadcast);
+
+        verify(notificationService).sendBroadcastChunk(eq(broadcast), eq(4), eq(audience.subList(4, 5)), any());
+        verifyNoMoreInteractions(notificationService);
+        verify(broadcastService).finishJob(broadcast.getId(), runner.getRunnerId(), null);
+    }
+
+    @Test
+    @DisplayName("run enqueues a send by email address in chunks of addresses")
+    void runSendsEmailAudienceInChunks() {
+        List<String> emails = List.of("a@example.com", "b@example.com", "c@example.com");
+        BroadcastRecord broadcast = broadcast(null, 0);
+        broadcast.setTargetEmails(emails);
+
+        runner.run(broadcast);
+
+        verify(notificationService).sendBroadcastEmailChunk(eq(broadcast), eq(0), eq(emails.subList(0, 2)), any());
+        verify(notificationService).sendBroadcastEmailChunk(eq(broadcast), eq(2), eq(emails.subList(2, 3)), any());
+        verifyNoMoreInteractions(notificationService);
+        verify(broadcastService).finishJob(broadcast.getId(), runner.getRunnerId(), null);
+    }
+
+    @Test
+    @DisplayName("run redoes a failed chunk per recipient and skips the recipient that fails alone")
+    void runSkipsRecipientThatFailsAlone() {
+        List<UUID> audience = users(4);
+        BroadcastRecord broadcast = broadcast(audience, 0);
+        doThrow(new IllegalStateException("bad recipient"))
+            .when(notificationService).sendBroadcastChunk(eq(broadcast), eq(2), eq(audience.subList(2, 4)), any());
+        doThrow(new IllegalStateException("bad recipient"))
+            .when(notificationService).sendBroadcastChunk(eq(broadcast), eq(3), eq(audience.subList(3, 4)), any());
+
+        runner.run(broadcast);
+
+        verify(notificationService).sendBroadcastChunk(eq(broadcast), eq(2), eq(audience.subList(2, 3)), any());
+        verify(notificationService).skipBroadcastRecipient(eq(broadcast), eq(3), any());
+        verify(broadcastService).finishJob(broadcast.getId(), runner.getRunnerId(), null);
+    }
+
+    @Test
+    @DisplayName("run releases the job for a retry when a chunk cannot be committed at all")
+    void runRetriesJobWhenChunkCannotCommit() {
+        List<UUID> audience = users(4);
+        BroadcastRecord broadcast = broadcast(audience, 0);
+        doNothing().doThrow(new IllegalStateException("database unavailable"))
+            .when(notificationService).sendBroadcastChunk(eq(broadcast), anyInt(), any(), any());
+        doThrow(new IllegalStateException("database unavailable"))
+            .when(notificationService).skipBroadcastRecipient(eq(broadcast), anyInt(), any());
+
+        runner.run(broadcast);
+
+        verify(notificationService).skipBroadcastRecipient(eq(broadcast), eq(2), any());
+        verify(broadcastService).retryOrFailJob(broadcast.getId(), runner.getRunnerId(), "database unavailable",
+            3, Duration.ofSeconds(30));
+        verify(broadcastService, never()).finishJob(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("run stops without finishing when another runner took the job over")
+    void runStopsWhenLeaseLost() {
+        List<UUID> audience = users(4);
+        BroadcastRecord broadcast = broadcast(audience, 0);
+        doThrow(new BroadcastLeaseLostException("taken over"))
+            .when(notificationService).sendBroadcastChunk(eq(broadcast), anyInt(), any(), any());
+
+        runner.run(broadcast);
+
+        verify(notificationService).sendBroadcastChunk(eq(broadcast), eq(0), any(), any());
+        verifyNoInteractions(broadcastService);
+    }
+
+    private static List<UUID> users(int count) {
+        List<UUID> users = new ArrayList<>();
+        IntStream.range(0, count).forEach(i -> users.add(UUID.randomUUID()));
+        return users;
+    }
+
+    private static BroadcastRecord broadcast(List<UUID> audience, int processed) {
+        BroadcastRecord broadcast = new BroadcastRecord();
+        broadcast.setId(UUID.randomUUID());
+        broadcast.setTargetUserIds(audience);
+        broadcast.setProcessedCount(processed);
+        broadcast.setClaimedBy("runner-1");
+        return broadcast;
+    }
+}
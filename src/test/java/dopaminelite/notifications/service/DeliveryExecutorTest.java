@@ -0,0 +1,72 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryExecutorTest {
+
+    private final DeliveryExecutor deliveryExecutor = new DeliveryExecutor(3, 1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        deliveryExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("submit runs deliveries in parallel up to the channel limit")
+    void submit_boundsInFlightTasksPerChannel() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            futures.add(deliveryExecutor.submit(NotificationChannel.EMAIL, () -> {
+                int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                sleep(50);
+                inFlight.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertTrue(maxInFlight.get() > 1, "deliveries should overlap");
+        assertTrue(maxInFlight.get() <= 3, "in-flight deliveries must not exceed the email limit");
+    }
+
+    @Test
+    @DisplayName("submit limits channels independently")
+    void submit_channelsHaveIndependentLimits() {
+        AtomicInteger whatsappInFlight = new AtomicInteger();
+        AtomicInteger whatsappMax = new AtomicInteger();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(deliveryExecutor.submit(NotificationChannel.WHATSAPP, () -> {
+                whatsappMax.accumulateAndGet(whatsappInFlight.incrementAndGet(), Math::max);
+                sleep(20);
+                whatsappInFlight.decrementAndGet();
+            }));
+            futures.add(deliveryExecutor.submit(NotificationChannel.EMAIL, () -> sleep(20)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(1, whatsappMax.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package dopaminelite.notifications.service;
 
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,9 +14,13 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -218,4 +226,78 @@ class EmailServiceTest {
         verify(mockMailSender).createMimeMessage();
         verify(mockMailSender).send(mockMimeMessage);
     }
+
+    @Test
+    @DisplayName("sendBroadcastEmail renders once per broadcast and sets each recipient")
+    void sendBroadcastEmail_rendersOnceAndSetsRecipient() throws Exception {
+        Session session = Session.getInstance(new Properties());
+        when(mockMailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage(session));
+        when(mockMailSender.createMimeMessage(any(InputStream.class)))
+            .thenAnswer(inv -> new MimeMessage(session, inv.<InputStream>getArgument(0)));
+        UUID broadcastId = UUID.randomUUID();
+
+        emailService.sendBroadcastEmail(broadcastId, "a@example.com", "Subject ñ", "<p>Hello</p>", true);
+        emailService.sendBroadcastEmail(broadcastId, "b@example.com", "Subject ñ", "<p>Hello</p>", true);
+
+        ArgumentCaptor<MimeMessage> captor = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mockMailSender, times(1)).createMimeMessage();
+        verify(mockMailSender, times(2)).send(captor.capture());
+
+        List<MimeMessage> sent = captor.getAllValues();
+        assertEquals(new InternetAddress("a@example.com"), sent.get(0).getRecipients(Message.RecipientType.TO)[0]);
+        assertEquals(new InternetAddress("b@example.com"), sent.get(1).getRecipients(Message.RecipientType.TO)[0]);
+        assertEquals("Subject ñ", sent.get(1).getSubject());
+        assertEquals(new InternetAddress(SENDER_EMAIL), sent.get(1).getFrom()[0]);
+        assertNull(sent.get(1).getMessageID());
+    }
+
+    @Test
+    @DisplayName("sendBroadcastEmail renders again when content changes")
+    void sendBroadcastEmail_differentContent_rendersAgain() {
+        Session session = Session.getInstance(new Properties());
+        when(mockMailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage(session));
+        when(mockMailSender.createMimeMessage(any(InputStream.class)))
+            .thenAnswer(inv -> new MimeMessage(session, inv.<InputStream>getArgument(0)));
+        UUID broadcastId = UUID.randomUUID();
+
+        emailService.sendBroadcastEmail(broadcastId, "a@example.com", "Subject", "Hello Alice", false);
+        emailService.sendBroadcastEmail(broadcastId, "b@example.com", "Subject", "Hello Bob", false);
+
+        verify(mockMailSender, times(2)).createMimeMessage();
+        verify(mockMailSender, times(2)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    @DisplayName("sendEmail fails fast once repeated provider failures open the circuit")
+    void sendEmail_providerDown_opensCircuitAndDefers() {
+        doThrow(new MailSendException("Connection timed out"))
+            .when(mockMailSender).send(any(SimpleMailMessage.class));
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(MailSendException.class,
+                () -> emailService.sendEmail("user@example.com", "Subject", "Body"));
+        }
+        assertThrows(DeliveryDeferredException.class,
+            () -> emailService.sendEmail("user@example.com", "Subject", "Body"));
+
+        verify(mockMailSender, times(5)).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    @DisplayName("sendEmail defers without spending quota when no send slot frees up")
+    void sendEmail_noSendSlot_defersAndReleasesPermission() {
+        SendQuota quota = mock(SendQuota.class);
+        SmtpCircuitBreaker circuitBreaker = mock(SmtpCircuitBreaker.class);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, Duration.ofSeconds(2),
+            Duration.ofMillis(50));
+        EmailService service = new EmailService(SENDER_EMAIL, mockMailSender, 64, quota, circuitBreaker, limiter);
+        limiter.acquire();
+
+        assertThrows(DeliveryDeferredException.class,
+            () -> service.sendEmail("user@example.com", "Subject", "Body"));
+
+        verify(circuitBreaker).releasePermission();
+        verifyNoInteractions(quota);
+        verify(mockMailSender, never()).send(any(SimpleMailMessage.class));
+    }
 }
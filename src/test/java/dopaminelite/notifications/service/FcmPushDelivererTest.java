@@ -0,0 +1,192 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.PushDeliveryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the FCM deliverer against a local HTTP stub of the v1 send endpoint.
+ */
+class FcmPushDelivererTest {
+
+    private static final String UNREGISTERED =
+            "{\"error\":{\"code\":404,\"message\":\"Requested entity was not found.\",\"status\":\"NOT_FOUND\"," +
+            "\"details\":[{\"@type\":\"type.googleapis.com/google.firebase.fcm.v1.FcmError\",\"errorCode\":\"UNREGISTERED\"}]}}";
+    private static final String UNAVAILABLE =
+            "{\"error\":{\"code\":503,\"message\":\"The service is currently unavailable.\",\"status\":\"UNAVAILABLE\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final Map<String, String> failingTokens = new ConcurrentHashMap<>();
+    private final Map<String, String> failingTitles = new ConcurrentHashMap<>();
+    private final DeliveryExecutor deliveryExecutor = new DeliveryExecutor(4, 4);
+    private final DeviceTokenService deviceTokenService = Mockito.mock(DeviceTokenService.class);
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/projects/demo-project/messages:send", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            requests.add(request);
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            String token = request.path("message").path("token").asText();
+            String error = failingTokens.getOrDefault(token,
+                    failingTitles.get(request.path("message").path("notification").path("title").asText()));
+            byte[] body = (error != null ? error : "{\"name\":\"projects/demo-project/messages/" + token + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(error != null ? objectMapper.readTree(error).path("error").path("code").asInt()
+                    : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() throws InterruptedException {
+        server.stop(0);
+        deliveryExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("deliver sends the notification to every device of the user")
+    void deliver_sendsToEachDevice() {
+        Notification notification = notification("Payment approved", "<p>Your payment was approved</p>");
+        Mockito.when(deviceTokenService.findTokens(Mockito.any()))
+                .thenReturn(Map.of(notification.getUserId(), List.of("phone", "browser")));
+
+        DeliveryResult result = deliverer(500).deliver(notification, null).join();
+
+        assertTrue(result.providerMessageId().startsWith("projects/demo-project/messages/"));
+        assertEquals(2, requests.size());
+        assertEquals("Bearer test-token", authorizations.get(0));
+        JsonNode message = requests.get(0).path("message");
+        assertEquals("Payment approved", message.path("notification").path("title").asText());
+        assertEquals("Your payment was approved", message.path("notification").path("body").asText());
+    }
+
+    @Test
+    @DisplayName("deliverBatch splits a broadcast into multicasts and looks up tokens once")
+    void deliverBatch_broadcast_chunksMulticasts() {
+        UUID broadcastId = UUID.randomUUID();
+        List<ChannelDeliverer.Delivery> batch = List.of(
+                new ChannelDeliverer.Delivery(broadcast(broadcastId), null),
+                new ChannelDeliverer.Delivery(broadcast(broadcastId), null),
+                new ChannelDeliverer.Delivery(broadcast(broadcastId), null));
+        Mockito.when(deviceTokenService.findTokens(Mockito.any())).thenReturn(Map.of(
+                batch.get(0).notification().getUserId(), List.of("a1", "a2"),
+                batch.get(1).notification().getUserId(), List.of("b1"),
+                batch.get(2).notification().getUserId(), List.of("c1", "c2")));
+
+        List<CompletableFuture<DeliveryResult>> results = deliverer(2).deliverBatch(batch);
+
+        results.forEach(future -> assertNotNull(future.join()));
+        assertEquals(5, requests.size());
+        assertEquals(broadcastId.toString(), requests.get(0).path("message").path("data").path("broadcastId").asText());
+        Mockito.verify(deviceTokenService, Mockito.times(1)).findTokens(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("deliver succeeds on any live device and prunes unregistered tokens")
+    @SuppressWarnings("unchecked")
+    void deliver_unregisteredToken_prunesIt() {
+        Notification notification = notification("Title", "Body");
+        Mockito.when(deviceTokenService.findTokens(Mockito.any()))
+                .thenReturn(Map.of(notification.getUserId(), List.of("stale", "live")));
+        failingTokens.put("stale", UNREGISTERED);
+
+        DeliveryResult result = deliverer(500).deliver(notification, null).join();
+
+        assertEquals("projects/demo-project/messages/live", result.providerMessageId());
+        ArgumentCaptor<Collection<String>> pruned = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(deviceTokenService, Mockito.timeout(1000)).prune(pruned.capture());
+        assertEquals(List.of("stale"), List.copyOf(pruned.getValue()));
+    }
+
+    @Test
+    @DisplayName("deliverBatch reports each notification's own outcome for a user with two notifications")
+    void deliverBatch_twoNotificationsForOneUser_keepTheirOwnResults() {
+        Notification failed = notification("First", "Body");
+        Notification sent = notification("Second", "Body");
+        sent.setUserId(failed.getUserId());
+        Mockito.when(deviceTokenService.findTokens(Mockito.any()))
+                .thenReturn(Map.of(failed.getUserId(), List.of("phone")));
+        failingTitles.put("First", UNAVAILABLE);
+
+        List<CompletableFuture<DeliveryResult>> results = deliverer(500).deliverBatch(List.of(
+                new ChannelDeliverer.Delivery(failed, null),
+                new ChannelDeliverer.Delivery(sent, null)));
+
+        CompletionException error = assertThrows(CompletionException.class, () -> results.get(0).join());
+        PushDeliveryException pushError = assertInstanceOf(PushDeliveryException.class, error.getCause());
+        assertEquals(DeliveryErrorClass.PROVIDER_UNAVAILABLE, DeliveryErrorClassifier.classify(pushError));
+        assertEquals("projects/demo-project/messages/phone", results.get(1).join().providerMessageId());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("deliver fails as recipient rejected when the user has no devices")
+    void deliver_noDevices_failsRejected() {
+        Mockito.when(deviceTokenService.findTokens(Mockito.any())).thenReturn(Map.of());
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer(500).deliver(notification("Title", "Body"), null).join());
+
+        PushDeliveryException pushError = assertInstanceOf(PushDeliveryException.class, error.getCause());
+        assertEquals(DeliveryErrorClass.RECIPIENT_REJECTED, DeliveryErrorClassifier.classify(pushError));
+        assertTrue(requests.isEmpty());
+    }
+
+    private FcmPushDeliverer deliverer(int multicastSize) {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        return new FcmPushDeliverer(objectMapper, deliveryExecutor, deviceTokenService, baseUrl, "demo-project",
+                "", "test-token", multicastSize, Duration.ofSeconds(5));
+    }
+
+    private static Notification broadcast(UUID broadcastId) {
+        Notification notification = notification("Exam results", "Results are out");
+        notification.setBroadcastId(broadcastId);
+        return notification;
+    }
+
+    private static Notification notification(String title, String body) {
+        Notification notification = new Notification();
+        notification.setId(UUID.randomUUID());
+        notification.setUserId(UUID.randomUUID());
+        notification.setChannel(NotificationChannel.PUSH);
+        notification.setTitle(title);
+        notification.setBody(body);
+        return notification;
+    }
+}
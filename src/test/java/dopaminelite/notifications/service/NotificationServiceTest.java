@@ -1,13 +1,23 @@
 package dopaminelite.notifications.service;
 
+import dopaminelite.notifications.dto.DirectNotificationSendByEmailRequest;
 import dopaminelite.notifications.dto.DirectNotificationSendRequest;
+import dopaminelite.notifications.dto.NotificationDto;
 import dopaminelite.notifications.dto.NotificationEventRequest;
+import dopaminelite.notifications.dto.SendFromTemplateRequest;
 import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.entity.BroadcastRecord;
 import dopaminelite.notifications.entity.DeliveryOutbox;
 import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.NotificationTemplate;
+import dopaminelite.notifications.entity.WebhookSubscription;
+import dopaminelite.notifications.entity.enums.BroadcastStatus;
+import dopaminelite.notifications.entity.enums.DeliveryPriority;
 import dopaminelite.notifications.entity.enums.DeliveryStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
 import dopaminelite.notifications.entity.enums.NotificationEventType;
+import dopaminelite.notifications.exception.BroadcastLeaseLostException;
+import dopaminelite.notifications.exception.ValidationException;
 import dopaminelite.notifications.repository.BroadcastRecordRepository;
 import dopaminelite.notifications.repository.DeliveryOutboxRepository;
 import dopaminelite.notifications.repository.NotificationRepository;
@@ -17,16 +27,20 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,6 +49,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
 
+    private static final Instant LEASE_UNTIL = Instant.parse("2026-01-01T00:05:00Z");
+
     @Mock
     private NotificationRepository notificationRepository;
 
@@ -53,7 +69,15 @@ class NotificationServiceTest {
     @Mock
     private BffClientService bffClientService;
 
-    @InjectMocks
+    @Mock
+    private OutboxNotifier outboxNotifier;
+
+    @Mock
+    private WebhookSubscriptionService webhookSubscriptionService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private NotificationService notificationService;
 
     private UUID userId;
@@ -62,6 +86,13 @@ class NotificationServiceTest {
 
     @BeforeEach
     void setUp() {
+        ChannelDeliverers channelDeliverers = new ChannelDeliverers(List.of(
+            new EmailChannelDeliverer(sesEmailService, RecipientDomainThrottle.unlimited(), new DeliveryExecutor(4, 4),
+                broadcastRepository)));
+        notificationService = new NotificationService(notificationRepository, deliveryOutboxRepository,
+            templateRepository, broadcastRepository, bffClientService, outboxNotifier,
+            channelDeliverers, webhookSubscriptionService, eventPublisher,
+            new BffUserLookup(bffClientService, 4));
         userId = UUID.randomUUID();
         userData = UserPublicDataDto.builder()
             .fullName("Test User")
@@ -115,15 +146,22 @@ class NotificationServiceTest {
         Notification saved = notifCaptor.getAllValues().get(0);
         assertThat(saved.getChannel()).isEqualTo(NotificationChannel.EMAIL);
 
-        // Verify outbox entry created with email
+        // Verify outbox entry created with email and workers notified
         ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
         verify(deliveryOutboxRepository).save(outboxCaptor.capture());
+        verify(outboxNotifier).notifyEnqueued();
         DeliveryOutbox outbox = outboxCaptor.getValue();
         assertThat(outbox.getChannel()).isEqualTo(NotificationChannel.EMAIL);
         assertThat(outbox.getRecipientEmail()).isEqualTo("user@example.com");
         assertThat(outbox.getStatus()).isEqualTo(DeliveryStatus.PENDING);
         assertThat(outbox.getRetryCount()).isEqualTo(0);
         assertThat(outbox.getMaxRetries()).isEqualTo(3);
+        assertThat(outbox.getPriority()).isEqualTo(DeliveryPriority.TRANSACTIONAL);
+
+        // Snapshot lets the worker deliver without looking the notification up
+        assertThat(outbox.getUserId()).isEqualTo(userId);
+        assertThat(outbox.getTitle()).isEqualTo(saved.getTitle());
+        assertThat(outbox.getBody()).isEqualTo(saved.getBody());
     }
 
     @Test
@@ -143,6 +181,97 @@ class NotificationServiceTest {
         verify(deliveryOutboxRepository, never()).save(any(DeliveryOutbox.class));
     }
 
+    @Test
+    @DisplayName("Should not send PUSH for an admin broadcast unless requested")
+    void processNotificationEventAdminBroadcastDefaultsWithoutPush() {
+        NotificationEventRequest request = new NotificationEventRequest();
+        request.setPrimaryUserId(userId);
+        request.setEventType(NotificationEventType.ADMIN_BROADCAST);
+
+        when(bffClientService.getUserPublicData(userId)).thenReturn(userData);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        notificationService.processNotificationEvent(request);
+
+        ArgumentCaptor<Notification> notifCaptor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationRepository, atLeastOnce()).save(notifCaptor.capture());
+        assertThat(notifCaptor.getAllValues())
+            .extracting(Notification::getChannel)
+            .containsExactly(NotificationChannel.IN_APP, NotificationChannel.EMAIL);
+    }
+
+    @Test
+    @DisplayName("Should enqueue one WEBHOOK entry per subscription to the event type")
+    void processNotificationEventEnqueuesWebhookPerSubscription() {
+        NotificationEventRequest request = new NotificationEventRequest();
+        request.setPrimaryUserId(userId);
+        request.setEventType(NotificationEventType.ISSUE_MESSAGE_NEW);
+        request.setChannels(List.of(NotificationChannel.IN_APP));
+
+        WebhookSubscription first = new WebhookSubscription();
+        first.setId(UUID.randomUUID());
+        WebhookSubscription second = new WebhookSubscription();
+        second.setId(UUID.randomUUID());
+        when(webhookSubscriptionService.findActive(NotificationEventType.ISSUE_MESSAGE_NEW))
+            .thenReturn(List.of(first, second));
+        when(bffClientService.getUserPublicData(userId)).thenReturn(userData);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> {
+            Notification saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+        when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        notificationService.processNotificationEvent(request);
+
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository, times(2)).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getAllValues())
+            .allMatch(outbox -> outbox.getChannel() == NotificationChannel.WEBHOOK)
+            .extracting(DeliveryOutbox::getWebhookId)
+            .containsExactly(first.getId(), second.getId());
+        // Each endpoint is deduplicated on its own
+        assertThat(outboxCaptor.getAllValues().get(0).getDeliveryKey())
+            .isNotEqualTo(outboxCaptor.getAllValues().get(1).getDeliveryKey());
+    }
+
+    @Test
+    @DisplayName("Should not add WEBHOOK when no subscription receives the event type")
+    void processNotificationEventSkipsWebhookWithoutMatchingSubscription() {
+        NotificationEventRequest request = new NotificationEventRequest();
+        request.setPrimaryUserId(userId);
+        request.setEventType(NotificationEventType.PAYMENT_STATUS_CHANGED);
+        request.setChannels(List.of(NotificationChannel.IN_APP));
+
+        when(webhookSubscriptionService.findActive(NotificationEventType.PAYMENT_STATUS_CHANGED)).thenReturn(List.of());
+        when(bffClientService.getUserPublicData(userId)).thenReturn(userData);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        notificationService.processNotificationEvent(request);
+
+        ArgumentCaptor<Notification> notifCaptor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationRepository).save(notifCaptor.capture());
+        assertThat(notifCaptor.getValue().getChannel()).isEqualTo(NotificationChannel.IN_APP);
+        verifyNoInteractions(deliveryOutboxRepository);
+    }
+
+    @Test
+    @DisplayName("Should keep WEBHOOK notifications out of a user's listing")
+    void listNotificationsExcludesWebhook() {
+        when(notificationRepository.findByUserIdAndChannelNotOrderByCreatedAtDesc(
+            eq(userId), eq(NotificationChannel.WEBHOOK), any())).thenReturn(new PageImpl<>(List.of(notification)));
+        when(notificationRepository.countByUserIdAndChannelNot(userId, NotificationChannel.WEBHOOK)).thenReturn(1L);
+
+        var all = notificationService.listNotifications(userId, null, null, 20, 0);
+        var webhooks = notificationService.listNotifications(userId, null, NotificationChannel.WEBHOOK, 20, 0);
+
+        assertThat(all.getItems()).extracting(NotificationDto::getId).containsExactly(notification.getId());
+        assertThat(all.getTotal()).isEqualTo(1L);
+        assertThat(webhooks.getItems()).isEmpty();
+        assertThat(webhooks.getTotal()).isZero();
+    }
+
     @Test
     @DisplayName("Should deliver EMAIL notification and update status to SENT")
     void deliverNotificationSuccess() {
@@ -166,12 +295,10 @@ class NotificationServiceTest {
     }
 
     @Test
-    @DisplayName("Should send direct notifications and enqueue outbox for each user+channel")
+    @DisplayName("Should queue direct notifications as a broadcast job without fanning out")
     void sendDirectNotifications() {
         UUID user1Id = UUID.randomUUID();
         UUID user2Id = UUID.randomUUID();
-        UserPublicDataDto user1Data = UserPublicDataDto.builder().fullName("User 1").email("user1@example.com").build();
-        UserPublicDataDto user2Data = UserPublicDataDto.builder().fullName("User 2").email("user2@example.com").build();
 
         DirectNotificationSendRequest request = new DirectNotificationSendRequest();
         request.setTargetUserIds(List.of(user1Id, user2Id));
@@ -179,19 +306,218 @@ class NotificationServiceTest {
         request.setTitle("Broadcast");
         request.setBody("Message");
 
+        when(broadcastRepository.save(any())).thenAnswer(inv -> {
+            BroadcastRecord saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        UUID sentBy = UUID.randomUUID();
+        UUID broadcastId = notificationService.sendDirectNotifications(request, sentBy);
+
+        ArgumentCaptor<BroadcastRecord> broadcastCaptor = ArgumentCaptor.forClass(BroadcastRecord.class);
+        verify(broadcastRepository).save(broadcastCaptor.capture());
+        BroadcastRecord queued = broadcastCaptor.getValue();
+        assertThat(queued.getId()).isEqualTo(broadcastId);
+        assertThat(queued.getStatus()).isEqualTo(BroadcastStatus.QUEUED);
+        assertThat(queued.getTargetUserIds()).containsExactly(user1Id, user2Id);
+        assertThat(queued.getRecipientCount()).isEqualTo(2);
+        verify(eventPublisher).publishEvent(new BroadcastQueuedEvent(broadcastId));
+
+        // The fan-out is left to the job runner
+        verifyNoInteractions(bffClientService, notificationRepository, deliveryOutboxRepository);
+    }
+
+    @Test
+    @DisplayName("Should queue a send by email address as a broadcast job of distinct addresses without sending in the request")
+    void sendDirectNotificationsByEmail_queuesJob() {
+        DirectNotificationSendByEmailRequest request = new DirectNotificationSendByEmailRequest();
+        request.setTargetEmails(List.of("a@example.com", "b@example.org", " A@Example.com "));
+        request.setChannels(List.of(NotificationChannel.EMAIL));
+        request.setTitle("Invitation");
+        request.setBody("<p>Join us</p>");
+
+        when(broadcastRepository.save(any())).thenAnswer(inv -> {
+            BroadcastRecord saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        UUID broadcastId = notificationService.sendDirectNotificationsByEmail(request, UUID.randomUUID());
+
+        ArgumentCaptor<BroadcastRecord> broadcastCaptor = ArgumentCaptor.forClass(BroadcastRecord.class);
+        verify(broadcastRepository).save(broadcastCaptor.capture());
+        BroadcastRecord queued = broadcastCaptor.getValue();
+        assertThat(queued.getId()).isEqualTo(broadcastId);
+        assertThat(queued.getStatus()).isEqualTo(BroadcastStatus.QUEUED);
+        assertThat(queued.getTargetEmails()).containsExactly("a@example.com", "b@example.org");
+        assertThat(queued.getTargetUserIds()).isNull();
+        assertThat(queued.audienceSize()).isEqualTo(2);
+        verify(eventPublisher).publishEvent(new BroadcastQueuedEvent(broadcastId));
+
+        // No SMTP in the request thread; the runner and the outbox deliver
+        verifyNoInteractions(sesEmailService, deliveryOutboxRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject every channel other than EMAIL for a send by email address")
+    void sendDirectNotificationsByEmail_rejectsNonEmailChannels() {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            if (channel == NotificationChannel.EMAIL) continue;
+            DirectNotificationSendByEmailRequest request = new DirectNotificationSendByEmailRequest();
+            request.setTargetEmails(List.of("a@example.com"));
+            request.setChannels(List.of(NotificationChannel.EMAIL, channel));
+            request.setTitle("Invitation");
+            request.setBody("Join us");
+
+            assertThatThrownBy(() -> notificationService.sendDirectNotificationsByEmail(request, UUID.randomUUID()))
+                .as(channel.name())
+                .isInstanceOf(ValidationException.class);
+        }
+        verifyNoInteractions(broadcastRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("sendBroadcastEmailChunk enqueues one bulk EMAIL entry per address without a notification row")
+    void sendBroadcastEmailChunk() {
+        BroadcastRecord broadcast = broadcast("Invitation", "Join us", List.of(NotificationChannel.EMAIL));
+        when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+
+        notificationService.sendBroadcastEmailChunk(broadcast, 2,
+            List.of("a@example.com", "b@example.org", "c@example.net"), LEASE_UNTIL);
+
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository, times(3)).save(outboxCaptor.capture());
+        List<DeliveryOutbox> entries = outboxCaptor.getAllValues();
+        assertThat(entries).extracting(DeliveryOutbox::getRecipientEmail)
+            .containsExactly("a@example.com", "b@example.org", "c@example.net");
+        assertThat(entries).allSatisfy(entry -> {
+            assertThat(entry.getChannel()).isEqualTo(NotificationChannel.EMAIL);
+            assertThat(entry.getPriority()).isEqualTo(DeliveryPriority.BULK);
+            assertThat(entry.getBroadcastId()).isEqualTo(broadcast.getId());
+            assertThat(entry.getUserId()).isNull();
+            assertThat(entry.getTitle()).isEqualTo("Invitation");
+            assertThat(entry.getNotificationCreatedAt()).isNotNull();
+        });
+        assertThat(entries).extracting(DeliveryOutbox::getDeliveryKey).doesNotHaveDuplicates();
+        verifyNoInteractions(notificationRepository, sesEmailService);
+        verify(broadcastRepository).advanceCheckpoint(broadcast.getId(), "runner-1", 2, 3, 3, 0, LEASE_UNTIL);
+    }
+
+    @Test
+    @DisplayName("skipBroadcastRecipient advances past the recipient and counts it failed on every channel")
+    void skipBroadcastRecipient() {
+        BroadcastRecord broadcast = broadcast("Title", "Body",
+            List.of(NotificationChannel.IN_APP, NotificationChannel.EMAIL));
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+
+        notificationService.skipBroadcastRecipient(broadcast, 5, LEASE_UNTIL);
+
+        verify(broadcastRepository).advanceCheckpoint(broadcast.getId(), "runner-1", 5, 1, 0, 2, LEASE_UNTIL);
+        verifyNoInteractions(notificationRepository, deliveryOutboxRepository);
+    }
+
+    @Test
+    @DisplayName("sendBroadcastChunk enqueues outbox for each user+channel and records the chunk's progress")
+    void sendBroadcastChunk() {
+        UUID user1Id = UUID.randomUUID();
+        UUID user2Id = UUID.randomUUID();
+        UserPublicDataDto user1Data = UserPublicDataDto.builder().fullName("User 1").email("user1@example.com").build();
+        UserPublicDataDto user2Data = UserPublicDataDto.builder().fullName("User 2").email("user2@example.com").build();
+        BroadcastRecord broadcast = broadcast("Broadcast", "Message",
+            List.of(NotificationChannel.EMAIL, NotificationChannel.IN_APP));
+
         when(bffClientService.getUserPublicData(user1Id)).thenReturn(user1Data);
         when(bffClientService.getUserPublicData(user2Id)).thenReturn(user2Data);
         when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
         when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(broadcastRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
-        UUID sentBy = UUID.randomUUID();
-        notificationService.sendDirectNotifications(request, sentBy);
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+        notificationService.sendBroadcastChunk(broadcast, 0, List.of(user1Id, user2Id), LEASE_UNTIL);
+
+        // 2 users * 2 channels = 4 notifications created
+        verify(notificationRepository, times(4)).save(any(Notification.class));
+        // Only EMAIL channel enqueues (2 users * 1 EMAIL = 2), in the bulk lane
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository, times(2)).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getAllValues())
+            .extracting(DeliveryOutbox::getPriority)
+            .containsOnly(DeliveryPriority.BULK);
+        verify(broadcastRepository).advanceCheckpoint(broadcast.getId(), "runner-1", 0, 2, 4, 0, LEASE_UNTIL);
+    }
 
-        // 2 users * 2 channels = 4 notifications created + 2 EMAIL delivery saves = 6 total
-        verify(notificationRepository, times(6)).save(any(Notification.class));
-        // Only EMAIL channel enqueues (2 users * 1 EMAIL = 2)
-        verify(deliveryOutboxRepository, times(2)).save(any(DeliveryOutbox.class));
+    @Test
+    @DisplayName("sendFromTemplate queues the template broadcast as a job")
+    void sendFromTemplate_queuesJob() {
+        UUID templateId = UUID.randomUUID();
+        NotificationTemplate template = new NotificationTemplate();
+        template.setId(templateId);
+        template.setTemplateName("Welcome");
+        template.setContentEnglish("Hello {{name}}");
+        template.setChannels(List.of(NotificationChannel.EMAIL));
+        template.setSentTimes(0);
+
+        SendFromTemplateRequest request = new SendFromTemplateRequest();
+        request.setTemplateId(templateId);
+        request.setTargetUserIds(List.of(userId));
+
+        when(templateRepository.findById(templateId)).thenReturn(Optional.of(template));
+        when(broadcastRepository.save(any())).thenAnswer(inv -> {
+            BroadcastRecord saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        UUID broadcastId = notificationService.sendFromTemplate(request, UUID.randomUUID());
+
+        ArgumentCaptor<BroadcastRecord> broadcastCaptor = ArgumentCaptor.forClass(BroadcastRecord.class);
+        verify(broadcastRepository).save(broadcastCaptor.capture());
+        BroadcastRecord queued = broadcastCaptor.getValue();
+        assertThat(queued.getStatus()).isEqualTo(BroadcastStatus.QUEUED);
+        assertThat(queued.getTemplateId()).isEqualTo(templateId);
+        assertThat(queued.getBody()).isEqualTo("Hello {{name}}");
+        assertThat(queued.getTargetUserIds()).containsExactly(userId);
+        assertThat(template.getSentTimes()).isEqualTo(1);
+        verify(eventPublisher).publishEvent(new BroadcastQueuedEvent(broadcastId));
+        verifyNoInteractions(bffClientService, notificationRepository, deliveryOutboxRepository);
+    }
+
+    @Test
+    @DisplayName("sendBroadcastChunk personalizes template broadcasts per recipient")
+    void sendBroadcastChunk_template_personalizesContent() {
+        BroadcastRecord broadcast = broadcast("Welcome", "Hello {{name}}", List.of(NotificationChannel.EMAIL));
+        broadcast.setTemplateId(UUID.randomUUID());
+
+        when(bffClientService.getUserPublicData(userId)).thenReturn(userData);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+
+        notificationService.sendBroadcastChunk(broadcast, 200, List.of(userId), LEASE_UNTIL);
+
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getValue().getBody()).isEqualTo("Hello " + userData.getFullName());
+        verify(broadcastRepository).advanceCheckpoint(broadcast.getId(), "runner-1", 200, 1, 1, 0, LEASE_UNTIL);
+    }
+
+    @Test
+    @DisplayName("sendBroadcastChunk fails the chunk when the job is no longer held at its checkpoint")
+    void sendBroadcastChunk_leaseLost_throws() {
+        BroadcastRecord broadcast = broadcast("Broadcast", "Message", List.of(NotificationChannel.IN_APP));
+
+        when(bffClientService.getUserPublicData(userId)).thenReturn(userData);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(0);
+
+        assertThatThrownBy(() -> notificationService.sendBroadcastChunk(broadcast, 0, List.of(userId), LEASE_UNTIL))
+            .isInstanceOf(BroadcastLeaseLostException.class);
     }
 
     // ========== SES-Specific Integration Tests ==========
@@ -317,8 +643,8 @@ class NotificationServiceTest {
     }
 
     @Test
-    @DisplayName("sendDirectNotifications multiple users calls SES for each EMAIL notification")
-    void sendDirectNotifications_multipleUsers_callsSesForEachUser() {
+    @DisplayName("sendBroadcastChunk multiple users enqueues an EMAIL delivery for each user")
+    void sendBroadcastChunk_multipleUsers_enqueuesEmailForEachUser() {
         // Arrange
         UUID user1Id = UUID.randomUUID();
         UUID user2Id = UUID.randomUUID();
@@ -327,60 +653,101 @@ class NotificationServiceTest {
         UserPublicDataDto user2Data = UserPublicDataDto.builder().fullName("User 2").email("user2@example.com").build();
         UserPublicDataDto user3Data = UserPublicDataDto.builder().fullName("User 3").email("user3@example.com").build();
 
-        DirectNotificationSendRequest request = new DirectNotificationSendRequest();
-        request.setTargetUserIds(List.of(user1Id, user2Id, user3Id));
-        request.setChannels(List.of(NotificationChannel.EMAIL));
-        request.setTitle("System Maintenance");
-        request.setBody("Scheduled downtime at 2 AM");
+        BroadcastRecord broadcast = broadcast("System Maintenance", "Scheduled downtime at 2 AM",
+            List.of(NotificationChannel.EMAIL));
 
         when(bffClientService.getUserPublicData(user1Id)).thenReturn(user1Data);
         when(bffClientService.getUserPublicData(user2Id)).thenReturn(user2Data);
         when(bffClientService.getUserPublicData(user3Id)).thenReturn(user3Data);
         when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
         when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(broadcastRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         // Act
-        UUID sentBy = UUID.randomUUID();
-        notificationService.sendDirectNotifications(request, sentBy);
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+        notificationService.sendBroadcastChunk(broadcast, 0, List.of(user1Id, user2Id, user3Id), LEASE_UNTIL);
 
         // Assert
-        verify(sesEmailService).sendEmail("user1@example.com", "System Maintenance", "Scheduled downtime at 2 AM");
-        verify(sesEmailService).sendEmail("user2@example.com", "System Maintenance", "Scheduled downtime at 2 AM");
-        verify(sesEmailService).sendEmail("user3@example.com", "System Maintenance", "Scheduled downtime at 2 AM");
-        verify(sesEmailService, times(3)).sendEmail(anyString(), anyString(), anyString());
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository, times(3)).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getAllValues())
+            .extracting(DeliveryOutbox::getRecipientEmail)
+            .containsExactly("user1@example.com", "user2@example.com", "user3@example.com");
+        assertThat(outboxCaptor.getAllValues())
+            .extracting(DeliveryOutbox::getTitle)
+            .containsOnly("System Maintenance");
+        // Nothing is sent on the job thread; the outbox worker delivers
+        verifyNoInteractions(sesEmailService);
     }
 
     @Test
-    @DisplayName("sendDirectNotifications with mixed channels only calls SES for EMAIL")
-    void sendDirectNotifications_mixedChannels_onlyCallsSesForEmail() {
+    @DisplayName("sendBroadcastChunk with mixed channels only enqueues external channels")
+    void sendBroadcastChunk_mixedChannels_onlyEnqueuesExternalChannels() {
         // Arrange
         UUID user1Id = UUID.randomUUID();
-        UserPublicDataDto user1Data = UserPublicDataDto.builder().fullName("User").email("user@example.com").build();
+        UserPublicDataDto user1Data = UserPublicDataDto.builder().fullName("User").email("user@example.com")
+            .whatsappNumber("+94771234567").build();
 
-        DirectNotificationSendRequest request = new DirectNotificationSendRequest();
-        request.setTargetUserIds(List.of(user1Id));
-        request.setChannels(List.of(NotificationChannel.EMAIL, NotificationChannel.IN_APP, NotificationChannel.WHATSAPP));
-        request.setTitle("Multi-channel Test");
-        request.setBody("Testing channels");
+        BroadcastRecord broadcast = broadcast("Multi-channel Test", "Testing channels",
+            List.of(NotificationChannel.EMAIL, NotificationChannel.IN_APP, NotificationChannel.WHATSAPP));
 
         when(bffClientService.getUserPublicData(user1Id)).thenReturn(user1Data);
         when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
         when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(broadcastRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         // Act
-        UUID sentBy = UUID.randomUUID();
-        notificationService.sendDirectNotifications(request, sentBy);
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+        notificationService.sendBroadcastChunk(broadcast, 0, List.of(user1Id), LEASE_UNTIL);
 
         // Assert
-        // SES should only be called for EMAIL channel, not for IN_APP or WHATSAPP
-        verify(sesEmailService, times(1)).sendEmail("user@example.com", "Multi-channel Test", "Testing channels");
-
-        // Verify 3 notifications created (one per channel) + 2 for delivery (EMAIL + WHATSAPP) + 2 for broadcast updates = 7 total
-        verify(notificationRepository, times(5)).save(any(Notification.class));
+        // Verify 3 notifications created (one per channel)
+        verify(notificationRepository, times(3)).save(any(Notification.class));
 
         // Verify only EMAIL and WHATSAPP enqueued to outbox (IN_APP is immediate)
-        verify(deliveryOutboxRepository, times(2)).save(any(DeliveryOutbox.class));
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository, times(2)).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getAllValues())
+            .extracting(DeliveryOutbox::getChannel)
+            .containsExactly(NotificationChannel.EMAIL, NotificationChannel.WHATSAPP);
+    }
+
+    @Test
+    @DisplayName("sendBroadcastChunk captures the WhatsApp number and skips users without one")
+    void sendBroadcastChunk_whatsapp_capturesNumberAtEnqueue() {
+        // Arrange
+        UUID withNumberId = UUID.randomUUID();
+        UUID withoutNumberId = UUID.randomUUID();
+        UserPublicDataDto withNumber = UserPublicDataDto.builder().fullName("User 1").whatsappNumber("+94771234567").build();
+        UserPublicDataDto withoutNumber = UserPublicDataDto.builder().fullName("User 2").build();
+
+        BroadcastRecord broadcast = broadcast("Reminder", "Class starts at 9", List.of(NotificationChannel.WHATSAPP));
+
+        when(bffClientService.getUserPublicData(withNumberId)).thenReturn(withNumber);
+        when(bffClientService.getUserPublicData(withoutNumberId)).thenReturn(withoutNumber);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(deliveryOutboxRepository.save(any(DeliveryOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        when(broadcastRepository.advanceCheckpoint(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+            .thenReturn(1);
+        notificationService.sendBroadcastChunk(broadcast, 0, List.of(withNumberId, withoutNumberId), LEASE_UNTIL);
+
+        // Assert
+        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
+        verify(deliveryOutboxRepository, times(1)).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getValue().getChannel()).isEqualTo(NotificationChannel.WHATSAPP);
+        assertThat(outboxCaptor.getValue().getRecipientPhone()).isEqualTo("+94771234567");
+        verify(broadcastRepository).advanceCheckpoint(broadcast.getId(), "runner-1", 0, 2, 1, 1, LEASE_UNTIL);
+    }
+
+    private static BroadcastRecord broadcast(String title, String body, List<NotificationChannel> channels) {
+        BroadcastRecord broadcast = new BroadcastRecord();
+        broadcast.setId(UUID.randomUUID());
+        broadcast.setTitle(title);
+        broadcast.setBody(body);
+        broadcast.setChannels(channels);
+        broadcast.setClaimedBy("runner-1");
+        return broadcast;
     }
 }
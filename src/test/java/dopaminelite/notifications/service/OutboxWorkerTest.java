@@ -2,27 +2,34 @@ package dopaminelite.notifications.service;
 
 import dopaminelite.notifications.entity.DeliveryOutbox;
 import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
 import dopaminelite.notifications.entity.enums.DeliveryStatus;
 import dopaminelite.notifications.entity.enums.NotificationChannel;
-import dopaminelite.notifications.repository.DeliveryOutboxRepository;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import dopaminelite.notifications.repository.BroadcastRecordRepository;
 import dopaminelite.notifications.repository.NotificationRepository;
+import jakarta.mail.internet.InternetAddress;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,19 +38,26 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class OutboxWorkerTest {
 
-    @Mock
-    private DeliveryOutboxRepository outboxRepository;
-
     @Mock
     private NotificationRepository notificationRepository;
 
     @Mock
     private EmailService sesEmailService;
 
-    @InjectMocks
+    @Mock
+    private OutboxClaimService claimService;
+
+    @Mock
+    private DeliveryResultWriter resultWriter;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private BroadcastRecordRepository broadcastRepository;
+
     private OutboxWorker outboxWorker;
 
-    private Notification testNotification;
     private DeliveryOutbox testOutbox;
     private UUID notificationId;
     private UUID userId;
@@ -52,17 +66,11 @@ class OutboxWorkerTest {
     void setUp() {
         notificationId = UUID.randomUUID();
         userId = UUID.randomUUID();
+        outboxWorker = new OutboxWorker(notificationRepository, claimService,
+                deliverers(RecipientDomainThrottle.unlimited()), resultWriter, idempotencyService);
+        ReflectionTestUtils.setField(outboxWorker, "batchSize", 50);
 
-        // Create test notification
-        testNotification = new Notification();
-        testNotification.setId(notificationId);
-        testNotification.setUserId(userId);
-        testNotification.setChannel(NotificationChannel.EMAIL);
-        testNotification.setTitle("Test Notification");
-        testNotification.setBody("Test Body");
-        testNotification.setDeliveryStatus(DeliveryStatus.PENDING);
-
-        // Create test outbox entry
+        // Create test outbox entry with its notification snapshot
         testOutbox = new DeliveryOutbox();
         testOutbox.setId(UUID.randomUUID());
         testOutbox.setNotificationId(notificationId);
@@ -72,45 +80,61 @@ class OutboxWorkerTest {
         testOutbox.setRetryCount(0);
         testOutbox.setMaxRetries(3);
         testOutbox.setNextRetryAt(Instant.now());
+        testOutbox.setUserId(userId);
+        testOutbox.setNotificationCreatedAt(Instant.now());
+        testOutbox.setTitle("Test Notification");
+        testOutbox.setBody("Test Body");
     }
 
     @Test
     @DisplayName("processPending with email delivery success marks as SENT")
     void processPending_emailDeliverySuccess_marksSent() {
         // Arrange
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.singletonList(testOutbox));
-        when(notificationRepository.findById(notificationId))
-                .thenReturn(Optional.of(testNotification));
         doNothing().when(sesEmailService).sendEmail(anyString(), anyString(), anyString());
 
         // Act
         outboxWorker.processPending();
 
         // Assert
-        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
-        ArgumentCaptor<Notification> notificationCaptor = ArgumentCaptor.forClass(Notification.class);
-
-        verify(outboxRepository).save(outboxCaptor.capture());
-        verify(notificationRepository).save(notificationCaptor.capture());
         verify(sesEmailService).sendEmail("user@example.com", "Test Notification", "Test Body");
 
-        DeliveryOutbox savedOutbox = outboxCaptor.getValue();
-        Notification savedNotification = notificationCaptor.getValue();
+        DeliveryOutbox savedOutbox = writtenOutbox();
+        Notification savedNotification = writtenNotification();
 
         assertEquals(DeliveryStatus.SENT, savedOutbox.getStatus());
         assertNotNull(savedOutbox.getDeliveredAt());
         assertEquals(DeliveryStatus.SENT, savedNotification.getDeliveryStatus());
     }
 
+    @Test
+    @DisplayName("processPending completes an already delivered entry without sending again")
+    void processPending_alreadyDelivered_skipsSend() {
+        // Arrange
+        UUID deliveryKey = IdempotencyService.deliveryKey(notificationId, NotificationChannel.EMAIL);
+        testOutbox.setDeliveryKey(deliveryKey);
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+        when(idempotencyService.findDelivered(anyCollection())).thenReturn(Set.of(deliveryKey));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(sesEmailService, never()).sendEmail(anyString(), anyString(), anyString());
+        DeliveryOutbox savedOutbox = writtenOutbox();
+        assertEquals(DeliveryStatus.SENT, savedOutbox.getStatus());
+        assertNotNull(savedOutbox.getDeliveredAt());
+        assertEquals(DeliveryStatus.SENT, writtenNotification().getDeliveryStatus());
+    }
+
     @Test
     @DisplayName("processPending with SES failure increments retry count")
     void processPending_sesFailure_incrementsRetryCount() {
         // Arrange
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.singletonList(testOutbox));
-        when(notificationRepository.findById(notificationId))
-                .thenReturn(Optional.of(testNotification));
         doThrow(new MailSendException("Temporary failure"))
                 .when(sesEmailService).sendEmail(anyString(), anyString(), anyString());
 
@@ -118,14 +142,12 @@ class OutboxWorkerTest {
         outboxWorker.processPending();
 
         // Assert
-        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
-        verify(outboxRepository).save(outboxCaptor.capture());
-
-        DeliveryOutbox savedOutbox = outboxCaptor.getValue();
+        DeliveryOutbox savedOutbox = writtenOutbox();
         assertEquals(1, savedOutbox.getRetryCount());
         assertEquals(DeliveryStatus.FAILED, savedOutbox.getStatus());
         assertNotNull(savedOutbox.getLastError());
         assertTrue(savedOutbox.getLastError().contains("Temporary failure"));
+        assertEquals(DeliveryErrorClass.PROVIDER_UNAVAILABLE, savedOutbox.getErrorClass());
         assertNotNull(savedOutbox.getNextRetryAt());
         assertTrue(savedOutbox.getNextRetryAt().isAfter(Instant.now()));
     }
@@ -137,10 +159,8 @@ class OutboxWorkerTest {
         testOutbox.setRetryCount(2); // Already failed twice
         testOutbox.setMaxRetries(3);
 
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.singletonList(testOutbox));
-        when(notificationRepository.findById(notificationId))
-                .thenReturn(Optional.of(testNotification));
         doThrow(new MailSendException("Permanent failure"))
                 .when(sesEmailService).sendEmail(anyString(), anyString(), anyString());
 
@@ -148,14 +168,10 @@ class OutboxWorkerTest {
         outboxWorker.processPending();
 
         // Assert
-        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
-        ArgumentCaptor<Notification> notificationCaptor = ArgumentCaptor.forClass(Notification.class);
 
-        verify(outboxRepository).save(outboxCaptor.capture());
-        verify(notificationRepository).save(notificationCaptor.capture());
 
-        DeliveryOutbox savedOutbox = outboxCaptor.getValue();
-        Notification savedNotification = notificationCaptor.getValue();
+        DeliveryOutbox savedOutbox = writtenOutbox();
+        Notification savedNotification = writtenNotification();
 
         assertEquals(3, savedOutbox.getRetryCount()); // Incremented to 3
         assertEquals(DeliveryStatus.FAILED, savedOutbox.getStatus());
@@ -169,10 +185,8 @@ class OutboxWorkerTest {
         // Arrange
         testOutbox.setRetryCount(0);
 
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.singletonList(testOutbox));
-        when(notificationRepository.findById(notificationId))
-                .thenReturn(Optional.of(testNotification));
         doThrow(new MailSendException("Temporary failure"))
                 .when(sesEmailService).sendEmail(anyString(), anyString(), anyString());
 
@@ -180,10 +194,7 @@ class OutboxWorkerTest {
         outboxWorker.processPending();
 
         // Assert
-        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
-        verify(outboxRepository).save(outboxCaptor.capture());
-
-        DeliveryOutbox savedOutbox = outboxCaptor.getValue();
+        DeliveryOutbox savedOutbox = writtenOutbox();
 
         // After first failure: retryCount = 1, backoff = 2^1 = 2 minutes
         assertEquals(1, savedOutbox.getRetryCount());
@@ -199,10 +210,8 @@ class OutboxWorkerTest {
     void processPending_nullEmailInOutbox_marksFailed() {
         // Arrange
         testOutbox.setRecipientEmail(null);
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.singletonList(testOutbox));
-        when(notificationRepository.findById(notificationId))
-                .thenReturn(Optional.of(testNotification));
         
         // Sending email with null address will throw exception
         doThrow(new RuntimeException("Recipient email is null"))
@@ -212,10 +221,7 @@ class OutboxWorkerTest {
         outboxWorker.processPending();
 
         // Assert
-        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
-        verify(outboxRepository).save(outboxCaptor.capture());
-
-        DeliveryOutbox savedOutbox = outboxCaptor.getValue();
+        DeliveryOutbox savedOutbox = writtenOutbox();
 
         // Should fail since email is null and increment retry
         assertEquals(1, savedOutbox.getRetryCount());
@@ -227,42 +233,41 @@ class OutboxWorkerTest {
     @DisplayName("processPending with notification not found marks outbox FAILED")
     void processPending_notificationNotFound_marksOutboxFailed() {
         // Arrange
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        testOutbox.setUserId(null); // Legacy entry without snapshot
+        testOutbox.setTitle(null);
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.singletonList(testOutbox));
-        when(notificationRepository.findById(notificationId))
-                .thenReturn(Optional.empty()); // Notification not found
+        when(notificationRepository.findAllById(List.of(notificationId)))
+                .thenReturn(Collections.emptyList()); // Notification not found
 
         // Act
         outboxWorker.processPending();
 
         // Assert
-        ArgumentCaptor<DeliveryOutbox> outboxCaptor = ArgumentCaptor.forClass(DeliveryOutbox.class);
-        verify(outboxRepository).save(outboxCaptor.capture());
-
-        DeliveryOutbox savedOutbox = outboxCaptor.getValue();
+        DeliveryOutbox savedOutbox = writtenOutbox();
 
         assertEquals(DeliveryStatus.FAILED, savedOutbox.getStatus());
         assertEquals("Notification not found", savedOutbox.getLastError());
+        assertEquals(DeliveryErrorClass.NOTIFICATION_MISSING, savedOutbox.getErrorClass());
 
         // Should NOT call SES service
         verify(sesEmailService, never()).sendEmail(anyString(), anyString(), anyString());
-        // Should NOT save notification (doesn't exist)
-        verify(notificationRepository, never()).save(any());
+        // Should NOT write a notification result (doesn't exist)
+        assertTrue(writtenNotifications().isEmpty());
     }
 
     @Test
     @DisplayName("processPending with empty pending list does nothing")
     void processPending_withEmptyList_doesNothing() {
         // Arrange
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Collections.emptyList());
 
         // Act
         outboxWorker.processPending();
 
         // Assert
-        verify(outboxRepository, never()).save(any());
-        verify(notificationRepository, never()).save(any());
+        verify(resultWriter, never()).write(anyList(), anyList());
         verify(sesEmailService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 
@@ -274,30 +279,372 @@ class OutboxWorkerTest {
         DeliveryOutbox outbox2 = createOutboxEntry();
         DeliveryOutbox outbox3 = createOutboxEntry();
 
-        Notification notification1 = createNotification(outbox1.getNotificationId());
-        Notification notification2 = createNotification(outbox2.getNotificationId());
-        Notification notification3 = createNotification(outbox3.getNotificationId());
-
-        when(outboxRepository.findByStatusInAndNextRetryAtBefore(any(), any()))
+        when(claimService.claimBatch(anyInt()))
                 .thenReturn(Arrays.asList(outbox1, outbox2, outbox3));
 
-        when(notificationRepository.findById(outbox1.getNotificationId()))
-                .thenReturn(Optional.of(notification1));
-        when(notificationRepository.findById(outbox2.getNotificationId()))
-                .thenReturn(Optional.of(notification2));
-        when(notificationRepository.findById(outbox3.getNotificationId()))
-                .thenReturn(Optional.of(notification3));
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(sesEmailService, times(3)).sendEmail(anyString(), anyString(), anyString());
+        // Snapshots on the entries mean no notification lookups at all
+        verifyNoInteractions(notificationRepository);
+        // All results go out in a single write for the batch
+        assertEquals(3, writtenOutboxes().size());
+        assertEquals(3, writtenNotifications().size());
+    }
+
+    @Test
+    @DisplayName("processPending hands each channel's entries to its deliverer as one batch")
+    void processPending_deliversEachChannelAsBatch() {
+        // Arrange
+        ChannelDeliverer whatsapp = mock(ChannelDeliverer.class);
+        when(whatsapp.channel()).thenReturn(NotificationChannel.WHATSAPP);
+        when(whatsapp.deliverBatch(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).stream()
+                .map(delivery -> CompletableFuture.completedFuture(DeliveryResult.sent("wamid.1")))
+                .toList());
+        outboxWorker = new OutboxWorker(notificationRepository, claimService, new ChannelDeliverers(List.of(
+                new EmailChannelDeliverer(sesEmailService, RecipientDomainThrottle.unlimited(), new DeliveryExecutor(4, 4),
+                        broadcastRepository),
+                whatsapp)), resultWriter, idempotencyService);
+        ReflectionTestUtils.setField(outboxWorker, "batchSize", 50);
+        DeliveryOutbox whatsapp1 = createOutboxEntry();
+        DeliveryOutbox whatsapp2 = createOutboxEntry();
+        whatsapp1.setChannel(NotificationChannel.WHATSAPP);
+        whatsapp2.setChannel(NotificationChannel.WHATSAPP);
+
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Arrays.asList(whatsapp1, testOutbox, whatsapp2));
 
         // Act
         outboxWorker.processPending();
 
         // Assert
+        verify(whatsapp, times(1)).deliverBatch(argThat(batch -> batch.size() == 2));
+        verify(sesEmailService).sendEmail("user@example.com", "Test Notification", "Test Body");
+        assertEquals(3, writtenOutboxes().size());
+        assertTrue(writtenOutboxes().stream().allMatch(outbox -> outbox.getStatus() == DeliveryStatus.SENT));
+    }
+
+    @Test
+    @DisplayName("processPending keeps claiming while batches come back full")
+    void processPending_fullBatch_claimsAgainUntilDrained() {
+        // Arrange
+        ReflectionTestUtils.setField(outboxWorker, "batchSize", 2);
+        DeliveryOutbox outbox1 = createOutboxEntry();
+        DeliveryOutbox outbox2 = createOutboxEntry();
+        DeliveryOutbox outbox3 = createOutboxEntry();
+
+        when(claimService.claimBatch(2))
+                .thenReturn(Arrays.asList(outbox1, outbox2))
+                .thenReturn(Collections.singletonList(outbox3));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(claimService, times(2)).claimBatch(2);
         verify(sesEmailService, times(3)).sendEmail(anyString(), anyString(), anyString());
-        verify(outboxRepository, times(3)).save(any(DeliveryOutbox.class));
-        verify(notificationRepository, times(3)).save(any(Notification.class));
+    }
+
+    @Test
+    @DisplayName("processPending releases the lease after delivery")
+    void processPending_afterDelivery_releasesLease() {
+        // Arrange
+        testOutbox.setClaimedBy("worker-1");
+        testOutbox.setLeaseUntil(Instant.now().plusSeconds(300));
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        assertNull(writtenOutbox().getClaimedBy());
+        assertNull(writtenOutbox().getLeaseUntil());
+    }
+
+    @Test
+    @DisplayName("wakeUp drains the outbox asynchronously")
+    void wakeUp_drainsOutboxAsynchronously() {
+        // Arrange
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        outboxWorker.wakeUp();
+
+        // Assert
+        verify(sesEmailService, timeout(2000)).sendEmail("user@example.com", "Test Notification", "Test Body");
+    }
+
+    @Test
+    @DisplayName("processPending with exhausted send quota defers without spending a retry")
+    void processPending_quotaExhausted_defersWithoutRetry() {
+        // Arrange
+        Instant retryAt = Instant.now().plus(Duration.ofHours(3));
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+        doThrow(new DeliveryDeferredException("Daily send quota of 100 reached", retryAt))
+                .when(sesEmailService).sendEmail(anyString(), anyString(), anyString());
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        assertTrue(writtenNotifications().isEmpty());
+
+        DeliveryOutbox savedOutbox = writtenOutbox();
+        assertEquals(0, savedOutbox.getRetryCount());
+        assertEquals(DeliveryStatus.PENDING, savedOutbox.getStatus());
+        assertEquals(retryAt, savedOutbox.getNextRetryAt());
+        assertNull(savedOutbox.getClaimedBy());
+    }
+
+    @Test
+    @DisplayName("processPending writes each batch's results once the batch is delivered")
+    void processPending_twoBatches_writesResultsPerBatch() {
+        // Arrange
+        ReflectionTestUtils.setField(outboxWorker, "batchSize", 2);
+        when(claimService.claimBatch(2))
+                .thenReturn(Arrays.asList(createOutboxEntry(), createOutboxEntry()))
+                .thenReturn(Collections.singletonList(createOutboxEntry()));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        ArgumentCaptor<List<DeliveryOutbox>> outboxCaptor = outboxListCaptor();
+        verify(resultWriter, times(2)).write(outboxCaptor.capture(), anyList());
+        assertEquals(2, outboxCaptor.getAllValues().get(0).size());
+        assertEquals(1, outboxCaptor.getAllValues().get(1).size());
+    }
+
+    @Test
+    @DisplayName("processPending survives a failed result write")
+    void processPending_writeFails_doesNotThrow() {
+        // Arrange
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+        when(resultWriter.write(anyList(), anyList()))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> outboxWorker.processPending());
+        verify(sesEmailService).sendEmail("user@example.com", "Test Notification", "Test Body");
+    }
+
+    @Test
+    @DisplayName("processPending loads legacy entries without snapshot in one query")
+    void processPending_legacyEntries_loadedInOneQuery() {
+        // Arrange
+        DeliveryOutbox legacy1 = createOutboxEntry();
+        DeliveryOutbox legacy2 = createOutboxEntry();
+        for (DeliveryOutbox legacy : List.of(legacy1, legacy2)) {
+            legacy.setUserId(null);
+            legacy.setNotificationCreatedAt(null);
+            legacy.setTitle(null);
+            legacy.setBody(null);
+        }
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Arrays.asList(legacy1, legacy2, createOutboxEntry()));
+        when(notificationRepository.findAllById(List.of(legacy1.getNotificationId(), legacy2.getNotificationId())))
+                .thenReturn(List.of(createNotification(legacy1.getNotificationId()),
+                        createNotification(legacy2.getNotificationId())));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(notificationRepository, times(1)).findAllById(any());
+        verify(sesEmailService, times(3)).sendEmail(anyString(), anyString(), anyString());
+        assertEquals(3, writtenNotifications().size());
+    }
+
+    @Test
+    @DisplayName("processPending sends an entry of a send by email address from its snapshot")
+    void processPending_emailAddressEntry_sentWithoutNotificationRow() {
+        // Arrange: no user and no notification row, only the snapshot
+        UUID broadcastId = UUID.randomUUID();
+        testOutbox.setUserId(null);
+        testOutbox.setBroadcastId(broadcastId);
+        when(broadcastRepository.findBodyById(broadcastId)).thenReturn(Optional.of("Test Body"));
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(notificationRepository, never()).findAllById(any());
+        verify(sesEmailService).sendBroadcastEmail(broadcastId, "user@example.com", "Test Notification",
+                "Test Body", false);
+        assertEquals(DeliveryStatus.SENT, writtenOutbox().getStatus());
+    }
+
+    @Test
+    @DisplayName("processPending sends a personalized broadcast copy directly instead of from the render cache")
+    void processPending_personalizedBroadcastCopy_sentDirectly() {
+        // Arrange: the copy's body differs from the broadcast's template body
+        UUID broadcastId = UUID.randomUUID();
+        testOutbox.setBroadcastId(broadcastId);
+        when(broadcastRepository.findBodyById(broadcastId)).thenReturn(Optional.of("Hello {{name}}"));
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(sesEmailService).sendEmail("user@example.com", "Test Notification", "Test Body");
+        verify(sesEmailService, never()).sendBroadcastEmail(any(), any(), any(), any(), anyBoolean());
+        assertEquals(DeliveryStatus.SENT, writtenOutbox().getStatus());
+    }
+
+    @Test
+    @DisplayName("processPending heartbeats the in-flight lease while delivering")
+    void processPending_slowDelivery_extendsLease() {
+        // Arrange
+        UUID attemptId = UUID.randomUUID();
+        testOutbox.setAttemptId(attemptId);
+        ReflectionTestUtils.setField(outboxWorker, "heartbeatInterval", Duration.ofMillis(20));
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(Collections.singletonList(testOutbox));
+        doAnswer(inv -> {
+            Thread.sleep(200);
+            return null;
+        }).when(sesEmailService).sendEmail(anyString(), anyString(), anyString());
+
+        // Act
+        outboxWorker.processPending();
+
+        // Assert
+        verify(claimService, atLeastOnce()).extendLease(attemptId);
+        assertEquals(attemptId, writtenOutbox().getAttemptId()); // Result stays fenced by the attempt
     }
 
     // Helper methods
+    private ChannelDeliverers deliverers(RecipientDomainThrottle domainThrottle) {
+        return new ChannelDeliverers(List.of(
+                new EmailChannelDeliverer(sesEmailService, domainThrottle, new DeliveryExecutor(4, 4), broadcastRepository),
+                new WhatsAppChannelDeliverer()));
+    }
+
+    private List<DeliveryOutbox> writtenOutboxes() {
+        ArgumentCaptor<List<DeliveryOutbox>> captor = outboxListCaptor();
+        verify(resultWriter).write(captor.capture(), anyList());
+        return captor.getValue();
+    }
+
+    private List<Notification> writtenNotifications() {
+        ArgumentCaptor<List<Notification>> captor = notificationListCaptor();
+        verify(resultWriter).write(anyList(), captor.capture());
+        return captor.getValue();
+    }
+
+    private DeliveryOutbox writtenOutbox() {
+        List<DeliveryOutbox> written = writtenOutboxes();
+        assertEquals(1, written.size());
+        return written.get(0);
+    }
+
+    private Notification writtenNotification() {
+        List<Notification> written = writtenNotifications();
+        assertEquals(1, written.size());
+        return written.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<DeliveryOutbox>> outboxListCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Notification>> notificationListCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    @Test
+    @DisplayName("interleaveByDomain spreads a batch round-robin over recipient domains")
+    void interleaveByDomain_roundRobin() {
+        DeliveryOutbox gmail1 = createOutboxEntry("a@gmail.com");
+        DeliveryOutbox gmail2 = createOutboxEntry("b@gmail.com");
+        DeliveryOutbox gmail3 = createOutboxEntry("c@gmail.com");
+        DeliveryOutbox yahoo = createOutboxEntry("d@yahoo.com");
+        DeliveryOutbox uni = createOutboxEntry("e@uni.edu");
+
+        List<DeliveryOutbox> ordered = OutboxWorker.interleaveByDomain(List.of(gmail1, gmail2, gmail3, yahoo, uni));
+
+        assertEquals(List.of(gmail1, yahoo, uni, gmail2, gmail3), ordered);
+    }
+
+    @Test
+    @DisplayName("processPending pauses a domain on a 4xx rejection and defers its other entries")
+    void processPending_transientRejection_defersRestOfDomain() throws Exception {
+        // Arrange
+        outboxWorker = new OutboxWorker(notificationRepository, claimService,
+                deliverers(new RecipientDomainThrottle(4, 0, Duration.ofMinutes(1), Duration.ofMinutes(10))),
+                resultWriter, idempotencyService);
+        ReflectionTestUtils.setField(outboxWorker, "batchSize", 50);
+        DeliveryOutbox rejected = createOutboxEntry("first@slow.edu");
+        DeliveryOutbox deferred = createOutboxEntry("second@slow.edu");
+        DeliveryOutbox other = createOutboxEntry("user@gmail.com");
+
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(List.of(rejected))
+                .thenReturn(List.of(deferred, other));
+        lenient().doThrow(new MailSendException(Map.of(new Object(), new SMTPAddressFailedException(
+                        new InternetAddress("first@slow.edu"), "RCPT TO:<first@slow.edu>", 451,
+                        "451 4.7.1 Try again later"))))
+                .when(sesEmailService).sendEmail(eq("first@slow.edu"), anyString(), anyString());
+
+        // Act
+        outboxWorker.processPending();
+        outboxWorker.processPending();
+
+        // Assert
+        assertEquals(1, rejected.getRetryCount());
+        assertEquals(DeliveryErrorClass.TEMPORARILY_REJECTED, rejected.getErrorClass());
+        assertEquals(0, deferred.getRetryCount());
+        assertTrue(deferred.getNextRetryAt().isAfter(Instant.now().plusSeconds(30)));
+        assertEquals(DeliveryStatus.SENT, other.getStatus());
+        verify(sesEmailService, never()).sendEmail(eq("second@slow.edu"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("processPending does not pause the recipient's domain on a 4xx from the relay")
+    void processPending_relayThrottling_doesNotPauseDomain() {
+        // Arrange
+        outboxWorker = new OutboxWorker(notificationRepository, claimService,
+                deliverers(new RecipientDomainThrottle(4, 0, Duration.ofMinutes(1), Duration.ofMinutes(10))),
+                resultWriter, idempotencyService);
+        ReflectionTestUtils.setField(outboxWorker, "batchSize", 50);
+        DeliveryOutbox throttled = createOutboxEntry("first@gmail.com");
+        DeliveryOutbox next = createOutboxEntry("second@gmail.com");
+
+        when(claimService.claimBatch(anyInt()))
+                .thenReturn(List.of(throttled))
+                .thenReturn(List.of(next));
+        lenient().doThrow(new MailSendException("454 Throttling failure: Maximum sending rate exceeded."))
+                .when(sesEmailService).sendEmail(eq("first@gmail.com"), anyString(), anyString());
+
+        // Act
+        outboxWorker.processPending();
+        outboxWorker.processPending();
+
+        // Assert
+        assertEquals(DeliveryErrorClass.THROTTLED, throttled.getErrorClass());
+        assertEquals(DeliveryStatus.SENT, next.getStatus());
+        verify(sesEmailService).sendEmail(eq("second@gmail.com"), anyString(), anyString());
+    }
+
+    private DeliveryOutbox createOutboxEntry(String recipientEmail) {
+        DeliveryOutbox outbox = createOutboxEntry();
+        outbox.setRecipientEmail(recipientEmail);
+        return outbox;
+    }
+
     private DeliveryOutbox createOutboxEntry() {
         DeliveryOutbox outbox = new DeliveryOutbox();
         outbox.setId(UUID.randomUUID());
@@ -308,6 +655,10 @@ class OutboxWorkerTest {
         outbox.setRetryCount(0);
         outbox.setMaxRetries(3);
         outbox.setNextRetryAt(Instant.now());
+        outbox.setUserId(UUID.randomUUID());
+        outbox.setNotificationCreatedAt(Instant.now());
+        outbox.setTitle("Test");
+        outbox.setBody("Body");
         return outbox;
     }
 
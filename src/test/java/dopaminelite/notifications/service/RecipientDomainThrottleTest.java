@@ -0,0 +1,88 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipientDomainThrottleTest {
+
+    @Test
+    @DisplayName("a domain at its concurrency limit defers while other domains proceed")
+    void concurrencyLimit_isPerDomain() {
+        RecipientDomainThrottle throttle = new RecipientDomainThrottle(2, 0, Duration.ofSeconds(30), Duration.ofMinutes(10));
+
+        RecipientDomainThrottle.Permit first = throttle.acquire("a@gmail.com");
+        throttle.acquire("b@GMAIL.com");
+
+        assertThrows(DeliveryDeferredException.class, () -> throttle.acquire("c@gmail.com"));
+        assertDoesNotThrow(() -> throttle.acquire("d@yahoo.com"));
+
+        throttle.release(first, false);
+        assertDoesNotThrow(() -> throttle.acquire("c@gmail.com"));
+    }
+
+    @Test
+    @DisplayName("sends above the domain rate are deferred after the one-second burst")
+    void rateLimit_defersBeyondBurst() {
+        RecipientDomainThrottle throttle = new RecipientDomainThrottle(0, 2, Duration.ofSeconds(30), Duration.ofMinutes(10));
+
+        throttle.acquire("a@uni.edu");
+        throttle.acquire("b@uni.edu");
+
+        DeliveryDeferredException ex = assertThrows(DeliveryDeferredException.class,
+                () -> throttle.acquire("c@uni.edu"));
+        assertTrue(ex.getRetryAt().isAfter(Instant.now()));
+        assertTrue(ex.getRetryAt().isBefore(Instant.now().plusSeconds(2)));
+    }
+
+    @Test
+    @DisplayName("deferred sends of one domain are spread out by the domain's backlog")
+    void deferrals_areSpreadByBacklog() {
+        RecipientDomainThrottle throttle = new RecipientDomainThrottle(0, 5, Duration.ofSeconds(30), Duration.ofMinutes(10));
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("burst" + i + "@uni.edu");
+        }
+
+        Instant previous = null;
+        for (int i = 0; i < 10; i++) {
+            int n = i;
+            Instant retryAt = assertThrows(DeliveryDeferredException.class,
+                    () -> throttle.acquire("deferred" + n + "@uni.edu")).getRetryAt();
+            if (previous != null) {
+                assertTrue(Duration.between(previous, retryAt).toMillis() >= 150,
+                        "retry " + n + " should be one emission interval after the previous one");
+            }
+            previous = retryAt;
+        }
+        assertTrue(previous.isAfter(Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("a transient rejection pauses the domain with growing backoff")
+    void transientRejection_pausesDomain() {
+        RecipientDomainThrottle throttle = new RecipientDomainThrottle(0, 0, Duration.ofSeconds(30), Duration.ofMinutes(10));
+
+        throttle.release(throttle.acquire("a@slow.edu"), true);
+
+        DeliveryDeferredException ex = assertThrows(DeliveryDeferredException.class,
+                () -> throttle.acquire("b@slow.edu"));
+        assertTrue(ex.getRetryAt().isAfter(Instant.now().plusSeconds(25)));
+        assertEquals(1, throttle.getPausedDomains());
+        assertDoesNotThrow(() -> throttle.acquire("c@fast.com"));
+    }
+
+    @Test
+    @DisplayName("addresses without a domain are not throttled")
+    void noDomain_isNotThrottled() {
+        RecipientDomainThrottle throttle = new RecipientDomainThrottle(1, 0, Duration.ofSeconds(30), Duration.ofMinutes(10));
+
+        throttle.acquire(null);
+        assertDoesNotThrow(() -> throttle.acquire("not-an-address"));
+        assertDoesNotThrow(() -> throttle.acquire("not-an-address"));
+    }
+}
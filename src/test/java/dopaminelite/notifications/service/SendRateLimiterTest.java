@@ -0,0 +1,85 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SendRateLimiterTest {
+
+    @Test
+    @DisplayName("acquire lets one second of sends through as a burst")
+    void acquire_withinBurst_doesNotWait() {
+        SendRateLimiter limiter = new SendRateLimiter(20, 0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(1);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 200, "burst took " + elapsedMillis + "ms");
+        assertTrue(limiter.getSaturation() > 0.9);
+    }
+
+    @Test
+    @DisplayName("acquire waits instead of failing once the rate is exceeded")
+    void acquire_beyondRate_waitsForSlot() throws Exception {
+        SendRateLimiter limiter = new SendRateLimiter(20, 0);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> limiter.acquire(1)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 20 in the burst, the other 20 paced at 20/s
+        assertTrue(elapsedMillis >= 900, "40 sends took only " + elapsedMillis + "ms");
+        assertTrue(elapsedMillis < 3000, "40 sends took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    @DisplayName("acquire defers to the next UTC day once the daily quota is used")
+    void acquire_dailyQuotaExhausted_throwsDeferred() {
+        SendRateLimiter limiter = new SendRateLimiter(0, 3);
+        limiter.acquire(2);
+        limiter.acquire(1);
+
+        DeliveryDeferredException ex = assertThrows(DeliveryDeferredException.class, () -> limiter.acquire(1));
+
+        Instant tomorrow = LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        assertEquals(tomorrow, ex.getRetryAt());
+        assertEquals(3, limiter.getSentToday());
+    }
+
+    @Test
+    @DisplayName("bindTo registers saturation and quota metrics")
+    void bindTo_registersMetrics() {
+        SendRateLimiter limiter = new SendRateLimiter(10, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        limiter.bindTo(registry);
+        limiter.acquire(5);
+
+        assertNotNull(registry.find("notifications.email.rate.saturation").gauge());
+        assertEquals(5, registry.get("notifications.email.rate.daily.used").gauge().value());
+        assertNotNull(registry.find("notifications.email.rate.wait").timer());
+    }
+}
@@ -0,0 +1,101 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpCircuitBreakerTest {
+
+    private final SmtpCircuitBreaker circuitBreaker = new SmtpCircuitBreaker(3, Duration.ofMillis(200));
+
+    @Test
+    @DisplayName("circuit opens after consecutive failures and defers sends")
+    void consecutiveFailures_openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onFailure();
+        }
+
+        assertEquals(SmtpCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        DeliveryDeferredException ex = assertThrows(DeliveryDeferredException.class,
+                circuitBreaker::acquirePermission);
+        assertTrue(ex.getRetryAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    @DisplayName("a success resets the failure count")
+    void successBetweenFailures_keepsCircuitClosed() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        assertEquals(SmtpCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("after the open period a single probe is allowed and success closes the circuit")
+    void halfOpenProbe_successCloses() throws InterruptedException {
+        openCircuit();
+        Thread.sleep(250);
+
+        circuitBreaker.acquirePermission();
+        assertEquals(SmtpCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(DeliveryDeferredException.class, circuitBreaker::acquirePermission);
+
+        circuitBreaker.onSuccess();
+        assertEquals(SmtpCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    @DisplayName("a failed probe opens the circuit again")
+    void halfOpenProbe_failureReopens() throws InterruptedException {
+        openCircuit();
+        Thread.sleep(250);
+
+        circuitBreaker.acquirePermission();
+        circuitBreaker.onFailure();
+
+        assertEquals(SmtpCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(DeliveryDeferredException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    @DisplayName("rejected recipients are not provider failures")
+    void isProviderFailure_classifiesExceptions() {
+        MailSendException rejected = new MailSendException(
+                Map.of(new Object(), new SendFailedException("550 Address rejected")));
+        MailSendException connectionLost = new MailSendException(
+                Map.of(new Object(), new MessagingException("Connection timed out")));
+
+        assertFalse(SmtpCircuitBreaker.isProviderFailure(rejected));
+        assertTrue(SmtpCircuitBreaker.isProviderFailure(connectionLost));
+        assertFalse(SmtpCircuitBreaker.isProviderFailure(new IllegalArgumentException("bad address")));
+    }
+
+    @Test
+    @DisplayName("a transient reply from the relay is a provider failure")
+    void isProviderFailure_relayDeferral() {
+        MailSendException throttled = new MailSendException(Map.of(new Object(),
+                new SendFailedException("454 Throttling failure: Maximum sending rate exceeded.")));
+
+        assertTrue(SmtpCircuitBreaker.isProviderFailure(throttled));
+        assertTrue(SmtpCircuitBreaker.isProviderFailure(new MailSendException("421 Service not available")));
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.UserPublicDataDto;
+import dopaminelite.notifications.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserDataCacheTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final UserDataCache cache = new UserDataCache(2, Duration.ofMinutes(1), Duration.ofMinutes(10),
+        Duration.ofSeconds(30), clock);
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    @Test
+    @DisplayName("get serves a cached user without fetching it again")
+    void get_servesCachedUser() {
+        UUID userId = UUID.randomUUID();
+
+        cache.get(userId, loader("first"));
+        UserPublicDataDto user = cache.get(userId, loader("second"));
+
+        assertThat(user.getFullName()).isEqualTo("first");
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get serves a stale user and refreshes it in the background")
+    void get_refreshesStaleUser() {
+        UUID userId = UUID.randomUUID();
+        cache.get(userId, loader("old"));
+        clock.advance(Duration.ofMinutes(2));
+
+        assertThat(cache.get(userId, loader("new")).getFullName()).isEqualTo("old");
+
+        waitUntil(() -> "new".equals(cache.get(userId, loader("new")).getFullName()));
+    }
+
+    @Test
+    @DisplayName("get fetches an expired user before returning it")
+    void get_refetchesExpiredUser() {
+        UUID userId = UUID.randomUUID();
+        cache.get(userId, loader("old"));
+        clock.advance(Duration.ofMinutes(11));
+
+        assertThat(cache.get(userId, loader("new")).getFullName()).isEqualTo("new");
+        assertThat(fetches.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("get caches an unknown user for the negative TTL only")
+    void get_cachesNotFound() {
+        UUID userId = UUID.randomUUID();
+        Function<UUID, UserPublicDataDto> missing = id -> {
+            fetches.incrementAndGet();
+            throw new ResourceNotFoundException("User not found: " + id);
+        };
+
+        assertThatThrownBy(() -> cache.get(userId, missing)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> cache.get(userId, missing)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(fetches.get()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(31));
+        assertThat(cache.get(userId, loader("created")).getFullName()).isEqualTo("created");
+    }
+
+    @Test
+    @DisplayName("get does not cache other BFF errors")
+    void get_doesNotCacheErrors() {
+        UUID userId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> cache.get(userId, id -> {
+            throw new RuntimeException("BFF down");
+        })).hasMessage("BFF down");
+
+        assertThat(cache.get(userId, loader("back")).getFullName()).isEqualTo("back");
+    }
+
+    @Test
+    @DisplayName("evict drops the user so the next lookup fetches it")
+    void evict_forcesFetch() {
+        UUID userId = UUID.randomUUID();
+        cache.get(userId, loader("old"));
+
+        cache.evict(userId);
+
+        assertThat(cache.get(userId, loader("new")).getFullName()).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("the least recently used user is dropped beyond max-size")
+    void maxSize_evictsLeastRecentlyUsed() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        cache.get(first, loader("first"));
+        cache.get(second, loader("second"));
+        cache.get(first, loader("unused"));
+
+        cache.get(third, loader("third"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(first, loader("unused")).getFullName()).isEqualTo("first");
+        assertThat(cache.get(second, loader("refetched")).getFullName()).isEqualTo("refetched");
+    }
+
+    @Test
+    @DisplayName("getAll only fetches users that are not cached")
+    void getAll_fetchesMissingUsers() {
+        UUID cached = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        cache.get(cached, loader("cached"));
+
+        Map<UUID, UserPublicDataDto> users = cache.getAll(List.of(cached, missing), ids -> {
+            assertThat(ids).containsExactly(missing);
+            return Map.of(missing, UserPublicDataDto.builder().fullName("fetched").build());
+        });
+
+        assertThat(users.get(cached).getFullName()).isEqualTo("cached");
+        assertThat(users.get(missing).getFullName()).isEqualTo("fetched");
+    }
+
+    @Test
+    @DisplayName("lookups are counted by result")
+    void metrics_countLookups() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        UUID userId = UUID.randomUUID();
+
+        cache.get(userId, loader("user"));
+        cache.get(userId, loader("user"));
+
+        assertThat(registry.get("notifications.bff.user.cache.requests").tag("result", "miss")
+            .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("notifications.bff.user.cache.requests").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("notifications.bff.user.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    private Function<UUID, UserPublicDataDto> loader(String name) {
+        return id -> {
+            fetches.incrementAndGet();
+            return UserPublicDataDto.builder().id(id).fullName(name).build();
+        };
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.WebhookSubscription;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import dopaminelite.notifications.exception.WebhookDeliveryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the webhook deliverer against a local HTTP stub of a partner endpoint.
+ */
+class WebhookChannelDelivererTest {
+
+    private static final String SECRET = "whsec_test-secret-0123456789";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<Headers> headers = new CopyOnWriteArrayList<>();
+    private final DeliveryExecutor deliveryExecutor = new DeliveryExecutor(4, 4);
+    private final WebhookSubscriptionService subscriptionService = Mockito.mock(WebhookSubscriptionService.class);
+
+    private HttpServer server;
+    private volatile int responseStatus = 204;
+    private volatile String retryAfter;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hooks", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            headers.add(exchange.getRequestHeaders());
+            if (retryAfter != null) {
+                exchange.getResponseHeaders().add("Retry-After", retryAfter);
+            }
+            exchange.sendResponseHeaders(responseStatus, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() throws InterruptedException {
+        server.stop(0);
+        deliveryExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("deliver posts the notification with a verifiable signature")
+    void deliver_postsSignedPayload() throws IOException {
+        WebhookSubscription subscription = subscription();
+        Notification notification = notification();
+
+        assertNotNull(deliverer().deliver(notification, subscription.getId().toString()).join());
+
+        Headers sent = headers.get(0);
+        String id = sent.getFirst("webhook-id");
+        String timestamp = sent.getFirst("webhook-timestamp");
+        assertEquals(notification.getId().toString(), id);
+        assertEquals("v1," + WebhookChannelDeliverer.sign(SECRET, id + "." + timestamp + "." + bodies.get(0)),
+                sent.getFirst("webhook-signature"));
+        JsonNode payload = objectMapper.readTree(bodies.get(0));
+        assertEquals("notification.created", payload.path("type").asText());
+        assertEquals("Issue updated", payload.path("data").path("title").asText());
+        assertEquals(notification.getUserId().toString(), payload.path("data").path("userId").asText());
+    }
+
+    @Test
+    @DisplayName("deliver defers when the endpoint asks to retry later")
+    void deliver_retryAfter_defers() {
+        responseStatus = 503;
+        retryAfter = "30";
+        WebhookSubscription subscription = subscription();
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer().deliver(notification(), subscription.getId().toString()).join());
+
+        assertInstanceOf(DeliveryDeferredException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("deliver unsubscribes an endpoint that answers 410 Gone")
+    void deliver_gone_deactivatesSubscription() {
+        responseStatus = 410;
+        WebhookSubscription subscription = subscription();
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer().deliver(notification(), subscription.getId().toString()).join());
+
+        WebhookDeliveryException webhookError = assertInstanceOf(WebhookDeliveryException.class, error.getCause());
+        assertEquals(DeliveryErrorClass.RECIPIENT_REJECTED, DeliveryErrorClassifier.classify(webhookError));
+        Mockito.verify(subscriptionService).deactivate(subscription.getId());
+    }
+
+    @Test
+    @DisplayName("deliver does not call an endpoint whose host no longer resolves to a public address")
+    void deliver_endpointRebound_failsWithoutRequest() {
+        WebhookSubscription subscription = subscription();
+        Mockito.doThrow(new WebhookDeliveryException("Webhook host resolves to non-public address 10.0.0.5", 400))
+                .when(subscriptionService).checkEndpointAddress(subscription.getUrl());
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer().deliver(notification(), subscription.getId().toString()).join());
+
+        WebhookDeliveryException webhookError = assertInstanceOf(WebhookDeliveryException.class, error.getCause());
+        assertEquals(DeliveryErrorClass.RECIPIENT_REJECTED, DeliveryErrorClassifier.classify(webhookError));
+        assertTrue(bodies.isEmpty());
+    }
+
+    @Test
+    @DisplayName("deliver fails without a request when the subscription is gone")
+    void deliver_inactiveSubscription_fails() {
+        Mockito.when(subscriptionService.findActive(Mockito.anyCollection())).thenReturn(Map.of());
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer().deliver(notification(), UUID.randomUUID().toString()).join());
+
+        assertInstanceOf(WebhookDeliveryException.class, error.getCause());
+        assertTrue(bodies.isEmpty());
+    }
+
+    private WebhookChannelDeliverer deliverer() {
+        return new WebhookChannelDeliverer(objectMapper, deliveryExecutor, subscriptionService, 4, Duration.ofSeconds(5));
+    }
+
+    private WebhookSubscription subscription() {
+        WebhookSubscription subscription = new WebhookSubscription();
+        subscription.setId(UUID.randomUUID());
+        subscription.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/hooks");
+        subscription.setSecret(SECRET);
+        Mockito.when(subscriptionService.findActive(Mockito.anyCollection()))
+                .thenReturn(Map.of(subscription.getId(), subscription));
+        return subscription;
+    }
+
+    private static Notification notification() {
+        Notification notification = new Notification();
+        notification.setId(UUID.randomUUID());
+        notification.setUserId(UUID.randomUUID());
+        notification.setChannel(NotificationChannel.WEBHOOK);
+        notification.setTitle("Issue updated");
+        notification.setBody("Your issue was resolved");
+        return notification;
+    }
+}
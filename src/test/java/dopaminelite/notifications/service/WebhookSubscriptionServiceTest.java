@@ -0,0 +1,112 @@
+package dopaminelite.notifications.service;
+
+import dopaminelite.notifications.dto.WebhookSubscriptionCreateRequest;
+import dopaminelite.notifications.dto.WebhookSubscriptionDto;
+import dopaminelite.notifications.entity.WebhookSubscription;
+import dopaminelite.notifications.entity.enums.NotificationEventType;
+import dopaminelite.notifications.exception.ValidationException;
+import dopaminelite.notifications.exception.WebhookDeliveryException;
+import dopaminelite.notifications.repository.WebhookSubscriptionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WebhookSubscriptionServiceTest {
+
+    private final WebhookSubscriptionRepository repository = mock(WebhookSubscriptionRepository.class);
+    private final WebhookSubscriptionService service = new WebhookSubscriptionService(repository);
+
+    @Test
+    @DisplayName("create stores the event types and returns the secret once")
+    void create_storesEventTypes() {
+        when(repository.save(any(WebhookSubscription.class))).thenAnswer(inv -> {
+            WebhookSubscription saved = inv.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        WebhookSubscriptionDto dto = service.create(WebhookSubscriptionCreateRequest.builder()
+                .url("https://93.184.216.34/hooks")
+                .eventTypes(List.of(NotificationEventType.ISSUE_MESSAGE_NEW, NotificationEventType.ISSUE_MESSAGE_NEW))
+                .build());
+
+        assertThat(dto.getEventTypes()).containsExactly(NotificationEventType.ISSUE_MESSAGE_NEW);
+        assertThat(dto.getSecret()).startsWith("whsec_");
+    }
+
+    @Test
+    @DisplayName("create rejects URLs that are not public https endpoints")
+    void create_rejectsNonPublicEndpoints() {
+        for (String url : List.of(
+                "http://93.184.216.34/hooks",
+                "https://127.0.0.1/hooks",
+                "https://10.1.2.3/hooks",
+                "https://192.168.0.10/hooks",
+                "https://169.254.169.254/latest/meta-data",
+                "https://100.64.0.1/hooks",
+                "https://0.0.0.0/hooks",
+                "https://[::1]/hooks",
+                "https://[fd00::1]/hooks",
+                "https://[fe80::1]/hooks",
+                "https:///hooks")) {
+            WebhookSubscriptionCreateRequest request = WebhookSubscriptionCreateRequest.builder()
+                    .url(url)
+                    .eventTypes(List.of(NotificationEventType.ADMIN_BROADCAST))
+                    .build();
+
+            assertThatThrownBy(() -> service.create(request)).as(url).isInstanceOf(ValidationException.class);
+        }
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("validateEndpoint accepts a public https address")
+    void validateEndpoint_acceptsPublicAddress() {
+        assertThatCode(() -> WebhookSubscriptionService.validateEndpoint("https://93.184.216.34:8443/hooks"))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> WebhookSubscriptionService.validateEndpoint("https://[2606:2800:220:1::1]/hooks"))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("checkEndpointAddress rejects a host that now resolves to an internal address")
+    void checkEndpointAddress_rejectsInternalAddress() {
+        assertThatThrownBy(() -> service.checkEndpointAddress("https://169.254.169.254/hooks"))
+                .isInstanceOf(WebhookDeliveryException.class)
+                .hasMessageContaining("non-public");
+        assertThatThrownBy(() -> service.checkEndpointAddress("https://localhost/hooks"))
+                .isInstanceOf(WebhookDeliveryException.class);
+        assertThatCode(() -> service.checkEndpointAddress("https://93.184.216.34/hooks"))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("findActive only returns subscriptions to the event type")
+    void findActive_filtersByEventType() {
+        WebhookSubscription payments = subscription(NotificationEventType.PAYMENT_STATUS_CHANGED);
+        WebhookSubscription issues = subscription(NotificationEventType.ISSUE_STATUS_CHANGED,
+                NotificationEventType.ISSUE_MESSAGE_NEW);
+        WebhookSubscription none = subscription();
+        when(repository.findByActiveTrue()).thenReturn(List.of(payments, issues, none));
+
+        assertThat(service.findActive(NotificationEventType.ISSUE_MESSAGE_NEW)).containsExactly(issues);
+        assertThat(service.findActive(NotificationEventType.PAYMENT_STATUS_CHANGED)).containsExactly(payments);
+        assertThat(service.findActive(NotificationEventType.ADMIN_BROADCAST)).isEmpty();
+    }
+
+    private static WebhookSubscription subscription(NotificationEventType... eventTypes) {
+        WebhookSubscription subscription = new WebhookSubscription();
+        subscription.setId(UUID.randomUUID());
+        subscription.setUrl("https://partner.example.com/hooks");
+        subscription.setEventTypes(List.of(eventTypes));
+        return subscription;
+    }
+}
@@ -0,0 +1,182 @@
+package dopaminelite.notifications.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import dopaminelite.notifications.entity.Notification;
+import dopaminelite.notifications.entity.enums.DeliveryErrorClass;
+import dopaminelite.notifications.entity.enums.NotificationChannel;
+import dopaminelite.notifications.exception.DeliveryDeferredException;
+import dopaminelite.notifications.exception.WhatsAppApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Cloud API deliverer against a local HTTP stub of the messages endpoint.
+ */
+class WhatsAppCloudDelivererTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final DeliveryExecutor deliveryExecutor = new DeliveryExecutor(4, 4);
+
+    private HttpServer server;
+    private volatile int responseStatus = 200;
+    private volatile String responseBody = "{\"messages\":[{\"id\":\"wamid.TEST\"}]}";
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v21.0/12345/messages", exchange -> {
+            requests.add(objectMapper.readTree(exchange.getRequestBody()));
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(responseStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() throws InterruptedException {
+        server.stop(0);
+        deliveryExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("deliver posts a text message and returns the WhatsApp message id")
+    void deliver_textMessage_returnsMessageId() {
+        WhatsAppCloudDeliverer deliverer = deliverer("", Duration.ZERO);
+
+        DeliveryResult result = deliverer.deliver(notification("Payment approved", "<p>Your payment was approved</p>"),
+                "+94 77 123 4567").join();
+
+        assertEquals("wamid.TEST", result.providerMessageId());
+        assertEquals("Bearer test-token", authorizations.get(0));
+        JsonNode sent = requests.get(0);
+        assertEquals("whatsapp", sent.path("messaging_product").asText());
+        assertEquals("94771234567", sent.path("to").asText());
+        assertEquals("text", sent.path("type").asText());
+        assertEquals("*Payment approved*\n\nYour payment was approved", sent.path("text").path("body").asText());
+    }
+
+    @Test
+    @DisplayName("deliver sends the configured template with title and body as parameters")
+    void deliver_template_passesTitleAndBody() {
+        WhatsAppCloudDeliverer deliverer = deliverer("notification_update", Duration.ZERO);
+
+        deliverer.deliver(notification("Issue updated", "Your issue was resolved"), "94771234567").join();
+
+        JsonNode template = requests.get(0).path("template");
+        assertEquals("template", requests.get(0).path("type").asText());
+        assertEquals("notification_update", template.path("name").asText());
+        assertEquals("en", template.path("language").path("code").asText());
+        JsonNode parameters = template.path("components").path(0).path("parameters");
+        assertEquals("Issue updated", parameters.path(0).path("text").asText());
+        assertEquals("Your issue was resolved", parameters.path(1).path("text").asText());
+    }
+
+    @Test
+    @DisplayName("deliverBatch defers a second message to the same number within the interval")
+    void deliverBatch_sameRecipient_defersSecondMessage() {
+        WhatsAppCloudDeliverer deliverer = deliverer("", Duration.ofMinutes(1));
+
+        List<ChannelDeliverer.Delivery> batch = List.of(
+                new ChannelDeliverer.Delivery(notification("First", "one"), "94771234567"),
+                new ChannelDeliverer.Delivery(notification("Other", "two"), "94770000000"));
+        deliverer.deliverBatch(batch).forEach(future -> assertNotNull(future.join()));
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer.deliver(notification("Second", "three"), "94771234567").join());
+
+        assertInstanceOf(DeliveryDeferredException.class, error.getCause());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("deliver gives the recipient's slot back when the message was not sent")
+    void deliver_failedSend_releasesRecipientSlot() {
+        WhatsAppCloudDeliverer deliverer = deliverer("", Duration.ofMinutes(1));
+        responseStatus = 400;
+        responseBody = "{\"error\":{\"message\":\"Throughput limit reached\",\"code\":130429}}";
+
+        CompletionException throttled = assertThrows(CompletionException.class,
+                () -> deliverer.deliver(notification("Title", "Body"), "94771234567").join());
+        assertInstanceOf(DeliveryDeferredException.class, throttled.getCause());
+
+        responseStatus = 503;
+        responseBody = "{\"error\":{\"message\":\"Service temporarily unavailable\",\"code\":131000}}";
+        CompletionException unavailable = assertThrows(CompletionException.class,
+                () -> deliverer.deliver(notification("Title", "Body"), "94771234567").join());
+        assertInstanceOf(WhatsAppApiException.class, unavailable.getCause());
+
+        responseStatus = 200;
+        responseBody = "{\"messages\":[{\"id\":\"wamid.TEST\"}]}";
+        DeliveryResult result = deliverer.deliver(notification("Title", "Body"), "94771234567").join();
+
+        assertEquals("wamid.TEST", result.providerMessageId());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    @DisplayName("deliver defers on the Cloud API pair rate limit")
+    void deliver_pairRateLimit_defers() {
+        responseStatus = 400;
+        responseBody = "{\"error\":{\"message\":\"Pair rate limit hit\",\"code\":131056}}";
+        WhatsAppCloudDeliverer deliverer = deliverer("", Duration.ZERO);
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer.deliver(notification("Title", "Body"), "94771234567").join());
+
+        assertInstanceOf(DeliveryDeferredException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("deliver fails with a classified error when the Cloud API rejects the message")
+    void deliver_apiError_failsClassified() {
+        responseStatus = 503;
+        responseBody = "{\"error\":{\"message\":\"Service temporarily unavailable\",\"code\":131000}}";
+        WhatsAppCloudDeliverer deliverer = deliverer("", Duration.ZERO);
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> deliverer.deliver(notification("Title", "Body"), "94771234567").join());
+
+        WhatsAppApiException apiError = assertInstanceOf(WhatsAppApiException.class, error.getCause());
+        assertEquals(131000, apiError.getErrorCode());
+        assertEquals(DeliveryErrorClass.PROVIDER_UNAVAILABLE, DeliveryErrorClassifier.classify(apiError));
+    }
+
+    private WhatsAppCloudDeliverer deliverer(String templateName, Duration perRecipientInterval) {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v21.0/";
+        return new WhatsAppCloudDeliverer(objectMapper, deliveryExecutor, baseUrl, "12345", "test-token",
+                templateName, "en", 0, perRecipientInterval, Duration.ofSeconds(5));
+    }
+
+    private static Notification notification(String title, String body) {
+        Notification notification = new Notification();
+        notification.setId(UUID.randomUUID());
+        notification.setUserId(UUID.randomUUID());
+        notification.setChannel(NotificationChannel.WHATSAPP);
+        notification.setTitle(title);
+        notification.setBody(body);
+        return notification;
+    }
+}